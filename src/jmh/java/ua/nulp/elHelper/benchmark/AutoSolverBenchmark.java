@@ -0,0 +1,66 @@
+package ua.nulp.elHelper.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import ua.nulp.elHelper.service.CalculatorService;
+import ua.nulp.elHelper.service.dto.calculation.calculation.CalculationRequest;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * runAutoSolver на формулах з кількох скриптів. Міряється через calculateTest з вимкненим кешем результатів,
+ * тож у час входять план, кроки солвера й стандартизація — як у реальному запиті /test.
+ * Ізоляція в Symja відбувається один раз під час прогріву, далі працюють скомпільовані вирази.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AutoSolverBenchmark {
+
+    private static final Long FORMULA_ID = 1L;
+
+    @Param({"led", "divider", "rc", "diode"})
+    public String formula;
+
+    private AnnotationConfigApplicationContext context;
+    private CalculatorService calculatorService;
+    private SplittableRandom random;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkFixtures.solverContext(Map.of(FORMULA_ID, BenchmarkFixtures.formulaFor(formula, FORMULA_ID)));
+        calculatorService = context.getBean(CalculatorService.class);
+        random = new SplittableRandom(42);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> calculate() {
+        // Нові входи на кожен виклик — так само, як різні запити користувачів
+        CalculationRequest request = new CalculationRequest();
+        request.setFormulaId(FORMULA_ID);
+        request.setInputs(BenchmarkFixtures.inputsFor(formula, random));
+        return calculatorService.calculateTest(request);
+    }
+}
@@ -0,0 +1,244 @@
+package ua.nulp.elHelper.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import ua.nulp.elHelper.entity.Enums.ESeries;
+import ua.nulp.elHelper.entity.calculation.Calculation;
+import ua.nulp.elHelper.entity.calculation.Formula;
+import ua.nulp.elHelper.entity.calculation.Project;
+import ua.nulp.elHelper.repository.CalculationRepo;
+import ua.nulp.elHelper.repository.FormulaRepo;
+import ua.nulp.elHelper.repository.ProjectRepo;
+import ua.nulp.elHelper.service.CalculatorService;
+import ua.nulp.elHelper.service.StandardizationService;
+import ua.nulp.elHelper.service.SymbolicSolverService;
+import ua.nulp.elHelper.service.solver.CalculationResultCache;
+import ua.nulp.elHelper.service.solver.ClosedFormSolver;
+import ua.nulp.elHelper.service.solver.EvaluatorPool;
+import ua.nulp.elHelper.service.solver.FormulaCircuitBreaker;
+import ua.nulp.elHelper.service.solver.FormulaCompiler;
+import ua.nulp.elHelper.service.solver.SolvePlanner;
+import ua.nulp.elHelper.service.solver.SolverBulkhead;
+import ua.nulp.elHelper.service.solver.SolverMetrics;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+
+/**
+ * Фікстури для бенчмарків: формули каталогу, проєкти з розрахунками та мінімальний
+ * Spring-контекст солвера. База даних не потрібна — репозиторії замінено заглушками,
+ * які віддають фікстури з пам'яті.
+ */
+final class BenchmarkFixtures {
+
+    static final String USER_EMAIL = "bench@elhelper.local";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Резистор для LED: два прямі скрипти, обидва компілюються в замкнену форму.
+     */
+    static Formula ledResistor(Long id) {
+        return formula(id,
+                script("R", "(#Vs - #Vf) / #I"),
+                script("P", "(#Vs - #Vf) * #I"));
+    }
+
+    /**
+     * Дільник напруги: R1 ізолюється з першого скрипта, далі струм і потужність.
+     */
+    static Formula voltageDivider(Long id) {
+        return formula(id,
+                script("Vout", "#Vin * #R2 / (#R1 + #R2)"),
+                script("I", "#Vin / (#R1 + #R2)"),
+                script("P1", "#I^2 * #R1"));
+    }
+
+    /**
+     * Заряд RC-кола: C ізолюється через логарифм.
+     */
+    static Formula rcCharge(Long id) {
+        return formula(id,
+                script("Vc", "#V * (1 - Exp(-#t / (#R * #C)))"),
+                script("tau", "#R * #C"));
+    }
+
+    /**
+     * Діод з послідовним резистором: струм у замкненій формі не виражається,
+     * тож крок іде через числовий пошук кореня по нев'язці.
+     */
+    static Formula diodeWithResistor(Long id) {
+        return formula(id,
+                script("Vs", "#I * #R + #n * #Vt * Log(#I / #Is + 1)"),
+                script("Vd", "#Vs - #I * #R"));
+    }
+
+    static Map<String, Double> inputsFor(String formula, SplittableRandom random) {
+        Map<String, Double> inputs = new HashMap<>();
+        switch (formula) {
+            case "led" -> {
+                inputs.put("Vs", 5 + random.nextDouble() * 7);
+                inputs.put("Vf", 1.8 + random.nextDouble());
+                inputs.put("I", 0.005 + random.nextDouble() * 0.015);
+            }
+            case "divider" -> {
+                inputs.put("Vin", 12.0);
+                inputs.put("Vout", 2 + random.nextDouble() * 6);
+                inputs.put("R2", 1000 + random.nextDouble() * 9000);
+            }
+            case "rc" -> {
+                inputs.put("V", 5.0);
+                inputs.put("Vc", 1 + random.nextDouble() * 3);
+                inputs.put("t", 0.001);
+                inputs.put("R", 1000 + random.nextDouble() * 9000);
+            }
+            case "diode" -> {
+                inputs.put("Vs", 3 + random.nextDouble() * 9);
+                inputs.put("R", 100 + random.nextDouble() * 900);
+                inputs.put("n", 1.8);
+                inputs.put("Vt", 0.02585);
+                inputs.put("Is", 1e-12);
+            }
+            default -> throw new IllegalArgumentException("Unknown fixture formula " + formula);
+        }
+        return inputs;
+    }
+
+    static Formula formulaFor(String name, Long id) {
+        return switch (name) {
+            case "led" -> ledResistor(id);
+            case "divider" -> voltageDivider(id);
+            case "rc" -> rcCharge(id);
+            case "diode" -> diodeWithResistor(id);
+            default -> throw new IllegalArgumentException("Unknown fixture formula " + name);
+        };
+    }
+
+    /**
+     * Проєкт з count розрахунками: резистори, конденсатори, індуктивності та потужність,
+     * тобто ті самі змінні, які BomService фільтрує й форматує.
+     */
+    static Project project(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Formula formula = componentFormula();
+        StandardizationService standardization = new StandardizationService(ESeries.E24, ESeries.E24, ESeries.E24);
+
+        Project project = Project.builder()
+                .id(1L)
+                .name("Benchmark project")
+                .calculations(new ArrayList<>(count))
+                .build();
+
+        for (int i = 0; i < count; i++) {
+            Map<String, Double> results = new HashMap<>();
+            results.put("R1", 100 + random.nextDouble() * 100_000);
+            results.put("C1", 1e-9 + random.nextDouble() * 1e-6);
+            results.put("L1", 1e-6 + random.nextDouble() * 1e-3);
+            results.put("P_R1", random.nextDouble() * 0.5);
+            results.put("Vmax", 5 + random.nextDouble() * 45);
+
+            Calculation calc = Calculation.builder()
+                    .id((long) i + 1)
+                    .name("Stage \"" + (i + 1) + "\"; filter")
+                    .project(project)
+                    .formula(formula)
+                    .inputs(Map.of())
+                    .results(results)
+                    .standardizedResults(standardization.standardizeResults(results))
+                    .build();
+            project.getCalculations().add(calc);
+        }
+        return project;
+    }
+
+    private static Formula componentFormula() {
+        Formula formula = formula(100L,
+                script("R1", "#Vmax / 0.01"),
+                script("P_R1", "0.01^2 * #R1"));
+        formula.setParameters(List.of(
+                param("R1", unit("Ohm", 1.0), unit("kOhm", 1000.0)),
+                param("C1", unit("F", 1.0), unit("uF", 1e-6)),
+                param("L1", unit("H", 1.0), unit("mH", 1e-3)),
+                param("P_R1", unit("W", 1.0)),
+                param("Vmax", unit("V", 1.0))));
+        return formula;
+    }
+
+    /**
+     * Spring-контекст лише з бінами солвера та CalculatorService.
+     * Кеш результатів вимкнено (0 записів), щоб кожен виклик доходив до runAutoSolver.
+     */
+    static AnnotationConfigApplicationContext solverContext(Map<Long, Formula> formulas) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+                "solver.result-cache.max-entries", "0",
+                "solver.metrics.slow-solve-ms", "60000")));
+
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        context.registerBean(FormulaRepo.class, () -> stub(FormulaRepo.class, Map.of(
+                "findById", args -> Optional.ofNullable(formulas.get((Long) args[0])))));
+        context.registerBean(ProjectRepo.class, () -> stub(ProjectRepo.class, Map.of()));
+        context.registerBean(CalculationRepo.class, () -> stub(CalculationRepo.class, Map.of()));
+
+        context.register(SolverMetrics.class, EvaluatorPool.class, SymbolicSolverService.class,
+                FormulaCompiler.class, SolvePlanner.class, ClosedFormSolver.class, FormulaCircuitBreaker.class,
+                CalculationResultCache.class, SolverBulkhead.class, StandardizationService.class,
+                CalculatorService.class);
+        context.refresh();
+        return context;
+    }
+
+    /**
+     * Заглушка репозиторію: відповідає лише на перелічені методи, решта — UnsupportedOperationException,
+     * щоб бенчмарк не міряв непомітно порожній виклик.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "toString":
+                    return type.getSimpleName() + " stub";
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    Function<Object[], Object> handler = methods.get(method.getName());
+                    if (handler == null) {
+                        throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+                    }
+                    return handler.apply(args);
+            }
+        });
+    }
+
+    private static Formula formula(Long id, Formula.FormulaScript... scripts) {
+        return Formula.builder()
+                .id(id)
+                .names(Map.of("en", "Benchmark formula " + id))
+                .scripts(List.of(scripts))
+                .parameters(List.of())
+                .build();
+    }
+
+    private static Formula.FormulaScript script(String target, String expression) {
+        return new Formula.FormulaScript(target, expression);
+    }
+
+    private static Formula.FormulaParam param(String var, Formula.UnitDefinition... units) {
+        return new Formula.FormulaParam("#" + var, Map.of("en", var), List.of(units));
+    }
+
+    private static Formula.UnitDefinition unit(String name, double mult) {
+        return new Formula.UnitDefinition(name, mult);
+    }
+}
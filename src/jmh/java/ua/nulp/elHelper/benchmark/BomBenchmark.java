@@ -0,0 +1,79 @@
+package ua.nulp.elHelper.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import ua.nulp.elHelper.entity.calculation.Calculation;
+import ua.nulp.elHelper.entity.calculation.Project;
+import ua.nulp.elHelper.repository.CalculationRepo;
+import ua.nulp.elHelper.repository.FormulaRepo;
+import ua.nulp.elHelper.repository.ProjectRepo;
+import ua.nulp.elHelper.service.BomArtifactCache;
+import ua.nulp.elHelper.service.BomService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Експорт CSV BOM для проєктів різного розміру. Розрахунки вже в пам'яті, а відповідь
+ * пишеться в нікуди, тож міряється лише форматування й запис CSV, без бази та мережі.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BomBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int calculations;
+
+    @Param({"false", "true"})
+    public boolean aggregated;
+
+    private BomService bomService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Project project = BenchmarkFixtures.project(calculations, 42);
+        ProjectRepo projectRepo = BenchmarkFixtures.stub(ProjectRepo.class, Map.of(
+                "findByIdAndUserEmail", args -> Optional.of(project)));
+        CalculationRepo calculationRepo = BenchmarkFixtures.stub(CalculationRepo.class, Map.of(
+                "streamByProjectId", args -> project.getCalculations().stream()));
+        FormulaRepo formulaRepo = BenchmarkFixtures.stub(FormulaRepo.class, Map.of(
+                "findUsedByProjectId", args -> project.getCalculations().stream()
+                        .map(Calculation::getFormula).distinct().toList()));
+        PlatformTransactionManager transactionManager = BenchmarkFixtures.stub(PlatformTransactionManager.class, Map.of(
+                "getTransaction", args -> new SimpleTransactionStatus(),
+                "commit", args -> null,
+                "rollback", args -> null));
+        EntityManager entityManager = BenchmarkFixtures.stub(EntityManager.class, Map.of(
+                "detach", args -> null));
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        bomService = new BomService(projectRepo, calculationRepo, formulaRepo, transactionManager, entityManager,
+                new BomArtifactCache(meterRegistry, 64L << 20), meterRegistry);
+    }
+
+    @Benchmark
+    public void streamCsvBom() throws IOException {
+        bomService.csvBom(1L, BenchmarkFixtures.USER_EMAIL, aggregated).body().writeTo(OutputStream.nullOutputStream());
+    }
+}
@@ -0,0 +1,84 @@
+package ua.nulp.elHelper.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ua.nulp.elHelper.entity.Enums.ESeries;
+import ua.nulp.elHelper.service.StandardizationService;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Підбір стандартних номіналів: окреме значення та мапа результатів одного розрахунку.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StandardizationBenchmark {
+
+    private static final int VALUES = 1024;
+
+    @Param({"E24", "E96"})
+    public ESeries series;
+
+    private StandardizationService standardizationService;
+    private StandardizationService.Profile profile;
+
+    // Значення від 1 Ом до 10 МОм, рівномірно за декадами
+    private double[] values;
+    private Map<String, Double> results;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        standardizationService = new StandardizationService(series, series, series);
+        profile = standardizationService.defaultProfile();
+
+        SplittableRandom random = new SplittableRandom(42);
+        values = new double[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = Math.pow(10, random.nextDouble() * 7);
+        }
+
+        results = new HashMap<>();
+        results.put("R1", 4_630.0);
+        results.put("R2", 1_180.0);
+        results.put("C1", 2.2e-7);
+        results.put("L1", 3.3e-4);
+        results.put("I", 0.012);
+        results.put("P_R1", 0.25);
+        results.put("Vout", 3.3);
+    }
+
+    /**
+     * Час на одне значення: VALUES викликів за операцію.
+     */
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void toNearest(Blackhole blackhole) {
+        for (double value : values) {
+            blackhole.consume(standardizationService.toNearest(value, series));
+        }
+    }
+
+    @Benchmark
+    public Map<String, Double> standardizeResults() {
+        return standardizationService.standardizeResults(results, profile);
+    }
+}
@@ -0,0 +1,75 @@
+package ua.nulp.elHelper.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import ua.nulp.elHelper.service.SymbolicSolverService;
+import ua.nulp.elHelper.service.solver.SolveResult;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Повний числовий Solve у Symja — шлях для рівнянь, які не компілюються навіть як нев'язка.
+ * Рівняння записані так, як їх передає ClosedFormSolver (змінні v{слот}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SymbolicSolveBenchmark {
+
+    @Param({"linear", "quadratic", "exponential"})
+    public String equation;
+
+    private AnnotationConfigApplicationContext context;
+    private SymbolicSolverService symbolicSolver;
+
+    private String text;
+    private Map<String, Double> inputs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkFixtures.solverContext(Map.of());
+        symbolicSolver = context.getBean(SymbolicSolverService.class);
+
+        switch (equation) {
+            case "linear" -> {
+                text = "v0 = (v1 - v2) / v3";
+                inputs = Map.of("v1", 12.0, "v2", 2.0, "v3", 0.02);
+            }
+            case "quadratic" -> {
+                text = "v1 = v0^2 - 3*v0 + v2";
+                inputs = Map.of("v1", 0.0, "v2", 2.0);
+            }
+            default -> {
+                // Рівняння діода, розв'язане відносно напруги
+                text = "v1 = v2 * (Exp(v0 / (v3 * v4)) - 1)";
+                inputs = Map.of("v1", 0.02, "v2", 1e-12, "v3", 1.8, "v4", 0.02585);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public SolveResult solve() {
+        return symbolicSolver.solve(1L, text, inputs, "v0");
+    }
+}
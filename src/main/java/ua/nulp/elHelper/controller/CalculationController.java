@@ -1,15 +1,32 @@
 package ua.nulp.elHelper.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import ua.nulp.elHelper.service.CalculatorService;
+import ua.nulp.elHelper.service.CombinationService;
+import ua.nulp.elHelper.service.GoalSeekService;
+import ua.nulp.elHelper.service.SweepService;
+import ua.nulp.elHelper.service.ToleranceService;
+import ua.nulp.elHelper.service.dto.calculation.calculation.BatchCalculationRequest;
+import ua.nulp.elHelper.service.dto.calculation.calculation.BatchCalculationResponse;
 import ua.nulp.elHelper.service.dto.calculation.calculation.CalculationRequest;
 import ua.nulp.elHelper.service.dto.calculation.calculation.CalculationResponse;
+import ua.nulp.elHelper.service.dto.calculation.calculation.CombinationRequest;
+import ua.nulp.elHelper.service.dto.calculation.calculation.CombinationResponse;
+import ua.nulp.elHelper.service.dto.calculation.calculation.GoalSeekRequest;
+import ua.nulp.elHelper.service.dto.calculation.calculation.GoalSeekResponse;
+import ua.nulp.elHelper.service.dto.calculation.calculation.SweepRequest;
+import ua.nulp.elHelper.service.dto.calculation.calculation.ToleranceRequest;
+import ua.nulp.elHelper.service.dto.calculation.calculation.ToleranceResponse;
+import ua.nulp.elHelper.service.solver.SolverBulkhead;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/calculations")
@@ -17,15 +34,44 @@ import java.util.Map;
 public class CalculationController {
 
     private final CalculatorService calculatorService;
+    private final SweepService sweepService;
+    private final ToleranceService toleranceService;
+    private final GoalSeekService goalSeekService;
+    private final CombinationService combinationService;
+    // Розрахунки виконуються в черзі солвера, а не на потоках Tomcat
+    private final SolverBulkhead solverBulkhead;
 
     @PostMapping("/test")
-    public ResponseEntity<Map<String, Object>> testCalculation(@RequestBody CalculationRequest request) {
-        return ResponseEntity.ok(calculatorService.calculateTest(request));
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> testCalculation(@RequestBody CalculationRequest request) {
+        return solverBulkhead.submit(() -> ResponseEntity.ok(calculatorService.calculateTest(request)));
+    }
+
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<BatchCalculationResponse>> batchCalculation(@RequestBody BatchCalculationRequest request) {
+        return solverBulkhead.submit(() -> ResponseEntity.ok(calculatorService.calculateBatch(request)));
+    }
+
+    @PostMapping("/goal-seek")
+    public CompletableFuture<ResponseEntity<GoalSeekResponse>> goalSeek(@RequestBody GoalSeekRequest request) {
+        return solverBulkhead.submit(() -> ResponseEntity.ok(goalSeekService.seek(request)));
+    }
+
+    @PostMapping("/combinations")
+    public CompletableFuture<ResponseEntity<CombinationResponse>> combinations(@RequestBody CombinationRequest request) {
+        return solverBulkhead.submit(() -> ResponseEntity.ok(combinationService.find(request)));
+    }
+
+    @PostMapping(value = "/sweep", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> sweep(@RequestBody SweepRequest request) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(sweepService.sweep(request));
     }
 
     @PostMapping
-    public ResponseEntity<CalculationResponse> create(Authentication authentication, @RequestBody CalculationRequest request) {
-        return ResponseEntity.ok(calculatorService.calculateAndSave(request, authentication.getName()));
+    public CompletableFuture<ResponseEntity<CalculationResponse>> create(Authentication authentication, @RequestBody CalculationRequest request) {
+        String email = authentication.getName();
+        return solverBulkhead.submit(() -> ResponseEntity.ok(calculatorService.calculateAndSave(request, email)));
     }
 
     @GetMapping("/calc/{calcId}")
@@ -38,13 +84,28 @@ public class CalculationController {
         return ResponseEntity.ok(calculatorService.getProjectCalculations(projectId, authentication.getName()));
     }
 
+    @PostMapping("/{id}/tolerance")
+    public CompletableFuture<ResponseEntity<ToleranceResponse>> tolerance(
+            Authentication authentication,
+            @PathVariable Long id,
+            @RequestBody ToleranceRequest request
+    ) {
+        String email = authentication.getName();
+        return solverBulkhead.submit(() -> ResponseEntity.ok(toleranceService.analyze(id, request, email)));
+    }
+
     @PatchMapping("/{id}")
-    public ResponseEntity<CalculationResponse> update(
+    public CompletableFuture<ResponseEntity<CalculationResponse>> update(
             Authentication authentication,
             @PathVariable Long id,
             @RequestBody CalculationRequest request
     ) {
-        return ResponseEntity.ok(calculatorService.updateCalculation(id, request, authentication.getName()));
+        String email = authentication.getName();
+        if (request.getInputs() == null && request.getInputUnits() == null) {
+            // Зміна лише назви не доходить до солвера, тож і черга їй не потрібна
+            return CompletableFuture.completedFuture(ResponseEntity.ok(calculatorService.updateCalculation(id, request, email)));
+        }
+        return solverBulkhead.submit(() -> ResponseEntity.ok(calculatorService.updateCalculation(id, request, email)));
     }
 
     @DeleteMapping("/{id}")
@@ -8,8 +8,10 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import ua.nulp.elHelper.service.FormulaService;
+import ua.nulp.elHelper.service.ReevaluationService;
 import ua.nulp.elHelper.service.dto.calculation.formula.CreateFormula;
 import ua.nulp.elHelper.service.dto.calculation.formula.FormulaResponse;
+import ua.nulp.elHelper.service.dto.calculation.formula.ReevaluationStatus;
 
 import java.util.List;
 import java.util.Map;
@@ -20,6 +22,7 @@ import java.util.Map;
 public class FormulaController {
 
     private final FormulaService formulaService;
+    private final ReevaluationService reevaluationService;
 
     @GetMapping
     public ResponseEntity<List<FormulaResponse>> getAll() {
@@ -53,6 +56,22 @@ public class FormulaController {
         return ResponseEntity.ok(formulaService.update(id, authentication.getName(), dto));
     }
 
+    @GetMapping("/{id}/reevaluation")
+    public ResponseEntity<ReevaluationStatus> getReevaluation(
+            @PathVariable Long id,
+            Authentication authentication
+    ) {
+        return ResponseEntity.ok(reevaluationService.getStatus(id, authentication.getName()));
+    }
+
+    @DeleteMapping("/{id}/reevaluation")
+    public ResponseEntity<ReevaluationStatus> cancelReevaluation(
+            @PathVariable Long id,
+            Authentication authentication
+    ) {
+        return ResponseEntity.ok(reevaluationService.cancel(id, authentication.getName()));
+    }
+
     @PostMapping(value = "/scheme", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> uploadScheme(@RequestParam("file") MultipartFile file) {
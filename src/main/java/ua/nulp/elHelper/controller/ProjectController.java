@@ -1,16 +1,22 @@
 package ua.nulp.elHelper.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ua.nulp.elHelper.service.BomService;
 import ua.nulp.elHelper.service.ProjectService;
 import ua.nulp.elHelper.service.dto.calculation.project.ProjectRequest;
 import ua.nulp.elHelper.service.dto.calculation.project.ProjectResponse;
 
+import java.time.Duration;
 import java.util.List;
 
 @RestController
@@ -21,6 +27,9 @@ public class ProjectController {
     private final ProjectService projectService;
     private final BomService bomService;
 
+    @Value("${bom.archived.cache-max-age:30d}")
+    private Duration archivedBomMaxAge;
+
     @PostMapping
     public ResponseEntity<ProjectResponse> create(Authentication authentication, @RequestBody ProjectRequest request) {
         return ResponseEntity.ok(projectService.create(authentication.getName(), request));
@@ -57,13 +66,37 @@ public class ProjectController {
         return ResponseEntity.ok(projectService.createNextVersion(id, authentication.getName()));
     }
 
+    /**
+     * Архівні версії віддаються з сильним ETag і довгим приватним Cache-Control:
+     * повторне завантаження — це 304 без тіла або файл з кешу сервера.
+     */
     @GetMapping("/{id}/bom")
-    public ResponseEntity<byte[]> downloadBom(Authentication authentication, @PathVariable Long id) {
-        byte[] csvContent = bomService.generateCsvBom(id, authentication.getName());
+    public ResponseEntity<StreamingResponseBody> downloadBom(Authentication authentication, @PathVariable Long id,
+                                                             @RequestParam(defaultValue = "false") boolean aggregated,
+                                                             WebRequest webRequest) {
+        BomService.BomFile bom = bomService.csvBom(id, authentication.getName(), aggregated);
+        String fileName = "project_" + id + (aggregated ? "_bom_aggregated.csv" : "_bom.csv");
+
+        if (bom.eTag() == null) {
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                    .contentType(MediaType.parseMediaType("text/csv; charset=UTF-8"))
+                    .body(bom.body());
+        }
+
+        CacheControl cacheControl = CacheControl.maxAge(archivedBomMaxAge).cachePrivate();
+        if (webRequest.checkNotModified(bom.eTag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(bom.eTag())
+                    .cacheControl(cacheControl)
+                    .build();
+        }
 
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"project_" + id + "_bom.csv\"")
-                .contentType(MediaType.parseMediaType("text/csv"))
-                .body(csvContent);
+                .eTag(bom.eTag())
+                .cacheControl(cacheControl)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(MediaType.parseMediaType("text/csv; charset=UTF-8"))
+                .body(bom.body());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,10 @@
+package ua.nulp.elHelper.entity.Enums;
+
+public enum ESeries {
+    E6,     // ±20 %
+    E12,    // ±10 %
+    E24,    // ±5 % (за замовчуванням)
+    E48,    // ±2 %
+    E96,    // ±1 %, прецизійні резистори
+    E192    // ±0.5 % і точніше
+}
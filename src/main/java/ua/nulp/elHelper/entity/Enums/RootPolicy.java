@@ -0,0 +1,8 @@
+package ua.nulp.elHelper.entity.Enums;
+
+public enum RootPolicy {
+    FIRST_NON_NEGATIVE,   // Перший невід'ємний корінь, інакше перший дійсний (за замовчуванням)
+    SMALLEST_POSITIVE,    // Найменший додатний, інакше найбільший від'ємний
+    LARGEST,              // Найбільший дійсний
+    NEAREST_TO_PREVIOUS   // Найближчий до попереднього значення змінної (перерахунок, sweep)
+}
@@ -53,6 +53,9 @@ public class Calculation {
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(columnDefinition = "jsonb")
     private Map<String, Double> standardizedResults;
+
+    // Відбиток ревізії формули (FormulaRevision.fingerprint()), якою пораховано results; null — невідомо
+    private String formulaRevision;
 }
 
 
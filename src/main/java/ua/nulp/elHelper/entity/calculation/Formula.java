@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
+import ua.nulp.elHelper.entity.Enums.RootPolicy;
 import ua.nulp.elHelper.entity.common.Category;
 import ua.nulp.elHelper.entity.user.User;
 
@@ -47,6 +48,10 @@ public class Formula {
 
     private String schemeUrl;
 
+    // Який корінь брати, коли рівняння має кілька розв'язків (null = FIRST_NON_NEGATIVE)
+    @Enumerated(EnumType.STRING)
+    private RootPolicy rootPolicy;
+
     @Data
     @NoArgsConstructor
     @AllArgsConstructor
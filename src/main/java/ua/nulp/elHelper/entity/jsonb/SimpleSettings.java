@@ -1,11 +1,18 @@
 package ua.nulp.elHelper.entity.jsonb;
 
 import lombok.Data;
+import ua.nulp.elHelper.entity.Enums.ESeries;
+
 import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
 
 @Data
 public class SimpleSettings implements Serializable {
 
     private String theme = "light";
     private String language = "uk";
+
+    // Ряд номіналів за типом компонента ("R", "C", "L"); відсутні — як налаштовано на сервері
+    private Map<String, ESeries> standardSeries = new HashMap<>();
 }
@@ -0,0 +1,17 @@
+package ua.nulp.elHelper.exception;
+
+import lombok.Getter;
+
+/**
+ * Формула тимчасово заблокована після серії таймаутів солвера.
+ */
+@Getter
+public class FormulaCircuitOpenException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public FormulaCircuitOpenException(Long formulaId, long retryAfterSeconds) {
+        super("Formula " + formulaId + " is temporarily disabled after repeated solver timeouts");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,11 @@
+package ua.nulp.elHelper.exception;
+
+/**
+ * Скрипт формули не вдалося розібрати. Виникає під час збереження формули.
+ */
+public class FormulaParseException extends RuntimeException {
+
+    public FormulaParseException(String message, String expression, int position) {
+        super(message + " at position " + (position + 1) + " in \"" + expression + "\"");
+    }
+}
@@ -0,0 +1,17 @@
+package ua.nulp.elHelper.exception;
+
+import lombok.Getter;
+
+/**
+ * Черга солвера заповнена — запит відхилено одразу, замість того щоб чекати в хвості.
+ */
+@Getter
+public class SolverOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public SolverOverloadedException(long retryAfterSeconds) {
+        super("Solver is busy, try again later");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
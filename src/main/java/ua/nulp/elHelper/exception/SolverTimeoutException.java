@@ -0,0 +1,11 @@
+package ua.nulp.elHelper.exception;
+
+/**
+ * Символьний солвер не вклався у відведений час і був зупинений.
+ */
+public class SolverTimeoutException extends RuntimeException {
+
+    public SolverTimeoutException(long timeoutMs) {
+        super("Solver did not finish within " + timeoutMs + " ms");
+    }
+}
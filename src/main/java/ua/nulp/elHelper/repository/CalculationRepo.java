@@ -1,11 +1,17 @@
 package ua.nulp.elHelper.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import ua.nulp.elHelper.entity.calculation.Calculation;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CalculationRepo extends JpaRepository<Calculation, Long> {
@@ -14,4 +20,25 @@ public interface CalculationRepo extends JpaRepository<Calculation, Long> {
     List<Calculation> findAllByProjectId(Long projectId);
 
     Optional<Calculation> findByIdAndProject_User_Email(Long id, String email);
+
+    // Формули, за якими зроблено найбільше розрахунків (для прогріву солвера)
+    @Query("SELECT c.formula.id FROM Calculation c GROUP BY c.formula.id ORDER BY COUNT(c) DESC")
+    List<Long> findMostUsedFormulaIds(Pageable pageable);
+
+    // Сторінка розрахунків формули в активних проєктах після заданого id (для фонового перерахунку)
+    // Проєкт і його власник підтягуються одразу: перерахунок іде поза транзакцією, а ряди номіналів беруться з налаштувань власника
+    @Query("SELECT c FROM Calculation c JOIN FETCH c.project p JOIN FETCH p.user " +
+            "WHERE c.formula.id = :formulaId AND p.active = true AND c.id > :afterId ORDER BY c.id")
+    List<Calculation> findActiveByFormulaAfter(Long formulaId, Long afterId, Pageable pageable);
+
+    // Розрахунки проєкту потоком для експорту BOM: курсор порціями по 500 рядків, без знімків для dirty checking.
+    // Викликати лише всередині транзакції та закривати потік
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Calculation c WHERE c.project.id = :projectId ORDER BY c.id")
+    Stream<Calculation> streamByProjectId(Long projectId);
+
+    long countByFormulaIdAndProjectActiveTrue(Long formulaId);
 }
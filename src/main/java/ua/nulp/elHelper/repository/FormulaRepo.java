@@ -16,4 +16,8 @@ public interface FormulaRepo extends JpaRepository<Formula, Long> {
 
     @Query(value = "SELECT CASE WHEN COUNT(f) > 0 THEN true ELSE false END FROM formulas f WHERE EXISTS (SELECT 1 FROM jsonb_each_text(f.names) WHERE value = :name)", nativeQuery = true)
     boolean existsByAnyName(String name);
+
+    // Формули, за якими зроблено розрахунки проєкту (для ETag архівного BOM)
+    @Query("SELECT f FROM Formula f WHERE f.id IN (SELECT c.formula.id FROM Calculation c WHERE c.project.id = :projectId) ORDER BY f.id")
+    List<Formula> findUsedByProjectId(Long projectId);
 }
\ No newline at end of file
@@ -0,0 +1,123 @@
+package ua.nulp.elHelper.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Готові CSV BOM архівних версій проєктів.
+ * Розрахунки неактивного проєкту вже не змінюються, тож файл генерується один раз і далі віддається з пам'яті.
+ * ETag рахує BomService з метаданих (версія проєкту, одиниці компонентів з параметрів формул), тож запис придатний, лише поки ETag збігається.
+ * Одиниці в BOM беруться з параметрів формули, тому зміна формули скидає весь кеш.
+ * Обмеження — за сумарним розміром у байтах (LRU), файли більші за чверть ліміту не зберігаються.
+ */
+@Component
+public class BomArtifactCache {
+
+    private final long maxBytes;
+    private final Map<Key, Artifact> artifacts = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    // Росте з кожним скиданням кешу: файл, що генерувався під час скидання, вже не зберігаємо
+    private long generation;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public BomArtifactCache(MeterRegistry meterRegistry,
+                            @Value("${bom.artifact-cache.max-bytes:67108864}") long maxBytes) {
+        this.maxBytes = maxBytes;
+
+        this.hits = Counter.builder("bom.artifact.cache")
+                .tag("result", "hit")
+                .description("Archived BOMs served from cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("bom.artifact.cache")
+                .tag("result", "miss")
+                .description("Archived BOMs generated from the database")
+                .register(meterRegistry);
+        Gauge.builder("bom.artifact.cache.size", this, BomArtifactCache::bytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param content CSV як є (з BOM-маркером UTF-8)
+     * @param eTag    ETag, під яким файл згенеровано (без лапок)
+     */
+    public record Artifact(byte[] content, String eTag) {
+    }
+
+    private record Key(Long projectId, boolean aggregated) {
+    }
+
+    /**
+     * Готовий файл з таким самим ETag або null — тоді його генерують у відповідь і,
+     * якщо він не більший за {@link #maxArtifactBytes()}, повертають через {@link #put}.
+     */
+    public Artifact get(Long projectId, boolean aggregated, String eTag) {
+        Artifact cached;
+        synchronized (this) {
+            cached = artifacts.get(new Key(projectId, aggregated));
+        }
+        if (cached != null && cached.eTag().equals(eTag)) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        return null;
+    }
+
+    public long maxArtifactBytes() {
+        return maxBytes / 4;
+    }
+
+    // Знімається до обчислення ETag і передається в put
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * @param generation значення {@link #generation()} до обчислення ETag; якщо кеш відтоді скидали — файл не зберігається
+     */
+    public synchronized void put(Long projectId, boolean aggregated, Artifact artifact, long generation) {
+        if (generation != this.generation || artifact.content().length > maxArtifactBytes()) return;
+
+        Artifact previous = artifacts.put(new Key(projectId, aggregated), artifact);
+        if (previous != null) totalBytes -= previous.content().length;
+        totalBytes += artifact.content().length;
+
+        // Витісняємо найдавніше використані, поки не влізе в ліміт
+        Iterator<Artifact> eldest = artifacts.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            totalBytes -= eldest.next().content().length;
+            eldest.remove();
+        }
+    }
+
+    public synchronized void evict(Long projectId) {
+        artifacts.entrySet().removeIf(entry -> {
+            if (!entry.getKey().projectId().equals(projectId)) return false;
+            totalBytes -= entry.getValue().content().length;
+            return true;
+        });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public synchronized void onFormulaChanged(FormulaChangedEvent event) {
+        artifacts.clear();
+        totalBytes = 0;
+        generation++;
+    }
+
+    private synchronized long bytes() {
+        return totalBytes;
+    }
+}
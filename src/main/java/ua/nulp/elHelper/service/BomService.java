@@ -1,86 +1,383 @@
 package ua.nulp.elHelper.service;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ua.nulp.elHelper.entity.calculation.Calculation;
 import ua.nulp.elHelper.entity.calculation.Formula;
 import ua.nulp.elHelper.entity.calculation.Project;
+import ua.nulp.elHelper.repository.CalculationRepo;
+import ua.nulp.elHelper.repository.FormulaRepo;
 import ua.nulp.elHelper.repository.ProjectRepo;
 
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class BomService {
 
     private final ProjectRepo projectRepository;
+    private final CalculationRepo calculationRepository;
+    private final FormulaRepo formulaRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final BomArtifactCache artifactCache;
+    private final MeterRegistry meterRegistry;
 
     // BOM для коректного відображення кирилиці в Excel
     private static final byte[] BOM_UTF8 = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final int WRITE_BUFFER_SIZE = 16 * 1024;
+    // Змінювати разом з форматом CSV, щоб клієнти не тримали файли старого формату
+    private static final String FORMAT_VERSION = "1";
 
-    public byte[] generateCsvBom(Long projectId, String userEmail) {
+    /**
+     * CSV BOM для відповіді.
+     *
+     * @param body тіло відповіді
+     * @param eTag ETag незмінного файлу архівної версії або null, якщо проєкт активний і файл щоразу новий
+     */
+    public record BomFile(StreamingResponseBody body, String eTag) {
+    }
+
+    /**
+     * CSV BOM проєкту. Для активного проєкту пишеться прямо у відповідь. Для архівної версії ETag рахується
+     * з метаданих без генерації файлу (тож 304 не торкається розрахунків), а сам файл береться з кешу готових
+     * або так само пишеться у відповідь, паралельно збираючись для кешу, якщо не перевищить ліміт.
+     * Доступ до проєкту перевіряється одразу, поки відповідь ще не почалась і помилка може стати звичайним 4xx.
+     *
+     * @param aggregated false — рядок на кожен компонент кожного розрахунку;
+     *                   true — однакові деталі згруповано з кількістю та списком позначень (для закупівлі)
+     */
+    public BomFile csvBom(Long projectId, String userEmail, boolean aggregated) {
         Project project = projectRepository.findByIdAndUserEmail(projectId, userEmail)
                 .orElseThrow(() -> new RuntimeException("Project not found"));
 
-        StringBuilder csv = new StringBuilder();
+        if (project.isActive()) {
+            return new BomFile(out -> writeCsvBom(projectId, out, format(aggregated)), null);
+        }
+
+        long generation = artifactCache.generation();
+        String eTag = archivedETag(project, aggregated);
+
+        BomArtifactCache.Artifact cached = artifactCache.get(projectId, aggregated, eTag);
+        if (cached != null) {
+            return new BomFile(out -> out.write(cached.content()), eTag);
+        }
+
+        return new BomFile(out -> {
+            CapturingOutputStream capturing = new CapturingOutputStream(out, artifactCache.maxArtifactBytes());
+            writeCsvBom(projectId, capturing, format(aggregated));
+            byte[] content = capturing.captured();
+            if (content != null) {
+                artifactCache.put(projectId, aggregated, new BomArtifactCache.Artifact(content, eTag), generation);
+            }
+        }, eTag);
+    }
+
+    /**
+     * Сильний ETag архівної версії: SHA-256 від усього, що визначає вміст файлу, — id і номера версії проєкту,
+     * режиму, версії формату та одиниць компонентів, які CSV бере з параметрів формул.
+     * Самі розрахунки архівної версії не змінюються, тож їх читати не треба; скрипти формул у файл не потрапляють,
+     * тож їх правка ETag не змінює.
+     */
+    private String archivedETag(Project project, boolean aggregated) {
+        StringBuilder metadata = new StringBuilder()
+                .append(FORMAT_VERSION).append('|')
+                .append(project.getId()).append('|')
+                .append(project.getVersionNumber()).append('|')
+                .append(aggregated);
+        for (Formula formula : formulaRepository.findUsedByProjectId(project.getId())) {
+            metadata.append('|').append(formula.getId());
+            if (formula.getParameters() == null) continue;
+            for (Formula.FormulaParam param : formula.getParameters()) {
+                // У файл потрапляє лише базова одиниця компонентів (див. components)
+                if (!isComponent(param.getVar())) continue;
+                metadata.append(';').append(param.getVar()).append('=').append(baseUnit(param));
+            }
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(metadata.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private BomFormat format(boolean aggregated) {
+        return aggregated ? new AggregatedFormat() : new DetailedFormat();
+    }
+
+    /**
+     * Розрахунки читаються курсором у read-only транзакції і від'єднуються від persistence context
+     * одразу після обробки, тож у пам'яті одночасно лише буфер запису та одна порція курсора,
+     * незалежно від розміру проєкту (для зведеного BOM — ще таблиця унікальних деталей).
+     */
+    private void writeCsvBom(Long projectId, OutputStream out, BomFormat format) throws IOException {
+        // Час рахуємо від першого запиту до бази до останнього записаного байта
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        CountingOutputStream counting = new CountingOutputStream(out);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(counting, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        counting.write(BOM_UTF8);
 
         // Заголовки CSV
-        csv.append("Designator;Calculation Name;Value;Standard (E24);Unit;Description\n");
-
-        for (Calculation calc : project.getCalculations()) {
-            Map<String, Double> rawResults = calc.getResults();
-            Map<String, Double> stdResults = calc.getStandardizedResults();
-            List<Formula.FormulaParam> params = calc.getFormula().getParameters();
-
-            if (stdResults != null) {
-                // Сортуємо по ключу (R1, R2...)
-                stdResults.entrySet().stream()
-                        .sorted(Map.Entry.comparingByKey())
-                        .forEach(entry -> {
-                            String varName = entry.getKey();
-                            Double stdValue = entry.getValue();
-
-                            // Фільтруємо лише компоненти (R, C, L)
-                            if (isComponent(varName)) {
-                                Double rawValue = rawResults.getOrDefault(varName, 0.0);
-                                String baseUnit = findBaseUnit(params, varName);
-
-                                // Формуємо основний опис (напр. "4.7 kOhm")
-                                String mainDesc = formatEngineering(stdValue, baseUnit);
-
-                                // --- НОВА ЛОГІКА: Додаємо дод. параметри (Потужність, Напруга) ---
-                                String extraSpecs = getAdditionalSpecs(varName, rawResults);
-
-                                String fullDescription = mainDesc;
-                                if (!extraSpecs.isEmpty()) {
-                                    fullDescription += ", " + extraSpecs;
-                                }
-
-                                csv.append(varName).append(";")                               // Designator
-                                        .append(escapeCsv(calc.getName())).append(";")             // Calc Name
-                                        .append(formatDecimal(rawValue)).append(";")               // Value Raw
-                                        .append(formatDecimal(stdValue)).append(";")               // Value Std
-                                        .append(baseUnit).append(";")                              // Unit
-                                        .append(escapeCsv(fullDescription))                        // Description
-                                        .append("\n");
-                            }
-                        });
+        writer.write(format.header());
+
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+
+        long rows;
+        try {
+            Long written = transaction.execute(status -> {
+                try (Stream<Calculation> calculations = calculationRepository.streamByProjectId(projectId)) {
+                    long count = 0;
+                    for (Iterator<Calculation> it = calculations.iterator(); it.hasNext(); ) {
+                        Calculation calc = it.next();
+                        count += format.accept(calc, writer);
+                        entityManager.detach(calc);
+                    }
+                    return count;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            rows = (written != null ? written : 0) + format.finish(writer);
+        } catch (UncheckedIOException e) {
+            // Клієнт закрив з'єднання — віддаємо контейнеру як звичайну помилку запису
+            throw e.getCause();
+        }
+        writer.flush();
+
+        String mode = format.name();
+        sample.stop(Timer.builder("bom.generate")
+                .description("CSV BOM generation time")
+                .tag("mode", mode)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+        DistributionSummary.builder("bom.rows")
+                .description("Component rows per exported BOM")
+                .tag("mode", mode)
+                .register(meterRegistry)
+                .record(rows);
+        DistributionSummary.builder("bom.size")
+                .description("Exported BOM size")
+                .tag("mode", mode)
+                .baseUnit("bytes")
+                .register(meterRegistry)
+                .record(counting.count);
+    }
+
+    /**
+     * Формат CSV: отримує розрахунки по одному в порядку id, рядки може писати одразу або в кінці.
+     */
+    private interface BomFormat {
+
+        String name();
+
+        String header();
+
+        // Повертає кількість записаних рядків
+        long accept(Calculation calc, Writer writer) throws IOException;
+
+        long finish(Writer writer) throws IOException;
+    }
+
+    /**
+     * Рядок на кожен компонент кожного розрахунку — пишеться одразу, нічого не накопичується.
+     */
+    private final class DetailedFormat implements BomFormat {
+
+        private final StringBuilder line = new StringBuilder(256);
+
+        @Override
+        public String name() {
+            return "detailed";
+        }
+
+        @Override
+        public String header() {
+            return "Designator;Calculation Name;Value;Standard;Unit;Description\n";
+        }
+
+        @Override
+        public long accept(Calculation calc, Writer writer) throws IOException {
+            long rows = 0;
+            for (Component component : components(calc)) {
+                line.append(component.designator()).append(";")                     // Designator
+                        .append(escapeCsv(calc.getName())).append(";")              // Calc Name
+                        .append(formatDecimal(component.rawValue())).append(";")    // Value Raw
+                        .append(formatDecimal(component.stdValue())).append(";")    // Value Std
+                        .append(component.unit()).append(";")                       // Unit
+                        .append(escapeCsv(component.description()))                 // Description
+                        .append("\n");
+                rows++;
+            }
+            writer.append(line);
+            line.setLength(0);
+            return rows;
+        }
+
+        @Override
+        public long finish(Writer writer) {
+            return 0;
+        }
+    }
+
+    /**
+     * Зведений BOM: деталі з однаковим типом, стандартним номіналом, одиницею та дод. параметрами
+     * (потужність, напруга) складаються в один рядок за один прохід по хеш-таблиці.
+     * Позначення не унікальні між розрахунками (R1 є майже в кожному), тож пишуться разом з назвою розрахунку.
+     */
+    private final class AggregatedFormat implements BomFormat {
+
+        private final Map<Part, PartUsage> parts = new HashMap<>();
+
+        @Override
+        public String name() {
+            return "aggregated";
+        }
+
+        @Override
+        public String header() {
+            return "Quantity;Value;Unit;Description;Designators\n";
+        }
+
+        @Override
+        public long accept(Calculation calc, Writer writer) {
+            for (Component component : components(calc)) {
+                Part part = new Part(component.designator().charAt(0), component.stdValue(),
+                        component.unit(), component.specs());
+                parts.computeIfAbsent(part, p -> new PartUsage(component.description()))
+                        .add(component.designator(), calc.getName());
             }
+            return 0;
         }
 
-        byte[] csvBytes = csv.toString().getBytes(StandardCharsets.UTF_8);
-        byte[] result = new byte[BOM_UTF8.length + csvBytes.length];
-        System.arraycopy(BOM_UTF8, 0, result, 0, BOM_UTF8.length);
-        System.arraycopy(csvBytes, 0, result, BOM_UTF8.length, csvBytes.length);
+        @Override
+        public long finish(Writer writer) throws IOException {
+            List<Map.Entry<Part, PartUsage>> sorted = new ArrayList<>(parts.entrySet());
+            sorted.sort(Map.Entry.comparingByKey(Part.ORDER));
+
+            StringBuilder line = new StringBuilder(256);
+            for (Map.Entry<Part, PartUsage> entry : sorted) {
+                Part part = entry.getKey();
+                PartUsage usage = entry.getValue();
+                line.append(usage.quantity).append(";")                            // Quantity
+                        .append(formatDecimal(part.value())).append(";")             // Value Std
+                        .append(part.unit()).append(";")                             // Unit
+                        .append(escapeCsv(usage.description)).append(";")            // Description
+                        .append(escapeCsv(usage.designators.toString()))             // Designators
+                        .append("\n");
+                writer.append(line);
+                line.setLength(0);
+            }
+            return sorted.size();
+        }
+    }
+
+    /**
+     * Ключ групування зведеного BOM.
+     */
+    private record Part(char type, Double value, String unit, String specs) {
+
+        // R, C, L окремими блоками, всередині — за одиницею та зростанням номіналу
+        static final Comparator<Part> ORDER = Comparator.comparing(Part::type)
+                .thenComparing(Part::unit, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(Part::value, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(Part::specs);
+    }
+
+    private static final class PartUsage {
+
+        private final String description;
+        private final StringBuilder designators = new StringBuilder();
+        private int quantity;
+
+        PartUsage(String description) {
+            this.description = description;
+        }
+
+        void add(String designator, String calculationName) {
+            if (quantity++ > 0) designators.append(", ");
+            designators.append(designator);
+            if (calculationName != null) designators.append(" (").append(calculationName).append(")");
+        }
+    }
 
-        return result;
+    /**
+     * Компонент (R, C, L) з результатів розрахунку, вже з одиницею та описом для CSV.
+     */
+    private record Component(String designator, Double rawValue, Double stdValue,
+                             String unit, String specs, String description) {
+    }
+
+    /**
+     * Компоненти одного розрахунку, відсортовані за позначенням (R1, R2...).
+     */
+    private List<Component> components(Calculation calc) {
+        Map<String, Double> rawResults = calc.getResults();
+        Map<String, Double> stdResults = calc.getStandardizedResults();
+        List<Formula.FormulaParam> params = calc.getFormula().getParameters();
+
+        if (stdResults == null) return List.of();
+
+        List<Component> components = new ArrayList<>();
+        // Сортуємо по ключу (R1, R2...)
+        for (String varName : new TreeSet<>(stdResults.keySet())) {
+            // Фільтруємо лише компоненти (R, C, L)
+            if (!isComponent(varName)) continue;
+
+            Double stdValue = stdResults.get(varName);
+            Double rawValue = rawResults.getOrDefault(varName, 0.0);
+            String baseUnit = findBaseUnit(params, varName);
+
+            // Формуємо основний опис (напр. "4.7 kOhm")
+            String mainDesc = formatEngineering(stdValue, baseUnit);
+
+            // --- НОВА ЛОГІКА: Додаємо дод. параметри (Потужність, Напруга) ---
+            String extraSpecs = getAdditionalSpecs(varName, rawResults);
+
+            String fullDescription = mainDesc;
+            if (!extraSpecs.isEmpty()) {
+                fullDescription += ", " + extraSpecs;
+            }
+
+            components.add(new Component(varName, rawValue, stdValue, baseUnit, extraSpecs, fullDescription));
+        }
+        return components;
     }
 
     private boolean isComponent(String varName) {
-        return varName != null && varName.matches("^[RCL].*");
+        if (varName == null || varName.isEmpty()) return false;
+        char first = varName.charAt(0);
+        return first == 'R' || first == 'C' || first == 'L';
     }
 
     /**
@@ -136,17 +433,20 @@ public class BomService {
         return params.stream()
                 .filter(p -> p.getVar().equals(varName))
                 .findFirst()
-                .map(p -> {
-                    if (p.getUnits() == null || p.getUnits().isEmpty()) return "";
-                    return p.getUnits().stream()
-                            .filter(u -> Math.abs(u.getMult() - 1.0) < 0.0001)
-                            .findFirst()
-                            .map(Formula.UnitDefinition::getName)
-                            .orElse(p.getUnits().get(0).getName());
-                })
+                .map(this::baseUnit)
                 .orElse("");
     }
 
+    // Одиниця з множником 1, інакше перша з перелічених
+    private String baseUnit(Formula.FormulaParam param) {
+        if (param.getUnits() == null || param.getUnits().isEmpty()) return "";
+        return param.getUnits().stream()
+                .filter(u -> Math.abs(u.getMult() - 1.0) < 0.0001)
+                .findFirst()
+                .map(Formula.UnitDefinition::getName)
+                .orElse(param.getUnits().get(0).getName());
+    }
+
     private String formatDecimal(Double value) {
         if (value == null) return "";
         return String.format(Locale.US, "%.4f", value);
@@ -191,4 +491,66 @@ public class BomService {
 
         return formattedNum + " " + prefixes[prefixIndex] + unit;
     }
-}
\ No newline at end of file
+
+    /**
+     * Рахує записані байти для метрики bom.size, не тримаючи їх у пам'яті.
+     */
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /**
+     * Пропускає байти у відповідь і паралельно збирає копію для кешу архівних BOM.
+     * Щойно файл перевищує ліміт, копія відкидається — великі файли лише стрімляться.
+     */
+    private static final class CapturingOutputStream extends FilterOutputStream {
+
+        private final long limit;
+        private ByteArrayOutputStream copy = new ByteArrayOutputStream();
+
+        CapturingOutputStream(OutputStream out, long limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            if (copy != null && fits(1)) copy.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            if (copy != null && fits(len)) copy.write(b, off, len);
+        }
+
+        private boolean fits(int len) {
+            if (copy.size() + (long) len <= limit) return true;
+            copy = null;
+            return false;
+        }
+
+        // Повний вміст або null, якщо файл не вліз у ліміт
+        byte[] captured() {
+            return copy == null ? null : copy.toByteArray();
+        }
+    }
+}
@@ -1,24 +1,43 @@
 package ua.nulp.elHelper.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ua.nulp.elHelper.entity.Enums.RootPolicy;
 import ua.nulp.elHelper.entity.calculation.Calculation;
 import ua.nulp.elHelper.entity.calculation.Formula;
+import ua.nulp.elHelper.exception.FormulaCircuitOpenException;
+import ua.nulp.elHelper.exception.SolverTimeoutException;
 import ua.nulp.elHelper.repository.CalculationRepo;
 import ua.nulp.elHelper.repository.FormulaRepo;
 import ua.nulp.elHelper.repository.ProjectRepo;
+import ua.nulp.elHelper.service.dto.calculation.calculation.BatchCalculationRequest;
+import ua.nulp.elHelper.service.dto.calculation.calculation.BatchCalculationResponse;
 import ua.nulp.elHelper.service.dto.calculation.calculation.CalculationRequest;
 import ua.nulp.elHelper.service.dto.calculation.calculation.CalculationResponse;
+import ua.nulp.elHelper.service.solver.CalculationResultCache;
+import ua.nulp.elHelper.service.solver.ClosedFormSolver;
+import ua.nulp.elHelper.service.solver.CompiledFormula;
+import ua.nulp.elHelper.service.solver.CompiledScript;
+import ua.nulp.elHelper.service.solver.FormulaCircuitBreaker;
+import ua.nulp.elHelper.service.solver.FormulaCompiler;
+import ua.nulp.elHelper.service.solver.FormulaRevision;
+import ua.nulp.elHelper.service.solver.SolvePlan;
+import ua.nulp.elHelper.service.solver.SolvePlanner;
+import ua.nulp.elHelper.service.solver.SolverBulkhead;
+import ua.nulp.elHelper.service.solver.SolverMetrics;
 
-import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class CalculatorService {
@@ -28,7 +47,16 @@ public class CalculatorService {
     private final CalculationRepo calculationRepository;
 
     private final StandardizationService standardizationService;
-    private final SymbolicSolverService symbolicSolver;
+    private final ClosedFormSolver closedFormSolver;
+    private final FormulaCompiler formulaCompiler;
+    private final SolvePlanner solvePlanner;
+    private final FormulaCircuitBreaker circuitBreaker;
+    private final CalculationResultCache resultCache;
+    private final SolverBulkhead solverBulkhead;
+    private final SolverMetrics solverMetrics;
+
+    @Value("${solver.batch.max-items:1000}")
+    private int maxBatchItems;
 
 
     public Map<String, Object> calculateTest(CalculationRequest request) {
@@ -37,16 +65,63 @@ public class CalculatorService {
 
         Map<String, Double> normalizedInputs = normalizeInputs(formula, request.getInputs(), request.getInputUnits());
 
-        Map<String, Double> results = runAutoSolver(formula, normalizedInputs);
+        // Одразу повідомляємо, які змінні неможливо отримати з цих входів
+        SolvePlan plan = solvePlanner.plan(formula, normalizedInputs.keySet());
 
-        Map<String, Double> stdResults = standardizationService.standardizeResults(results);
+        var result = solve(formula, normalizedInputs);
 
         return Map.of(
-                "results", results,
-                "standardizedResults", stdResults
+                "results", result.results(),
+                "standardizedResults", result.standardizedResults(),
+                "unresolved", plan.unresolved(),
+                "overdetermined", plan.overdetermined()
         );
     }
 
+    /**
+     * Багато наборів входів для однієї формули: формула завантажується й готується один раз,
+     * набори рахуються паралельно. Помилка одного елемента не зриває весь пакет.
+     */
+    public BatchCalculationResponse calculateBatch(BatchCalculationRequest request) {
+        Formula formula = formulaRepository.findById(request.getFormulaId())
+                .orElseThrow(() -> new RuntimeException("Formula not found"));
+
+        List<BatchCalculationRequest.Item> items = request.getItems() == null ? List.of() : request.getItems();
+        if (items.size() > maxBatchItems) {
+            throw new RuntimeException("Batch is too large: " + items.size() + " items, max " + maxBatchItems);
+        }
+
+        // Готуємо формулу до паралельної частини, щоб потоки не компілювали її одночасно
+        formulaCompiler.compile(formula);
+
+        // Паралельність — на вільних потоках солвера, а не в спільному ForkJoinPool
+        BatchCalculationResponse.ItemResult[] results = new BatchCalculationResponse.ItemResult[items.size()];
+        solverBulkhead.forEachParallel(items.size(), i -> results[i] = calculateBatchItem(formula, i, items.get(i)));
+
+        return BatchCalculationResponse.builder()
+                .formulaId(formula.getId())
+                .items(List.of(results))
+                .build();
+    }
+
+    private BatchCalculationResponse.ItemResult calculateBatchItem(Formula formula, int index, BatchCalculationRequest.Item item) {
+        try {
+            Map<String, Double> normalizedInputs = normalizeInputs(formula, item.getInputs(), item.getInputUnits());
+            var result = solve(formula, normalizedInputs);
+
+            return BatchCalculationResponse.ItemResult.builder()
+                    .index(index)
+                    .results(result.results())
+                    .standardizedResults(result.standardizedResults())
+                    .build();
+        } catch (RuntimeException e) {
+            return BatchCalculationResponse.ItemResult.builder()
+                    .index(index)
+                    .error(e.getMessage() != null ? e.getMessage() : "Calculation failed")
+                    .build();
+        }
+    }
+
     public CalculationResponse getById(Long id) {
         var calc = calculationRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Calculation not found"));
@@ -67,8 +142,7 @@ public class CalculatorService {
                 .orElseThrow(() -> new RuntimeException("Formula not found"));
 
         Map<String, Double> normalizedInputs = normalizeInputs(formula, request.getInputs(), request.getInputUnits());
-        Map<String, Double> results = runAutoSolver(formula, normalizedInputs);
-        Map<String, Double> stdResults = standardizationService.standardizeResults(results);
+        var result = solve(formula, normalizedInputs, standardizationService.profileFor(project.getUser().getSettings()));
 
         String calcName = (request.getName() != null && !request.getName().isBlank())
                 ? request.getName()
@@ -80,13 +154,20 @@ public class CalculatorService {
                 .name(calcName)
                 .inputs(request.getInputs())
                 .inputUnits(request.getInputUnits())
-                .results(results)
-                .standardizedResults(stdResults)
+                .results(result.results())
+                .standardizedResults(result.standardizedResults())
+                .formulaRevision(FormulaRevision.of(formula).fingerprint())
                 .build();
 
         return mapToDto(calculationRepository.save(calculation));
     }
 
+    /**
+     * Оновлення розрахунку (автозбереження фронтенду). Входи, яких немає в запиті, лишаються як були.
+     * Якщо після нормалізації входи не змінилися (лише назва чи інший запис тих самих одиниць), солвер не викликається.
+     * Інакше перераховуються лише кроки, що залежать від змінених входів; решта результатів береться зі збережених —
+     * але тільки якщо їх пораховано поточною ревізією формули, інакше перерахунок повний.
+     */
     @Transactional
     public CalculationResponse updateCalculation(Long id, CalculationRequest request, String userEmail) {
         var calc = calculationRepository.findByIdAndProject_User_Email(id, userEmail)
@@ -96,23 +177,64 @@ public class CalculatorService {
             throw new RuntimeException("Cannot update archived project");
         }
 
-        calc.setInputs(request.getInputs());
-        calc.setInputUnits(request.getInputUnits());
         if (request.getName() != null && !request.getName().isBlank()) {
             calc.setName(request.getName());
         }
 
-        var formula = calc.getFormula();
-        Map<String, Double> normalizedInputs = normalizeInputs(formula, request.getInputs(), request.getInputUnits());
-        Map<String, Double> results = runAutoSolver(formula, normalizedInputs);
-        Map<String, Double> stdResults = standardizationService.standardizeResults(results);
+        // Одиниці без нових значень стосуються збережених значень
+        Map<String, Double> inputs = request.getInputs() != null ? request.getInputs() : calc.getInputs();
+        Map<String, String> inputUnits = request.getInputs() != null || request.getInputUnits() != null
+                ? request.getInputUnits()
+                : calc.getInputUnits();
 
-        calc.setResults(results);
-        calc.setStandardizedResults(stdResults);
+        var formula = calc.getFormula();
+        Map<String, Double> oldInputs = normalizeInputs(formula, calc.getInputs(), calc.getInputUnits());
+        Map<String, Double> normalizedInputs = normalizeInputs(formula, inputs, inputUnits);
+
+        calc.setInputs(inputs);
+        calc.setInputUnits(inputUnits);
+
+        if (!normalizedInputs.equals(oldInputs) || calc.getResults() == null) {
+            String revision = FormulaRevision.of(formula).fingerprint();
+            // Попередні результати — підказка для NEAREST_TO_PREVIOUS і, якщо ревізія та сама, джерело незачеплених значень
+            Set<String> changed = revision.equals(calc.getFormulaRevision())
+                    ? changedInputs(oldInputs, normalizedInputs)
+                    : null;
+            var result = solve(formula, normalizedInputs, calc.getResults(), changed,
+                    standardizationService.profileFor(calc.getProject().getUser().getSettings()));
+
+            calc.setResults(result.results());
+            calc.setStandardizedResults(result.standardizedResults());
+            calc.setFormulaRevision(revision);
+        }
 
         return mapToDto(calculationRepository.save(calc));
     }
 
+    /**
+     * Входи, значення яких змінилося. null, якщо змінився сам набір входів — тоді інший план і перерахунок повний.
+     */
+    private Set<String> changedInputs(Map<String, Double> before, Map<String, Double> after) {
+        if (!before.keySet().equals(after.keySet())) return null;
+
+        Set<String> changed = new HashSet<>();
+        after.forEach((name, value) -> {
+            if (!value.equals(before.get(name))) changed.add(name);
+        });
+        return changed;
+    }
+
+    /**
+     * Повний перерахунок збереженого розрахунку новою версією формули (фоновий перерахунок після її зміни).
+     * Попередні результати лише підказка для NEAREST_TO_PREVIOUS — кроки не беруться з них, бо змінилися самі скрипти.
+     */
+    public CalculationResultCache.Entry recalculate(Formula formula, Map<String, Double> inputs,
+                                                    Map<String, String> inputUnits, Map<String, Double> previous,
+                                                    StandardizationService.Profile standardization) {
+        Map<String, Double> normalizedInputs = normalizeInputs(formula, inputs, inputUnits);
+        return solve(formula, normalizedInputs, previous, null, standardization);
+    }
+
     public List<CalculationResponse> getProjectCalculations(Long projectId, String userEmail) {
         projectRepository.findByIdAndUserEmail(projectId, userEmail)
                 .orElseThrow(() -> new RuntimeException("Access denied"));
@@ -133,131 +255,194 @@ public class CalculatorService {
         calculationRepository.delete(calc);
     }
 
-private Map<String, Double> runAutoSolver(Formula formula, Map<String, Double> inputs) {
-    // Context тепер містить ключі БЕЗ решіток (наприклад "I", "U", "Resistor_Val")
-    Map<String, Double> context = new HashMap<>(inputs);
-
-    if (formula.getScripts() == null || formula.getScripts().isEmpty()) return context;
-
-    boolean progress;
-    int maxPasses = 10;
-
-    do {
-        progress = false;
-        for (Formula.FormulaScript script : formula.getScripts()) {
-
-            // Рівняння: "#U = #I * #R"
-            String rawEquation = script.getExpression();
-
-            // Якщо немає "=", додаємо цільову змінну з #
-            if (!rawEquation.contains("=")) {
-                rawEquation = "#" + script.getTarget().replace("#", "") + " = " + rawEquation;
-            }
+    /**
+     * Повний розрахунок для нормалізованих входів: солвер + стандартизація, через кеш результатів.
+     * Без користувача (пробні й пакетні розрахунки) — ряди номіналів із налаштувань сервера.
+     */
+    private CalculationResultCache.Entry solve(Formula formula, Map<String, Double> normalizedInputs) {
+        return solve(formula, normalizedInputs, standardizationService.defaultProfile());
+    }
 
-            // Отримуємо чисті імена: ["I", "U", "R"]
-            List<String> rawVars = extractVariables(rawEquation);
+    private CalculationResultCache.Entry solve(Formula formula, Map<String, Double> normalizedInputs,
+                                               StandardizationService.Profile standardization) {
+        return solve(formula, normalizedInputs, Map.of(), null, standardization);
+    }
 
-            String missingVarClean = null;
-            int missingCount = 0;
+    /**
+     * @param changed входи, що змінилися відносно previous; кроки, які від них не залежать, беруть значення з previous.
+     *                null — перерахунок усіх кроків
+     */
+    private CalculationResultCache.Entry solve(Formula formula, Map<String, Double> normalizedInputs,
+                                               Map<String, Double> previous, Set<String> changed,
+                                               StandardizationService.Profile standardization) {
+        Map<String, Double> known = previous != null ? previous : Map.of();
+        // Одна компіляція на розрахунок: її ревізія — ключ кешу, а скрипти — те, чим рахує солвер
+        CompiledFormula compiled = formulaCompiler.compile(formula);
+        Supplier<CalculationResultCache.Entry> calculation = () -> {
+            Map<String, Double> results = runAutoSolver(formula, compiled, normalizedInputs, known, changed);
+            return new CalculationResultCache.Entry(results, standardizationService.standardizeResults(results, standardization));
+        };
+
+        if (formula.getRootPolicy() == RootPolicy.NEAREST_TO_PREVIOUS && !known.isEmpty()) {
+            // Корінь залежить від попередніх значень, тож кеш за самими входами тут не годиться
+            return calculation.get();
+        }
+        if (changed != null) {
+            // Частину кроків взято зі збереженого розрахунку: готовий повний результат годиться,
+            // а власний у кеш не кладемо — у ньому значення, яких повний перерахунок міг би й не дати
+            CalculationResultCache.Entry cached = resultCache.find(compiled, normalizedInputs, standardization);
+            return cached != null ? cached : calculation.get();
+        }
+        return resultCache.get(compiled, normalizedInputs, standardization, calculation);
+    }
 
-            for (String v : rawVars) {
-                // Шукаємо в контексті по чистому ключу "I"
-                if (!context.containsKey(v)) {
-                    missingVarClean = v;
-                    missingCount++;
-                }
+    private Map<String, Double> runAutoSolver(Formula formula, CompiledFormula compiled, Map<String, Double> inputs,
+                                              Map<String, Double> previous, Set<String> changed) {
+        // Context містить ключі БЕЗ решіток (наприклад "I", "U", "Resistor_Val")
+        Map<String, Double> context = new HashMap<>(inputs);
+
+        if (formula.getScripts() == null || formula.getScripts().isEmpty()) return context;
+
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            // Формула, що раз у раз впирається в таймаут, відхиляється одразу
+            circuitBreaker.checkAllowed(formula.getId());
+
+            double[] values = compiled.newValues(context);
+            // Невідомі змінні отримують попередні значення лише як підказку для вибору кореня
+            if (formula.getRootPolicy() == RootPolicy.NEAREST_TO_PREVIOUS) {
+                previous.forEach((name, value) -> {
+                    if (!context.containsKey(name) && compiled.getSlots().containsKey(name) && value != null) {
+                        values[compiled.slotOf(name)] = value;
+                    }
+                });
             }
-
-            if (missingCount == 1) {
-                try {
-                    String safeEquation = rawEquation;
-                    Map<String, Double> safeInputs = new HashMap<>();
-
-                    // Генеруємо безпечне ім'я для Symja (vOutputPower)
-                    String safeTarget = "v" + missingVarClean.replace("_", "");
-
-                    // Сортуємо: довгі імена перші
-                    rawVars.sort((s1, s2) -> s2.length() - s1.length());
-
-                    for (String v : rawVars) {
-                        // У формулі шукаємо токен з решіткою: "#I"
-                        String tokenInFormula = "#" + v;
-
-                        // Для Symja робимо безпечне ім'я: "vI"
-                        String safeName = "v" + v.replace("_", "");
-
-                        // ЗАМІНА: #I -> vI
-                        safeEquation = safeEquation.replace(tokenInFormula, safeName);
-
-                        // ЗНАЧЕННЯ: Беремо з контексту по чистому ключу "I"
-                        Double val = context.get(v);
-
-                        if (val != null) {
-                            safeInputs.put(safeName, val);
+            Set<Integer> failed = new HashSet<>();
+            // Змінні, що залежать від змінених входів; null — перераховується все
+            Set<String> dirty = changed != null ? new HashSet<>(changed) : null;
+
+            // Зазвичай план виконується за один прохід. Якщо солвер не впорався з кроком,
+            // перебудовуємо план без цього скрипта — можливо, змінну дасть інше рівняння.
+            while (true) {
+                SolvePlan plan = solvePlanner.plan(compiled, context.keySet(), failed);
+                if (plan.isEmpty()) break;
+                solverMetrics.countPass(formula.getId());
+
+                boolean stepFailed = false;
+                for (SolvePlan.Step step : plan.steps()) {
+                    CompiledScript script = step.script();
+
+                    if (dirty != null) {
+                        Double kept = previous.get(step.target());
+                        if (isStored(step, previous) && !dependsOn(step, dirty)) {
+                            solverMetrics.countReused(formula.getId());
+                            values[compiled.slotOf(step.target())] = kept;
+                            context.put(step.target(), kept);
+                            continue;
                         }
+                        dirty.add(step.target());
                     }
 
-                    // Виклик солвера
-                    Double res = symbolicSolver.solve(safeEquation, safeInputs, safeTarget);
-
-                    if (res != null) {
-                        // ЗБЕРІГАННЯ: Зберігаємо результат під чистим ключем (наприклад "U")
-                        context.put(missingVarClean, res);
-                        progress = true;
+                    Double res = null;
+                    try {
+                        // Ізольований і скомпільований вираз кешується на рівні формули
+                        res = closedFormSolver.solve(compiled, step, values, true);
+                    } catch (SolverTimeoutException e) {
+                        circuitBreaker.recordTimeout(formula.getId());
+                        throw e;
+                    } catch (Exception e) {
+                        log.warn("AutoSolver failed on formula {}, script {} for {}: {}",
+                                formula.getId(), script.getIndex(), step.target(), e.getMessage());
                     }
 
-                } catch (Exception e) {
-                    System.err.println("AutoSolver failed: " + e.getMessage());
+                    if (res == null) {
+                        solverMetrics.countStepFailure(formula.getId());
+                        // Система, що не розв'язалася, виключається цілком
+                        if (step.isCoupled()) failed.addAll(step.system().scriptIndexes());
+                        else failed.add(script.getIndex());
+                        stepFailed = true;
+                        break;
+                    }
+                    // Зберігаємо результат під чистим ключем (наприклад "U")
+                    values[compiled.slotOf(step.target())] = res;
+                    context.put(step.target(), res);
                 }
+
+                if (!stepFailed) break;
+                // Після перепланування збережені значення вже не відповідають плану
+                dirty = null;
             }
-        }
-        maxPasses--;
-    } while (progress && maxPasses > 0);
 
-    return context;
-}
+            circuitBreaker.recordSuccess(formula.getId());
+            outcome = failed.isEmpty() ? "solved" : "partial";
+            return context;
+        } catch (SolverTimeoutException e) {
+            outcome = "timeout";
+            throw e;
+        } catch (FormulaCircuitOpenException e) {
+            outcome = "circuit_open";
+            throw e;
+        } finally {
+            solverMetrics.recordCalculation(formula.getId(), outcome, System.nanoTime() - start);
+        }
+    }
 
-    private List<String> extractVariables(String equation) {
-        List<String> vars = new ArrayList<>();
-        Pattern pattern = Pattern.compile("#([a-zA-Z0-9_]+)");
-        Matcher matcher = pattern.matcher(equation);
+    /**
+     * Чи є збережене значення для кроку; зв'язана система береться зі збережених лише цілком.
+     */
+    private boolean isStored(SolvePlan.Step step, Map<String, Double> previous) {
+        List<String> targets = step.isCoupled() ? step.system().getTargets() : List.of(step.target());
+        return targets.stream().allMatch(t -> previous.get(t) != null && Double.isFinite(previous.get(t)));
+    }
 
-        while (matcher.find()) {
-            vars.add(matcher.group(1));
+    /**
+     * Чи залежить крок від змінених змінних. Для зв'язаної системи — будь-яке рівняння системи,
+     * окрім її власних невідомих.
+     */
+    private boolean dependsOn(SolvePlan.Step step, Set<String> dirty) {
+        if (!step.isCoupled()) {
+            return step.script().getVariables().stream()
+                    .anyMatch(v -> !v.equals(step.target()) && dirty.contains(v));
         }
-        return vars;
+        List<String> targets = step.system().getTargets();
+        return step.system().getScripts().stream()
+                .flatMap(script -> script.getVariables().stream())
+                .anyMatch(v -> !targets.contains(v) && dirty.contains(v));
     }
 
-    private Map<String, Double> normalizeInputs(Formula formula, Map<String, Double> inputs, Map<String, String> inputUnits) {
+    public Map<String, Double> normalizeInputs(Formula formula, Map<String, Double> inputs, Map<String, String> inputUnits) {
         Map<String, Double> normalized = new HashMap<>();
         if (inputs == null) return normalized;
 
-        inputs.forEach((key, val) -> {
-            double multiplier = 1.0;
-
-            // Шукаємо параметр у формулі
-            // key = "Length" (чистий)
-            // p.getVar() = "#Length" (з решіткою)
-            // Тому ми чистимо p.getVar() перед порівнянням
-            var paramOpt = formula.getParameters().stream()
-                    .filter(p -> p.getVar().replace("#", "").equals(key))
-                    .findFirst();
-
-            if (paramOpt.isPresent() && inputUnits != null && inputUnits.containsKey(key)) {
-                String unitName = inputUnits.get(key);
-                if (paramOpt.get().getUnits() != null) {
-                    multiplier = paramOpt.get().getUnits().stream()
-                            .filter(u -> u.getName().equals(unitName))
-                            .findFirst()
-                            .map(Formula.UnitDefinition::getMult)
-                            .orElse(1.0);
-                }
-            }
-            normalized.put(key, val * multiplier);
-        });
+        inputs.forEach((key, val) -> normalized.put(key, val * unitMultiplier(formula, key, inputUnits)));
         return normalized;
     }
 
+    /**
+     * Множник одиниці, вибраної для змінної (напр. kOhm -> 1000), або 1.0.
+     */
+    public double unitMultiplier(Formula formula, String key, Map<String, String> inputUnits) {
+        if (formula.getParameters() == null || inputUnits == null || !inputUnits.containsKey(key)) return 1.0;
+
+        // Шукаємо параметр у формулі
+        // key = "Length" (чистий)
+        // p.getVar() = "#Length" (з решіткою)
+        // Тому ми чистимо p.getVar() перед порівнянням
+        var paramOpt = formula.getParameters().stream()
+                .filter(p -> p.getVar().replace("#", "").equals(key))
+                .findFirst();
+
+        if (paramOpt.isEmpty() || paramOpt.get().getUnits() == null) return 1.0;
+
+        String unitName = inputUnits.get(key);
+        return paramOpt.get().getUnits().stream()
+                .filter(u -> u.getName().equals(unitName))
+                .findFirst()
+                .map(Formula.UnitDefinition::getMult)
+                .orElse(1.0);
+    }
+
     private CalculationResponse mapToDto(Calculation calc) {
         return CalculationResponse.builder()
                 .id(calc.getId())
@@ -0,0 +1,426 @@
+package ua.nulp.elHelper.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ua.nulp.elHelper.entity.Enums.ESeries;
+import ua.nulp.elHelper.service.dto.calculation.calculation.CombinationRequest;
+import ua.nulp.elHelper.service.dto.calculation.calculation.CombinationResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Підбір комбінацій з двох-трьох стандартних номіналів (послідовно / паралельно),
+ * коли найближчий номінал ряду відхиляється від потрібного значення на кілька відсотків.
+ * Ряди масштабно-інваріантні, тож ціль зводиться до декади [1, 10), а таблиці пошуку будуються
+ * один раз на ряд: номінали від 1e-2 до 1e3 і всі їхні пари (сума та паралельне з'єднання), відсортовані.
+ * Друга частина пари шукається бінарним пошуком, третя частина — зустріччю посередині:
+ * для кожної першої частини потрібна пара береться діапазоном з таблиці пар.
+ * Пошук іде в "адитивних" операціях (значення додаються / додаються обернені);
+ * для R і L це послідовне й паралельне з'єднання, для C — навпаки.
+ * Рівні за відхиленням кандидати впорядковуються за розкидом номіналів (менший — краще).
+ * Трійки, де одна частина майже не впливає на результат, а також трійки, не точніші за найкращу пару,
+ * не показуються — їх можна зібрати з меншої кількості деталей.
+ */
+@Service
+@RequiredArgsConstructor
+public class CombinationService {
+
+    private static final double MIN_PART = 1e-2;
+    private static final double MAX_PART = 1e3;
+    private static final double MAX_ERROR_PERCENT = 10;
+    // Частина, що змінює результат менше ніж на 1%, — це підстроювання, а не повноцінна деталь комбінації
+    private static final double MIN_CONTRIBUTION = 0.01;
+    // Відхилення порівнюються з точністю 1e-9, інакше похибка округлення заважає впорядкувати рівні за розкидом
+    private static final double ERROR_RESOLUTION = 1e9;
+
+    private final StandardizationService standardizationService;
+
+    private final Map<ESeries, Tables> tables = new EnumMap<>(ESeries.class);
+
+    @Value("${standardization.combinations.max-results:10}")
+    private int maxResults;
+
+    public CombinationResponse find(CombinationRequest request) {
+        Double target = request.getValue();
+        if (target == null || !(target > 0) || Double.isInfinite(target)) {
+            throw new RuntimeException("Value must be a positive number");
+        }
+        String designator = request.getDesignator() != null && !request.getDesignator().isBlank()
+                ? request.getDesignator() : "R";
+        char type = designator.charAt(0);
+        if (type != 'R' && type != 'C' && type != 'L') {
+            throw new RuntimeException("Designator must start with R, C or L");
+        }
+        ESeries series = request.getSeries() != null ? request.getSeries() : ESeries.E24;
+        double maxError = request.getMaxError() != null ? request.getMaxError() : 1.0;
+        if (!(maxError > 0) || maxError > MAX_ERROR_PERCENT) {
+            throw new RuntimeException("Max error must be between 0 and " + MAX_ERROR_PERCENT + " percent");
+        }
+        int maxParts = request.getMaxParts() != null ? request.getMaxParts() : 3;
+        if (maxParts < 2 || maxParts > 3) {
+            throw new RuntimeException("Max parts must be 2 or 3");
+        }
+
+        // Ціль у декаді [1, 10): комбінації для 4.63 кОм — ті самі, що для 4.63 Ом, помножені на 1000
+        int exponent = (int) Math.floor(Math.log10(target));
+        // log10 на межі декади може схибити на одиницю
+        if (target / Math.pow(10, exponent) >= 10) exponent++;
+        if (target / Math.pow(10, exponent) < 1) exponent--;
+        double scale = Math.pow(10, exponent);
+
+        Search search = new Search(tables(series), target / scale, maxError / 100, maxResults);
+        search.twoParts();
+        if (maxParts == 3) search.threeParts();
+
+        // Трійка має сенс, лише якщо точніша за найкращу пару
+        long bestTwo = search.two.stream().mapToLong(Candidate::error).min().orElse(Long.MAX_VALUE);
+
+        boolean additiveSeries = type != 'C';
+        List<CombinationResponse.Combination> combinations = new ArrayList<>();
+        search.two.stream()
+                .sorted(Candidate.ORDER)
+                .map(c -> toCombination(c, search.tables.values, scale, target, series, designator, additiveSeries))
+                .forEach(combinations::add);
+        search.three.stream()
+                .filter(c -> c.error() < bestTwo)
+                .sorted(Candidate.ORDER)
+                .map(c -> toCombination(c, search.tables.values, scale, target, series, designator, additiveSeries))
+                .forEach(combinations::add);
+
+        double nearest = standardizationService.toNearest(target, series);
+        return CombinationResponse.builder()
+                .target(target)
+                .series(series)
+                .designator(designator)
+                .nearest(CombinationResponse.Combination.builder()
+                        .connection("SINGLE")
+                        .notation(designator)
+                        .parts(List.of(part(designator, nearest)))
+                        .value(nearest)
+                        .deviation(nearest / target - 1)
+                        .build())
+                .combinations(combinations)
+                .build();
+    }
+
+    private synchronized Tables tables(ESeries series) {
+        return tables.computeIfAbsent(series, s -> new Tables(standardizationService.values(s, MIN_PART, MAX_PART)));
+    }
+
+    private CombinationResponse.Combination toCombination(Candidate c, double[] values, double scale, double target,
+                                                          ESeries series, String designator, boolean additiveSeries) {
+        // Повертаємо номінали до реальної декади; toNearest прибирає похибку множення (4.53 * 1000)
+        double a = standardizationService.toNearest(values[c.a] * scale, series);
+        double b = standardizationService.toNearest(values[c.b] * scale, series);
+        String first = designator + ".1";
+        String second = designator + ".2";
+        String third = designator + ".3";
+
+        List<CombinationResponse.Part> parts = new ArrayList<>(List.of(part(first, a), part(second, b)));
+        double value;
+        String connection;
+        String notation;
+
+        if (c.c < 0) {
+            value = c.topology == Topology.ADD2 ? a + b : a * b / (a + b);
+            boolean series2 = (c.topology == Topology.ADD2) == additiveSeries;
+            connection = series2 ? "SERIES" : "PARALLEL";
+            notation = first + (series2 ? " + " : " || ") + second;
+        } else {
+            double cc = standardizationService.toNearest(values[c.c] * scale, series);
+            parts.add(part(third, cc));
+
+            boolean outerAdd = c.topology == Topology.ADD3 || c.topology == Topology.ADD_REC;
+            boolean innerAdd = c.topology == Topology.ADD3 || c.topology == Topology.REC_ADD;
+            double pair = innerAdd ? b + cc : b * cc / (b + cc);
+            value = outerAdd ? a + pair : a * pair / (a + pair);
+
+            String outer = outerAdd == additiveSeries ? " + " : " || ";
+            String inner = innerAdd == additiveSeries ? " + " : " || ";
+            if (outerAdd == innerAdd) {
+                connection = outer.equals(" + ") ? "SERIES" : "PARALLEL";
+                notation = first + outer + second + inner + third;
+            } else {
+                connection = outer.equals(" + ") ? "SERIES_PARALLEL" : "PARALLEL_SERIES";
+                notation = first + outer + "(" + second + inner + third + ")";
+            }
+        }
+
+        return CombinationResponse.Combination.builder()
+                .connection(connection)
+                .notation(notation)
+                .parts(parts)
+                .value(value)
+                .deviation(value / target - 1)
+                .build();
+    }
+
+    private static CombinationResponse.Part part(String designator, double value) {
+        return CombinationResponse.Part.builder().designator(designator).value(value).build();
+    }
+
+    /**
+     * Комбінації в адитивних операціях: ADD — значення додаються, REC — додаються обернені.
+     */
+    private enum Topology {
+        ADD2, REC2,
+        ADD3,       // a + (b + c)
+        REC3,       // a || (b || c)
+        ADD_REC,    // a + (b || c)
+        REC_ADD     // a || (b + c)
+    }
+
+    /**
+     * Індекси частин у таблиці номіналів; c = -1 для двох частин.
+     *
+     * @param error  |відхилення|, квантоване з точністю {@link #ERROR_RESOLUTION}
+     * @param spread відношення найбільшої частини до найменшої
+     */
+    private record Candidate(Topology topology, int a, int b, int c, double deviation, long error, double spread) {
+
+        // Від кращого до гіршого: точніший, а серед однаково точних — з ближчими номіналами
+        static final Comparator<Candidate> ORDER = Comparator.comparingLong(Candidate::error)
+                .thenComparingDouble(Candidate::spread);
+
+        static Candidate of(Topology topology, double[] values, int a, int b, int c, double deviation) {
+            double min = Math.min(values[a], values[b]);
+            double max = Math.max(values[a], values[b]);
+            if (c >= 0) {
+                min = Math.min(min, values[c]);
+                max = Math.max(max, values[c]);
+            }
+            return new Candidate(topology, a, b, c, deviation,
+                    Math.round(Math.abs(deviation) * ERROR_RESOLUTION), max / min);
+        }
+    }
+
+    /**
+     * Найменша частка, на яку результат трійки реагує на зміну однієї з частин (відносна чутливість d ln(total) / d ln(part)).
+     * Для послідовного з'єднання це part / total, для паралельного — total / part, для змішаних — добуток по ланцюжку.
+     */
+    private static double minContribution(Topology topology, double a, double b, double c) {
+        return switch (topology) {
+            case ADD3 -> Math.min(a, Math.min(b, c)) / (a + b + c);
+            case REC3 -> rec(a, rec(b, c)) / Math.max(a, Math.max(b, c));
+            case ADD_REC -> {
+                double pair = rec(b, c);
+                double total = a + pair;
+                yield Math.min(a / total, pair / total * pair / Math.max(b, c));
+            }
+            case REC_ADD -> {
+                double pair = b + c;
+                double total = rec(a, pair);
+                yield Math.min(total / a, total / pair * Math.min(b, c) / pair);
+            }
+            default -> 1;
+        };
+    }
+
+    /**
+     * Один пошук: ціль у декаді [1, 10), допуск і найкращі кандидати окремо для двох і трьох частин.
+     */
+    private static final class Search {
+
+        private final Tables tables;
+        private final double target;
+        private final double low;
+        private final double high;
+        private final int limit;
+
+        // Найгірший кандидат на вершині, щоб відкидати його, коли знайдено кращий
+        private final PriorityQueue<Candidate> two = worstFirst();
+        private final PriorityQueue<Candidate> three = worstFirst();
+
+        Search(Tables tables, double target, double error, int limit) {
+            this.tables = tables;
+            this.target = target;
+            this.low = target * (1 - error);
+            this.high = target * (1 + error);
+            this.limit = limit;
+        }
+
+        void twoParts() {
+            double[] values = tables.values;
+            for (int i = 0; i < values.length; i++) {
+                double a = values[i];
+                int from = Math.max(i, lowerBound(values, addLow(a)));
+                for (int j = from; j < values.length && values[j] <= addHigh(a); j++) {
+                    offer(two, Candidate.of(Topology.ADD2, values, i, j, -1, (a + values[j]) / target - 1));
+                }
+                from = Math.max(i, lowerBound(values, recLow(a)));
+                for (int j = from; j < values.length && values[j] <= recHigh(a); j++) {
+                    offer(two, Candidate.of(Topology.REC2, values, i, j, -1, rec(a, values[j]) / target - 1));
+                }
+            }
+        }
+
+        void threeParts() {
+            double[] values = tables.values;
+            Pairs sums = tables.sums;
+            Pairs reciprocals = tables.reciprocals;
+
+            for (int i = 0; i < values.length; i++) {
+                double a = values[i];
+
+                for (int k = lowerBound(sums.values, addLow(a)); k < sums.values.length && sums.values[k] <= addHigh(a); k++) {
+                    // a — найменша з трьох частин, інакше та сама трійка знайдеться тричі
+                    if (sums.first[k] < i) continue;
+                    offerThree(Topology.ADD3, i, sums.first[k], sums.second[k], (a + sums.values[k]) / target - 1);
+                }
+                for (int k = lowerBound(reciprocals.values, addLow(a)); k < reciprocals.values.length && reciprocals.values[k] <= addHigh(a); k++) {
+                    offerThree(Topology.ADD_REC, i, reciprocals.first[k], reciprocals.second[k],
+                            (a + reciprocals.values[k]) / target - 1);
+                }
+                for (int k = lowerBound(reciprocals.values, recLow(a)); k < reciprocals.values.length && reciprocals.values[k] <= recHigh(a); k++) {
+                    if (reciprocals.first[k] < i) continue;
+                    offerThree(Topology.REC3, i, reciprocals.first[k], reciprocals.second[k],
+                            rec(a, reciprocals.values[k]) / target - 1);
+                }
+                for (int k = lowerBound(sums.values, recLow(a)); k < sums.values.length && sums.values[k] <= recHigh(a); k++) {
+                    offerThree(Topology.REC_ADD, i, sums.first[k], sums.second[k],
+                            rec(a, sums.values[k]) / target - 1);
+                }
+            }
+        }
+
+        // Межі другого доданка b, за яких a + b потрапляє в [low, high]; для a > high діапазон порожній
+        private double addLow(double a) {
+            return Math.max(low - a, 0);
+        }
+
+        private double addHigh(double a) {
+            return high - a;
+        }
+
+        // Те саме для a || b: b = 1 / (1/total - 1/a), існує лише для total < a
+        private double recLow(double a) {
+            return low < a ? 1 / (1 / low - 1 / a) : Double.POSITIVE_INFINITY;
+        }
+
+        private double recHigh(double a) {
+            return high < a ? 1 / (1 / high - 1 / a) : Double.POSITIVE_INFINITY;
+        }
+
+        private void offerThree(Topology topology, int a, int b, int c, double deviation) {
+            double[] values = tables.values;
+            if (minContribution(topology, values[a], values[b], values[c]) < MIN_CONTRIBUTION) return;
+            offer(three, Candidate.of(topology, values, a, b, c, deviation));
+        }
+
+        private void offer(PriorityQueue<Candidate> group, Candidate candidate) {
+            if (group.size() < limit) {
+                group.add(candidate);
+            } else if (Candidate.ORDER.compare(candidate, group.peek()) < 0) {
+                group.poll();
+                group.add(candidate);
+            }
+        }
+
+        private static PriorityQueue<Candidate> worstFirst() {
+            return new PriorityQueue<>(Candidate.ORDER.reversed());
+        }
+    }
+
+    private static double rec(double a, double b) {
+        return a * b / (a + b);
+    }
+
+    private static int lowerBound(double[] sorted, double value) {
+        int i = Arrays.binarySearch(sorted, value);
+        if (i < 0) return -i - 1;
+        while (i > 0 && sorted[i - 1] == value) i--;
+        return i;
+    }
+
+    /**
+     * Номінали ряду в нормалізованому діапазоні та всі їхні пари.
+     */
+    private static final class Tables {
+
+        private final double[] values;
+        private final Pairs sums;
+        private final Pairs reciprocals;
+
+        Tables(double[] values) {
+            this.values = values;
+            this.sums = new Pairs(values, false);
+            this.reciprocals = new Pairs(values, true);
+        }
+    }
+
+    /**
+     * Усі пари (i <= j) номіналів, відсортовані за значенням з'єднання.
+     * Для фіксованого i значення зростає з j, тож маємо n уже відсортованих рядків,
+     * які зливаються через купу рядків — без боксингу і без сортування всіх n²/2 пар.
+     */
+    private static final class Pairs {
+
+        private final double[] parts;
+        private final boolean reciprocal;
+
+        private final double[] values;
+        private final int[] first;
+        private final int[] second;
+
+        // Наступний j у кожному рядку i
+        private final int[] next;
+
+        Pairs(double[] parts, boolean reciprocal) {
+            this.parts = parts;
+            this.reciprocal = reciprocal;
+            int n = parts.length;
+            int count = n * (n + 1) / 2;
+            this.values = new double[count];
+            this.first = new int[count];
+            this.second = new int[count];
+            this.next = new int[n];
+
+            int[] heap = new int[n];
+            for (int i = 0; i < n; i++) {
+                next[i] = i;
+                heap[i] = i;
+            }
+            int size = n;
+            for (int k = size / 2 - 1; k >= 0; k--) siftDown(heap, size, k);
+
+            for (int p = 0; p < count; p++) {
+                int row = heap[0];
+                values[p] = head(row);
+                first[p] = row;
+                second[p] = next[row]++;
+
+                if (next[row] == n) heap[0] = heap[--size];
+                siftDown(heap, size, 0);
+            }
+        }
+
+        private double head(int row) {
+            double a = parts[row];
+            double b = parts[next[row]];
+            return reciprocal ? rec(a, b) : a + b;
+        }
+
+        private void siftDown(int[] heap, int size, int k) {
+            while (true) {
+                int smallest = k;
+                int left = 2 * k + 1;
+                int right = left + 1;
+                if (left < size && head(heap[left]) < head(heap[smallest])) smallest = left;
+                if (right < size && head(heap[right]) < head(heap[smallest])) smallest = right;
+                if (smallest == k) return;
+
+                int swap = heap[k];
+                heap[k] = heap[smallest];
+                heap[smallest] = swap;
+                k = smallest;
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package ua.nulp.elHelper.service;
+
+/**
+ * Формулу змінено так, що збережені результати її розрахунків могли застаріти
+ * (скрипти, параметри одиниць або політика кореня).
+ */
+public record FormulaChangedEvent(Long formulaId) {
+}
@@ -1,6 +1,7 @@
 package ua.nulp.elHelper.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,8 +12,10 @@ import ua.nulp.elHelper.repository.FormulaRepo;
 import ua.nulp.elHelper.repository.UserRepo;
 import ua.nulp.elHelper.service.dto.calculation.formula.CreateFormula;
 import ua.nulp.elHelper.service.dto.calculation.formula.FormulaResponse;
+import ua.nulp.elHelper.service.solver.FormulaCompiler;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -22,6 +25,8 @@ public class FormulaService {
     private final CategoryRepo categoryRepository;
     private final UserRepo userRepository;
     private final FileService fileService;
+    private final FormulaCompiler formulaCompiler;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<FormulaResponse> getAll() {
@@ -57,9 +62,16 @@ public class FormulaService {
                 .parameters(dto.getParameters())
                 .category(category)
                 .schemeUrl(dto.getSchemeUrl())
+                .rootPolicy(dto.getRootPolicy())
                 .build();
 
-        return mapToDTO(formulaRepository.save(formula));
+        // Помилки в скриптах мають з'являтися тут, а не під час першого розрахунку
+        formulaCompiler.validate(formula);
+
+        var saved = formulaRepository.save(formula);
+        formulaCompiler.compile(saved);
+
+        return mapToDTO(saved);
     }
 
     @Transactional
@@ -71,6 +83,11 @@ public class FormulaService {
             throw new AccessDeniedException("This is not your formula");
         }
 
+        // Сеттери замінюють списки цілком, тож старі посилання лишаються незмінними для порівняння
+        var oldScripts = formula.getScripts();
+        var oldParameters = formula.getParameters();
+        var oldRootPolicy = formula.getRootPolicy();
+
         if (dto.getNames() != null) {
             formula.setNames(dto.getNames());
         }
@@ -86,13 +103,32 @@ public class FormulaService {
         if (dto.getSchemeUrl() != null) {
             formula.setSchemeUrl(dto.getSchemeUrl());
         }
+        if (dto.getRootPolicy() != null) {
+            formula.setRootPolicy(dto.getRootPolicy());
+        }
         if (dto.getCategoryId() != null) {
             var category = categoryRepository.findById(dto.getCategoryId())
                     .orElseThrow(() -> new RuntimeException("Category not found"));
             formula.setCategory(category);
         }
 
-        return mapToDTO(formulaRepository.save(formula));
+        // Строго перевіряються лише нові скрипти: стара формула поза граматикою
+        // лишається редагованою (назви, одиниці) і далі рахується через Symja
+        if (dto.getScripts() != null) {
+            formulaCompiler.validate(formula);
+        }
+
+        var saved = formulaRepository.save(formula);
+
+        // Назви, описи чи схема на збережені результати не впливають.
+        // Кеші формули скидаються слухачами події вже після коміту
+        if (!Objects.equals(oldScripts, saved.getScripts())
+                || !Objects.equals(oldParameters, saved.getParameters())
+                || oldRootPolicy != saved.getRootPolicy()) {
+            eventPublisher.publishEvent(new FormulaChangedEvent(saved.getId()));
+        }
+
+        return mapToDTO(saved);
     }
 
     private FormulaResponse mapToDTO(Formula f) {
@@ -107,6 +143,7 @@ public class FormulaService {
                 .categoryId(f.getCategory().getId())
                 .categoryName(f.getCategory().getNames())
                 .schemeUrl(f.getSchemeUrl())
+                .rootPolicy(f.getRootPolicy())
                 .build();
     }
 
@@ -0,0 +1,285 @@
+package ua.nulp.elHelper.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ua.nulp.elHelper.entity.Enums.ESeries;
+import ua.nulp.elHelper.entity.calculation.Formula;
+import ua.nulp.elHelper.repository.FormulaRepo;
+import ua.nulp.elHelper.service.dto.calculation.calculation.GoalSeekRequest;
+import ua.nulp.elHelper.service.dto.calculation.calculation.GoalSeekResponse;
+import ua.nulp.elHelper.service.solver.FormulaPreparer;
+import ua.nulp.elHelper.service.solver.GoalSeeker;
+import ua.nulp.elHelper.service.solver.PreparedFormula;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Зворотна задача (goal seek): задані бажані значення результатів, а частина входів
+ * підбирається в межах, напр. R, за якого частота зрізу дорівнює 1 кГц.
+ * Формула готується один раз без Symja, далі кожна ітерація оптимізатора — лише обчислення плану над double[].
+ * Змінні з додатними межами шукаються в логарифмічній шкалі — номінали компонентів розкидані на декади.
+ * Ціль — сума квадратів відносних відхилень від бажаних значень.
+ */
+@Service
+@RequiredArgsConstructor
+public class GoalSeekService {
+
+    private static final double CONVERGED_DEVIATION = 1e-6;
+
+    private final FormulaRepo formulaRepository;
+    private final CalculatorService calculatorService;
+    private final FormulaPreparer formulaPreparer;
+    private final StandardizationService standardizationService;
+
+    @Value("${solver.goal-seek.max-evaluations:5000}")
+    private int maxEvaluations;
+
+    @Value("${solver.goal-seek.max-variables:8}")
+    private int maxVariables;
+
+    public GoalSeekResponse seek(GoalSeekRequest request) {
+        Formula formula = formulaRepository.findById(request.getFormulaId())
+                .orElseThrow(() -> new RuntimeException("Formula not found"));
+
+        Map<String, Double> goals = request.getGoals() != null ? request.getGoals() : Map.of();
+        Map<String, GoalSeekRequest.Range> ranges = request.getVariables() != null ? request.getVariables() : Map.of();
+        if (goals.isEmpty()) {
+            throw new RuntimeException("At least one goal is required");
+        }
+        if (ranges.isEmpty() || ranges.size() > maxVariables) {
+            throw new RuntimeException("Goal seek needs between 1 and " + maxVariables + " variables");
+        }
+
+        Map<String, Double> baseInputs = calculatorService.normalizeInputs(formula, request.getInputs(), request.getInputUnits());
+        goals.forEach((name, value) -> {
+            if (value == null || !Double.isFinite(value)) {
+                throw new RuntimeException("Goal " + name + " must be a finite number");
+            }
+            if (baseInputs.containsKey(name) || ranges.containsKey(name)) {
+                throw new RuntimeException("Goal " + name + " must be a result, not an input");
+            }
+        });
+
+        Set<String> known = new HashSet<>(baseInputs.keySet());
+        ranges.keySet().forEach(name -> {
+            if (baseInputs.containsKey(name)) {
+                throw new RuntimeException("Variable " + name + " is both a fixed input and a goal seek variable");
+            }
+            known.add(name);
+        });
+
+        PreparedFormula prepared = formulaPreparer.prepareNumeric(formula, known);
+        List<String> computed = prepared.getTargets();
+        goals.keySet().forEach(name -> {
+            if (!computed.contains(name)) {
+                throw new RuntimeException("Goal " + name + " cannot be computed from the given inputs");
+            }
+        });
+
+        double[] base = prepared.newValues();
+        baseInputs.forEach((name, value) -> {
+            int slot = prepared.slotOf(name);
+            if (slot >= 0) base[slot] = value;
+        });
+
+        List<String> names = ranges.keySet().stream().sorted().toList();
+        Variable[] variables = names.stream()
+                .map(name -> variable(formula, name, ranges.get(name), prepared, request.getInputUnits()))
+                .toArray(Variable[]::new);
+        Goal[] targets = goals.entrySet().stream()
+                .map(e -> new Goal(e.getKey(), prepared.slotOf(e.getKey()), e.getValue()))
+                .toArray(Goal[]::new);
+
+        // Оптимізатор викликає ціль послідовно, тож один робочий масив на весь пошук
+        double[] values = new double[base.length];
+        GoalSeeker.Result result = GoalSeeker.minimize(point -> {
+            System.arraycopy(base, 0, values, 0, base.length);
+            for (int j = 0; j < variables.length; j++) {
+                values[variables[j].slot] = variables[j].fromUnit(point[j]);
+            }
+            return prepared.evaluate(values) ? objective(targets, values) : Double.NaN;
+        }, start(variables), maxEvaluations);
+
+        double[] found = new double[variables.length];
+        for (int j = 0; j < variables.length; j++) {
+            found[j] = variables[j].fromUnit(result.point()[j]);
+        }
+        GoalSeekResponse.Solution solution = solution(prepared, base, variables, targets, found);
+
+        int evaluations = result.evaluations();
+        GoalSeekResponse.Solution standardized = null;
+        if (request.getSnapTo() != null) {
+            Snapped snapped = snap(prepared, base, variables, targets, found, request.getSnapTo());
+            standardized = snapped.solution;
+            evaluations += snapped.evaluations;
+        }
+
+        boolean converged = solution.getDeviations().size() == targets.length
+                && solution.getDeviations().values().stream().allMatch(d -> Math.abs(d) <= CONVERGED_DEVIATION);
+
+        return GoalSeekResponse.builder()
+                .formulaId(formula.getId())
+                .converged(converged)
+                .evaluations(evaluations)
+                .solution(solution)
+                .standardized(standardized)
+                .build();
+    }
+
+    private Variable variable(Formula formula, String name, GoalSeekRequest.Range range,
+                              PreparedFormula prepared, Map<String, String> inputUnits) {
+        int slot = prepared.slotOf(name);
+        if (slot < 0) {
+            throw new RuntimeException("Variable " + name + " is not part of this formula");
+        }
+        if (range == null || range.getMin() == null || range.getMax() == null
+                || !Double.isFinite(range.getMin()) || !Double.isFinite(range.getMax())
+                || range.getMin() >= range.getMax()) {
+            throw new RuntimeException("Variable " + name + " needs finite bounds with min < max");
+        }
+
+        double multiplier = calculatorService.unitMultiplier(formula, name, inputUnits);
+        double min = range.getMin() * multiplier;
+        double max = range.getMax() * multiplier;
+        Double initial = range.getInitial() != null ? range.getInitial() * multiplier : null;
+        if (initial != null && (initial < Math.min(min, max) || initial > Math.max(min, max))) {
+            throw new RuntimeException("Initial value of " + name + " is outside its bounds");
+        }
+        return new Variable(name, slot, Math.min(min, max), Math.max(min, max), initial);
+    }
+
+    private double[] start(Variable[] variables) {
+        double[] start = new double[variables.length];
+        for (int j = 0; j < variables.length; j++) {
+            start[j] = variables[j].initial != null ? variables[j].toUnit(variables[j].initial) : 0.5;
+        }
+        return start;
+    }
+
+    /**
+     * Кожна змінна береться з ряду знизу або зверху від знайденого значення; перебираються всі
+     * комбінації (не більше 2^maxVariables) і лишається та, що найближча до цілей.
+     * Значення ряду за межами діапазону беруться, лише якщо всередині немає жодного.
+     */
+    private Snapped snap(PreparedFormula prepared, double[] base, Variable[] variables, Goal[] targets,
+                         double[] found, ESeries series) {
+        double[][] candidates = new double[variables.length][];
+        for (int j = 0; j < variables.length; j++) {
+            Variable variable = variables[j];
+            double[] neighbours = standardizationService.neighbours(found[j], series);
+            double[] inside = Arrays.stream(neighbours)
+                    .filter(v -> v >= variable.min && v <= variable.max)
+                    .distinct()
+                    .toArray();
+            candidates[j] = inside.length > 0 ? inside : Arrays.stream(neighbours).distinct().toArray();
+        }
+
+        double[] values = new double[base.length];
+        double[] choice = new double[variables.length];
+        double[] best = null;
+        double bestError = Double.POSITIVE_INFINITY;
+        int evaluations = 0;
+
+        int[] index = new int[variables.length];
+        while (true) {
+            System.arraycopy(base, 0, values, 0, base.length);
+            for (int j = 0; j < variables.length; j++) {
+                choice[j] = candidates[j][index[j]];
+                values[variables[j].slot] = choice[j];
+            }
+            evaluations++;
+            if (prepared.evaluate(values)) {
+                double error = objective(targets, values);
+                if (error < bestError || best == null) {
+                    best = choice.clone();
+                    bestError = error;
+                }
+            }
+
+            // Наступна комбінація, як лічильник зі змінною основою
+            int j = 0;
+            while (j < index.length && ++index[j] == candidates[j].length) {
+                index[j++] = 0;
+            }
+            if (j == index.length) break;
+        }
+
+        if (best == null) {
+            // Жодна комбінація з ряду не має розв'язку — показуємо найближчі значення без результатів
+            best = new double[variables.length];
+            for (int j = 0; j < variables.length; j++) {
+                best[j] = standardizationService.toNearest(found[j], series);
+            }
+        }
+        return new Snapped(solution(prepared, base, variables, targets, best), evaluations);
+    }
+
+    private GoalSeekResponse.Solution solution(PreparedFormula prepared, double[] base,
+                                               Variable[] variables, Goal[] targets, double[] chosen) {
+        double[] values = base.clone();
+        Map<String, Double> picked = new TreeMap<>();
+        for (int j = 0; j < variables.length; j++) {
+            values[variables[j].slot] = chosen[j];
+            picked.put(variables[j].name, chosen[j]);
+        }
+        prepared.evaluate(values);
+
+        Map<String, Double> deviations = new TreeMap<>();
+        for (Goal goal : targets) {
+            double value = values[goal.slot];
+            if (!Double.isNaN(value)) deviations.put(goal.name, goal.deviation(value));
+        }
+
+        return GoalSeekResponse.Solution.builder()
+                .variables(picked)
+                .results(new TreeMap<>(prepared.toMap(values)))
+                .deviations(deviations)
+                .build();
+    }
+
+    private static double objective(Goal[] targets, double[] values) {
+        double sum = 0;
+        for (Goal goal : targets) {
+            double deviation = goal.deviation(values[goal.slot]);
+            sum += deviation * deviation;
+        }
+        return sum;
+    }
+
+    /**
+     * Змінна, що підбирається. Оптимізатор бачить її як u ∈ [0, 1]:
+     * для додатних меж — у логарифмічній шкалі, інакше — в лінійній.
+     */
+    private record Variable(String name, int slot, double min, double max, Double initial) {
+
+        boolean logarithmic() {
+            return min > 0;
+        }
+
+        double fromUnit(double u) {
+            if (logarithmic()) return min * Math.pow(max / min, u);
+            return min + (max - min) * u;
+        }
+
+        double toUnit(double x) {
+            if (logarithmic()) return Math.log(x / min) / Math.log(max / min);
+            return (x - min) / (max - min);
+        }
+    }
+
+    private record Goal(String name, int slot, double value) {
+
+        double deviation(double actual) {
+            return value != 0 ? (actual - value) / Math.abs(value) : actual;
+        }
+    }
+
+    private record Snapped(GoalSeekResponse.Solution solution, int evaluations) {
+    }
+}
@@ -21,6 +21,7 @@ public class ProjectService {
 
     private final ProjectRepo projectRepository;
     private final UserRepo userRepository;
+    private final BomArtifactCache bomArtifactCache;
 
     public ProjectResponse create(String userEmail, ProjectRequest request) {
         var user = userRepository.findByEmail(userEmail)
@@ -65,6 +66,7 @@ public class ProjectService {
                 .orElseThrow(() -> new RuntimeException("Project not found or access denied"));
 
         projectRepository.delete(project);
+        bomArtifactCache.evict(id);
     }
 
     public List<ProjectResponse> getMyActiveProjects(String userEmail) {
@@ -111,6 +113,7 @@ public class ProjectService {
                 if (oldCalc.getInputs() != null) newCalc.setInputs(new java.util.HashMap<>(oldCalc.getInputs()));
                 if (oldCalc.getInputUnits() != null) newCalc.setInputUnits(new java.util.HashMap<>(oldCalc.getInputUnits())); // <--- Додано
                 if (oldCalc.getResults() != null) newCalc.setResults(new java.util.HashMap<>(oldCalc.getResults()));     // <--- Виправлено на results
+                newCalc.setFormulaRevision(oldCalc.getFormulaRevision()); // Результати пораховано тією ж ревізією
 
                 newCalc.setCreatedAt(Instant.now()); // Дата створення розрахунку в новій версії
                 newCalc.setProject(newVersion);
@@ -0,0 +1,228 @@
+package ua.nulp.elHelper.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import tools.jackson.databind.json.JsonMapper;
+import ua.nulp.elHelper.entity.calculation.Calculation;
+import ua.nulp.elHelper.entity.calculation.Formula;
+import ua.nulp.elHelper.repository.CalculationRepo;
+import ua.nulp.elHelper.repository.FormulaRepo;
+import ua.nulp.elHelper.service.dto.calculation.formula.ReevaluationStatus;
+import ua.nulp.elHelper.service.solver.CalculationResultCache;
+import ua.nulp.elHelper.service.solver.FormulaRevision;
+import ua.nulp.elHelper.service.solver.SolverBulkhead;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Фоновий перерахунок збережених розрахунків після зміни формули.
+ * Розрахунки активних проєктів читаються сторінками за id, рахуються паралельно на фонових потоках солвера
+ * з одним спільним скомпільованим екземпляром формули, а результати пишуться пакетними UPDATE через JDBC.
+ * UPDATE спрацьовує лише тоді, коли входи розрахунку не змінилися після читання —
+ * свіже збереження користувача не перезаписується результатом зі старих входів.
+ * Для кожної формули зберігається стан останнього запуску; новий запуск спершу зупиняє попередній.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReevaluationService {
+
+    private static final String UPDATE_RESULTS = """
+            UPDATE calculations SET results = ?::jsonb, standardized_results = ?::jsonb, formula_revision = ?
+            WHERE id = ? AND inputs IS NOT DISTINCT FROM ?::jsonb AND input_units IS NOT DISTINCT FROM ?::jsonb""";
+
+    private final CalculationRepo calculationRepository;
+    private final FormulaRepo formulaRepository;
+    private final CalculatorService calculatorService;
+    private final StandardizationService standardizationService;
+    private final SolverBulkhead solverBulkhead;
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonMapper jsonMapper;
+
+    private final Map<Long, Job> jobs = new ConcurrentHashMap<>();
+
+    @Value("${solver.reevaluation.page-size:500}")
+    private int pageSize;
+
+    /**
+     * Стартує лише після коміту зміни формули, інакше читали б ще стару версію.
+     */
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onFormulaChanged(FormulaChangedEvent event) {
+        run(event.formulaId());
+    }
+
+    public ReevaluationStatus getStatus(Long formulaId, String userEmail) {
+        checkAuthor(formulaId, userEmail);
+        Job job = jobs.get(formulaId);
+        if (job == null) {
+            throw new RuntimeException("Formula has not been re-evaluated yet");
+        }
+        return job.toStatus();
+    }
+
+    public ReevaluationStatus cancel(Long formulaId, String userEmail) {
+        checkAuthor(formulaId, userEmail);
+        Job job = jobs.get(formulaId);
+        if (job == null) {
+            throw new RuntimeException("Formula has not been re-evaluated yet");
+        }
+        job.cancelled.set(true);
+        return job.toStatus();
+    }
+
+    private void run(Long formulaId) {
+        Job job = new Job(formulaId);
+        Job previous = jobs.put(formulaId, job);
+        if (previous != null) {
+            // Старий запуск мав би писати результати попередньої версії формули
+            previous.cancelled.set(true);
+            previous.awaitFinished();
+        }
+
+        String outcome = "FAILED";
+        try {
+            Formula formula = formulaRepository.findById(formulaId)
+                    .orElseThrow(() -> new RuntimeException("Formula not found"));
+            String revision = FormulaRevision.of(formula).fingerprint();
+            job.total = calculationRepository.countByFormulaIdAndProjectActiveTrue(formulaId);
+
+            long afterId = 0;
+            while (!job.cancelled.get()) {
+                List<Calculation> page = calculationRepository.findActiveByFormulaAfter(
+                        formulaId, afterId, PageRequest.of(0, pageSize));
+                if (page.isEmpty()) break;
+
+                processPage(job, formula, revision, page);
+                afterId = page.get(page.size() - 1).getId();
+            }
+
+            outcome = job.cancelled.get() ? "CANCELLED" : "COMPLETED";
+            log.info("Re-evaluation of formula {} {}: {} of {} calculations updated, {} failed",
+                    formulaId, outcome.toLowerCase(), job.updated.get(), job.total, job.failed.get());
+        } catch (RuntimeException e) {
+            log.warn("Re-evaluation of formula {} failed: {}", formulaId, e.getMessage());
+        } finally {
+            // Навіть після Error: наступний запуск чекає на цей і інакше завис би назавжди
+            job.finish(outcome);
+        }
+    }
+
+    private void processPage(Job job, Formula formula, String revision, List<Calculation> page) {
+        CalculationResultCache.Entry[] results = new CalculationResultCache.Entry[page.size()];
+
+        // Усі елементи рахуються з тим самим екземпляром Formula, тож скомпільована формула і плани спільні
+        solverBulkhead.forEachParallelInBackground(page.size(), i -> {
+            if (job.cancelled.get()) return;
+            Calculation calc = page.get(i);
+            try {
+                var standardization = standardizationService.profileFor(calc.getProject().getUser().getSettings());
+                results[i] = calculatorService.recalculate(formula, calc.getInputs(), calc.getInputUnits(),
+                        calc.getResults(), standardization);
+            } catch (RuntimeException e) {
+                log.debug("Re-evaluation of calculation {} failed: {}", calc.getId(), e.getMessage());
+                job.failed.incrementAndGet();
+            }
+            job.processed.incrementAndGet();
+        });
+        if (job.cancelled.get()) return;
+
+        List<Object[]> batch = new ArrayList<>(page.size());
+        for (int i = 0; i < page.size(); i++) {
+            if (results[i] == null) continue;
+            Calculation calc = page.get(i);
+            batch.add(new Object[]{
+                    json(results[i].results()),
+                    json(results[i].standardizedResults()),
+                    revision,
+                    calc.getId(),
+                    json(calc.getInputs()),
+                    json(calc.getInputUnits())
+            });
+        }
+        if (batch.isEmpty()) return;
+
+        int[] counts = jdbcTemplate.batchUpdate(UPDATE_RESULTS, batch);
+        for (int count : counts) {
+            if (count > 0) job.updated.incrementAndGet();
+        }
+    }
+
+    private String json(Map<String, ?> value) {
+        return value != null ? jsonMapper.writeValueAsString(value) : null;
+    }
+
+    private void checkAuthor(Long formulaId, String userEmail) {
+        Formula formula = formulaRepository.findById(formulaId)
+                .orElseThrow(() -> new RuntimeException("Formula not found"));
+        if (!Objects.equals(formula.getAuthor().getEmail(), userEmail)) {
+            throw new AccessDeniedException("This is not your formula");
+        }
+    }
+
+    /**
+     * Стан одного запуску. Лічильники оновлюються з потоків солвера, тому атомарні.
+     */
+    private static class Job {
+
+        private final Long formulaId;
+        private final Instant startedAt = Instant.now();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong updated = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        private volatile long total;
+        private volatile String status = "RUNNING";
+        private volatile Instant finishedAt;
+
+        Job(Long formulaId) {
+            this.formulaId = formulaId;
+        }
+
+        void finish(String status) {
+            this.status = status;
+            this.finishedAt = Instant.now();
+            finished.countDown();
+        }
+
+        void awaitFinished() {
+            try {
+                finished.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        ReevaluationStatus toStatus() {
+            return ReevaluationStatus.builder()
+                    .formulaId(formulaId)
+                    .status(status)
+                    .total(total)
+                    .processed(processed.get())
+                    .updated(updated.get())
+                    .failed(failed.get())
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ua.nulp.elHelper.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import ua.nulp.elHelper.entity.calculation.Formula;
+import ua.nulp.elHelper.exception.FormulaParseException;
+import ua.nulp.elHelper.repository.CalculationRepo;
+import ua.nulp.elHelper.repository.FormulaRepo;
+import ua.nulp.elHelper.service.solver.ClosedFormSolver;
+import ua.nulp.elHelper.service.solver.CompiledFormula;
+import ua.nulp.elHelper.service.solver.CompiledScript;
+import ua.nulp.elHelper.service.solver.EvaluatorPool;
+import ua.nulp.elHelper.service.solver.FormulaCompiler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Прогрів солвера після старту: евалуатори Symja завантажують правила,
+ * а найуживаніші формули розбираються й ізолюються для кожної змінної наперед.
+ * Працює у фоні, тож застосунок стає готовим одразу, а перші запити після деплою
+ * здебільшого потрапляють у вже підготовлені формули.
+ * Заодно всі формули перевіряються строгою граматикою: ті, що збережені до її появи й не проходять,
+ * рахуються лише через Symja, і список таких формул потрапляє в лог для міграції.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SolverWarmUpService {
+
+    private final EvaluatorPool evaluatorPool;
+    private final FormulaCompiler formulaCompiler;
+    private final ClosedFormSolver closedFormSolver;
+    private final FormulaRepo formulaRepository;
+    private final CalculationRepo calculationRepository;
+
+    @Value("${solver.warm-up.enabled:true}")
+    private boolean enabled;
+
+    @Value("${solver.warm-up.formulas:20}")
+    private int formulaLimit;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) return;
+
+        long start = System.currentTimeMillis();
+        int evaluators = evaluatorPool.warmUp();
+        long evaluatorsMs = System.currentTimeMillis() - start;
+
+        int formulas = 0;
+        if (formulaLimit > 0) {
+            List<Long> ids = calculationRepository.findMostUsedFormulaIds(PageRequest.of(0, formulaLimit));
+            for (Formula formula : formulaRepository.findAllById(ids)) {
+                if (precompile(formula)) formulas++;
+            }
+        }
+
+        log.info("Solver warm-up finished in {} ms: {} evaluators in {} ms, {} formulas precompiled",
+                System.currentTimeMillis() - start, evaluators, evaluatorsMs, formulas);
+
+        auditGrammar();
+    }
+
+    private void auditGrammar() {
+        List<String> failures = new ArrayList<>();
+        for (Formula formula : formulaRepository.findAll()) {
+            try {
+                formulaCompiler.validate(formula);
+            } catch (FormulaParseException e) {
+                failures.add(formula.getId() + " (" + e.getMessage() + ")");
+            }
+        }
+        if (!failures.isEmpty()) {
+            log.warn("{} formulas do not pass the formula grammar and are solved by Symja only: {}",
+                    failures.size(), String.join("; ", failures));
+        }
+    }
+
+    /**
+     * Розбір і ізоляція кожної змінної кожного скрипту — те, що інакше зробив би перший розрахунок.
+     */
+    private boolean precompile(Formula formula) {
+        try {
+            CompiledFormula compiled = formulaCompiler.compile(formula);
+            for (CompiledScript script : compiled.getScripts()) {
+                for (String variable : script.getVariables()) {
+                    closedFormSolver.isNumeric(compiled, script, variable);
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Warm-up skipped formula {}: {}", formula.getId(), e.getMessage());
+            return false;
+        }
+    }
+}
@@ -1,54 +1,141 @@
 package ua.nulp.elHelper.service;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import ua.nulp.elHelper.entity.Enums.ESeries;
+import ua.nulp.elHelper.entity.jsonb.SimpleSettings;
 
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.TreeMap;
 
+/**
+ * Підбір стандартних номіналів з рядів E6–E192.
+ * Кожен ряд один раз розгортається у відсортовану таблицю на всі декади від 1e-30 до 1e30,
+ * тож номінал шукається бінарним пошуком, без log10/pow на кожне значення.
+ * Ряд обирається за типом компонента (перша літера змінної: R, C, L): за замовчуванням —
+ * з налаштувань сервера, а користувач може перевизначити його у своїх налаштуваннях.
+ */
 @Service
 public class StandardizationService {
 
-    private static final double[] E24 = {
-            1.0, 1.1, 1.2, 1.3, 1.5, 1.6, 1.8, 2.0, 2.2, 2.4, 2.7, 3.0,
-            3.3, 3.6, 3.9, 4.3, 4.7, 5.1, 5.6, 6.2, 6.8, 7.5, 8.2, 9.1, 10
+    private static final int MIN_DECADE = -30;
+    private static final int MAX_DECADE = 30;
+
+    private static final int[] E6 = {10, 15, 22, 33, 47, 68};
+    private static final int[] E12 = {10, 12, 15, 18, 22, 27, 33, 39, 47, 56, 68, 82};
+    private static final int[] E24 = {
+            10, 11, 12, 13, 15, 16, 18, 20, 22, 24, 27, 30,
+            33, 36, 39, 43, 47, 51, 56, 62, 68, 75, 82, 91
     };
 
-    public Double toNearestE24(Double value) {
-        if (value == null || value <= 0) return value;
+    private static final Map<ESeries, double[]> TABLES = new EnumMap<>(ESeries.class);
 
-        double exponent = Math.floor(Math.log10(value));
-        double multiplier = Math.pow(10, exponent);
+    static {
+        TABLES.put(ESeries.E6, table(E6, 2));
+        TABLES.put(ESeries.E12, table(E12, 2));
+        TABLES.put(ESeries.E24, table(E24, 2));
+        TABLES.put(ESeries.E48, table(precise(48), 3));
+        TABLES.put(ESeries.E96, table(precise(96), 3));
+        TABLES.put(ESeries.E192, table(precise(192), 3));
+    }
 
-        double normalized = value / multiplier;
+    private final Profile defaultProfile;
 
-        double nearest = findNearestInSeries(normalized);
+    public StandardizationService(@Value("${standardization.series.resistors:E24}") ESeries resistors,
+                                  @Value("${standardization.series.capacitors:E24}") ESeries capacitors,
+                                  @Value("${standardization.series.inductors:E24}") ESeries inductors) {
+        this.defaultProfile = new Profile(resistors, capacitors, inductors);
+    }
 
-        return nearest * multiplier;
+    /**
+     * Ряди для кожного типу компонента. Входить у ключ кешу результатів,
+     * бо від нього залежать стандартизовані значення.
+     */
+    public record Profile(ESeries resistors, ESeries capacitors, ESeries inductors) {
+
+        /**
+         * Ряд для змінної або null, якщо змінна — не номінал компонента.
+         */
+        public ESeries seriesFor(String variable) {
+            if (variable == null || variable.isEmpty()) return null;
+            return switch (variable.charAt(0)) {
+                case 'R' -> resistors;
+                case 'C' -> capacitors;
+                case 'L' -> inductors;
+                default -> null;
+            };
+        }
     }
 
-    private double findNearestInSeries(double target) {
-        double minDiff = Double.MAX_VALUE;
-        double nearest = E24[0];
+    public Profile defaultProfile() {
+        return defaultProfile;
+    }
 
-        for (double val : E24) {
-            double diff = Math.abs(target - val);
-            if (diff < minDiff) {
-                minDiff = diff;
-                nearest = val;
-            }
-        }
+    /**
+     * Налаштування сервера з перевизначеннями користувача.
+     */
+    public Profile profileFor(SimpleSettings settings) {
+        Map<String, ESeries> overrides = settings != null ? settings.getStandardSeries() : null;
+        if (overrides == null || overrides.isEmpty()) return defaultProfile;
+
+        return new Profile(
+                overrides.getOrDefault("R", defaultProfile.resistors()),
+                overrides.getOrDefault("C", defaultProfile.capacitors()),
+                overrides.getOrDefault("L", defaultProfile.inductors()));
+    }
+
+    public Double toNearestE24(Double value) {
+        return value != null ? toNearest(value, ESeries.E24) : null;
+    }
 
-        return nearest;
+    /**
+     * Найближчий номінал ряду. Недодатні значення та значення поза таблицею повертаються як є.
+     */
+    public double toNearest(double value, ESeries series) {
+        return nearest(TABLES.get(series), value);
+    }
+
+    /**
+     * Найближчі номінали ряду знизу й зверху (однакові, якщо value вже з ряду).
+     * Для недодатних значень і значень поза таблицею — саме value двічі.
+     */
+    public double[] neighbours(double value, ESeries series) {
+        double[] table = TABLES.get(series);
+        int i = Arrays.binarySearch(table, value);
+        if (i >= 0) return new double[]{table[i], table[i]};
+
+        int upper = -i - 1;
+        if (upper == 0 || upper == table.length) return new double[]{value, value};
+        return new double[]{table[upper - 1], table[upper]};
+    }
+
+    /**
+     * Усі номінали ряду в діапазоні [from, to] за зростанням.
+     */
+    public double[] values(ESeries series, double from, double to) {
+        double[] table = TABLES.get(series);
+        int start = Arrays.binarySearch(table, from);
+        int end = Arrays.binarySearch(table, to);
+        start = start >= 0 ? start : -start - 1;
+        end = end >= 0 ? end + 1 : -end - 1;
+        return Arrays.copyOfRange(table, start, Math.max(start, end));
     }
 
     public Map<String, Double> standardizeResults(Map<String, Double> results) {
+        return standardizeResults(results, defaultProfile);
+    }
+
+    public Map<String, Double> standardizeResults(Map<String, Double> results, Profile profile) {
         Map<String, Double> standardized = new TreeMap<>();
 
         if (results == null) return standardized;
 
         results.forEach((key, val) -> {
-            if (key.matches("^[RCL].*")) {
-                standardized.put(key, toNearestE24(val));
+            ESeries series = profile.seriesFor(key);
+            if (series != null && val != null) {
+                standardized.put(key, toNearest(val, series));
             } else {
                 standardized.put(key, val);
             }
@@ -56,4 +143,47 @@ public class StandardizationService {
 
         return standardized;
     }
-}
\ No newline at end of file
+
+    private static double nearest(double[] table, double value) {
+        int i = Arrays.binarySearch(table, value);
+        if (i >= 0) return table[i];
+
+        // NaN і від'ємні значення теж потрапляють за межі таблиці
+        int upper = -i - 1;
+        if (upper == 0 || upper == table.length) return value;
+
+        double lower = table[upper - 1];
+        double higher = table[upper];
+        return value - lower <= higher - value ? lower : higher;
+    }
+
+    /**
+     * E48/E96/E192: три значущі цифри 10^(i/n), з історичним винятком 9.20 замість 9.19 в E192.
+     */
+    private static int[] precise(int n) {
+        int[] mantissas = new int[n];
+        for (int i = 0; i < n; i++) {
+            mantissas[i] = (int) Math.round(100 * Math.pow(10, (double) i / n));
+        }
+        if (n == 192) mantissas[185] = 920;
+        return mantissas;
+    }
+
+    /**
+     * Усі декади ряду за зростанням плюс перший номінал наступної декади за верхньою межею.
+     * Значення будуються з десяткового запису ("47e-7"), тож збігаються з літералами на кшталт 4.7e-6.
+     */
+    private static double[] table(int[] mantissas, int digits) {
+        int decades = MAX_DECADE - MIN_DECADE + 1;
+        double[] table = new double[decades * mantissas.length + 1];
+
+        int k = 0;
+        for (int decade = MIN_DECADE; decade <= MAX_DECADE; decade++) {
+            for (int mantissa : mantissas) {
+                table[k++] = Double.parseDouble(mantissa + "e" + (decade - digits + 1));
+            }
+        }
+        table[k] = Double.parseDouble(mantissas[0] + "e" + (MAX_DECADE + 1 - digits + 1));
+        return table;
+    }
+}
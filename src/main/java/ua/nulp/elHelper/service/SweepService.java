@@ -0,0 +1,208 @@
+package ua.nulp.elHelper.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.json.JsonMapper;
+import ua.nulp.elHelper.entity.calculation.Formula;
+import ua.nulp.elHelper.exception.SolverTimeoutException;
+import ua.nulp.elHelper.repository.FormulaRepo;
+import ua.nulp.elHelper.service.dto.calculation.calculation.SweepRequest;
+import ua.nulp.elHelper.service.solver.FormulaCircuitBreaker;
+import ua.nulp.elHelper.service.solver.FormulaPreparer;
+import ua.nulp.elHelper.service.solver.PreparedFormula;
+import ua.nulp.elHelper.service.solver.SolverBulkhead;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Параметричний прохід (sweep) по одній або двох вхідних змінних формули.
+ * Формула готується один раз, далі кожна точка — це лише обчислення плану над double[].
+ * Рядки результату відправляються як NDJSON порціями по мірі обчислення,
+ * тож уся серія ніколи не збирається в пам'яті.
+ */
+@Service
+@RequiredArgsConstructor
+public class SweepService {
+
+    private static final int FLUSH_EVERY = 256;
+
+    private final FormulaRepo formulaRepository;
+    private final CalculatorService calculatorService;
+    private final FormulaPreparer formulaPreparer;
+    private final FormulaCircuitBreaker circuitBreaker;
+    private final JsonMapper jsonMapper;
+    private final SolverBulkhead solverBulkhead;
+
+    @Value("${solver.sweep.max-points:100000}")
+    private int maxPoints;
+
+    // Лише для цього потоку: великий прохід може тривати довше за стандартний async-таймаут
+    @Value("${solver.sweep.timeout-ms:300000}")
+    private long timeoutMs;
+
+    /**
+     * Перевіряє запит і готує формулу одразу (помилки — звичайні 400),
+     * а сам прохід виконується в черзі солвера, поки відповідь уже віддається.
+     */
+    public ResponseBodyEmitter sweep(SweepRequest request) {
+        Formula formula = formulaRepository.findById(request.getFormulaId())
+                .orElseThrow(() -> new RuntimeException("Formula not found"));
+
+        List<SweepRequest.Axis> axes = request.getAxes();
+        if (axes == null || axes.isEmpty() || axes.size() > 2) {
+            throw new RuntimeException("Sweep needs one or two axes");
+        }
+
+        long points = 1;
+        for (SweepRequest.Axis axis : axes) {
+            validateAxis(axis);
+            points *= axis.getSteps();
+        }
+        if (points > maxPoints) {
+            throw new RuntimeException("Sweep is too large: " + points + " points, max " + maxPoints);
+        }
+
+        circuitBreaker.checkAllowed(formula.getId());
+
+        Map<String, Double> baseInputs = calculatorService.normalizeInputs(formula, request.getInputs(), request.getInputUnits());
+        Set<String> known = new HashSet<>(baseInputs.keySet());
+        axes.forEach(axis -> known.add(axis.getVariable()));
+
+        PreparedFormula prepared = formulaPreparer.prepare(formula, known);
+
+        double[] base = prepared.newValues();
+        baseInputs.forEach((name, value) -> {
+            int slot = prepared.slotOf(name);
+            if (slot >= 0) base[slot] = value;
+        });
+
+        Axis[] resolved = axes.stream()
+                .map(axis -> new Axis(axis, prepared.slotOf(axis.getVariable()),
+                        calculatorService.unitMultiplier(formula, axis.getVariable(), request.getInputUnits())))
+                .toArray(Axis[]::new);
+
+        // Сам прохід іде в черзі солвера; якщо вона заповнена, відмова (429) прийде ще до відповіді
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeoutMs);
+        solverBulkhead.submit(() -> {
+            write(formula.getId(), prepared, base, resolved, emitter);
+            return null;
+        }).whenComplete((ignored, error) -> {
+            if (error != null) emitter.completeWithError(error);
+            else emitter.complete();
+        });
+        return emitter;
+    }
+
+    private void write(Long formulaId, PreparedFormula prepared, double[] base, Axis[] axes, ResponseBodyEmitter emitter) {
+        ObjectWriter writer = jsonMapper.writer();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Axis outer = axes[0];
+        Axis inner = axes.length > 1 ? axes[1] : null;
+        int innerSteps = inner != null ? inner.source.getSteps() : 1;
+
+        int index = 0;
+        double[] last = null;
+        for (int i = 0; i < outer.source.getSteps(); i++) {
+            for (int j = 0; j < innerSteps; j++) {
+                double[] values = base.clone();
+                // Сусідня точка — найкраща підказка, яку гілку кореня продовжувати
+                if (last != null) prepared.carryOver(last, values);
+                Map<String, Object> row = new LinkedHashMap<>();
+                Map<String, Double> point = new LinkedHashMap<>();
+
+                outer.apply(i, values, point);
+                if (inner != null) inner.apply(j, values, point);
+
+                row.put("index", index++);
+                row.put("inputs", point);
+
+                boolean stop = false;
+                try {
+                    if (!prepared.evaluate(values)) {
+                        row.put("error", "No solution");
+                    }
+                    row.put("results", prepared.toMap(values));
+                } catch (SolverTimeoutException e) {
+                    // Решта точок майже напевно теж не вкладеться в дедлайн
+                    circuitBreaker.recordTimeout(formulaId);
+                    row.put("error", e.getMessage());
+                    stop = true;
+                }
+
+                last = values;
+
+                out.writeBytes(writer.writeValueAsBytes(row));
+                out.write('\n');
+                if (index % FLUSH_EVERY == 0) flush(out, emitter);
+                if (stop) {
+                    flush(out, emitter);
+                    return;
+                }
+            }
+        }
+        flush(out, emitter);
+        circuitBreaker.recordSuccess(formulaId);
+    }
+
+    /**
+     * Відправляє накопичені рядки клієнту однією порцією.
+     */
+    private void flush(ByteArrayOutputStream out, ResponseBodyEmitter emitter) {
+        if (out.size() == 0) return;
+        try {
+            emitter.send(out.toByteArray(), MediaType.APPLICATION_NDJSON);
+        } catch (IOException e) {
+            // Клієнт відключився — далі рахувати немає сенсу
+            throw new UncheckedIOException(e);
+        }
+        out.reset();
+    }
+
+    private void validateAxis(SweepRequest.Axis axis) {
+        if (axis.getVariable() == null || axis.getVariable().isBlank()) {
+            throw new RuntimeException("Sweep axis variable is required");
+        }
+        if (axis.getFrom() == null || axis.getTo() == null) {
+            throw new RuntimeException("Sweep axis " + axis.getVariable() + " needs from and to");
+        }
+        if (axis.getSteps() == null || axis.getSteps() < 1) {
+            throw new RuntimeException("Sweep axis " + axis.getVariable() + " needs at least one step");
+        }
+        if (axis.getScale() == SweepRequest.Scale.LOG && (axis.getFrom() <= 0 || axis.getTo() <= 0)) {
+            throw new RuntimeException("Logarithmic sweep of " + axis.getVariable() + " needs positive bounds");
+        }
+    }
+
+    /**
+     * Вісь, прив'язана до слота підготовленої формули.
+     */
+    private record Axis(SweepRequest.Axis source, int slot, double multiplier) {
+
+        double valueAt(int step) {
+            int steps = source.getSteps();
+            if (steps == 1) return source.getFrom();
+            double t = (double) step / (steps - 1);
+            if (source.getScale() == SweepRequest.Scale.LOG) {
+                return source.getFrom() * Math.pow(source.getTo() / source.getFrom(), t);
+            }
+            return source.getFrom() + (source.getTo() - source.getFrom()) * t;
+        }
+
+        void apply(int step, double[] values, Map<String, Double> point) {
+            double value = valueAt(step);
+            point.put(source.getVariable(), value);
+            if (slot >= 0) values[slot] = value * multiplier;
+        }
+    }
+}
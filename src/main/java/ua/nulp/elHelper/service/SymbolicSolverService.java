@@ -1,72 +1,283 @@
 package ua.nulp.elHelper.service;
 
-import org.matheclipse.core.eval.ExprEvaluator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hipparchus.complex.Complex;
+import org.matheclipse.core.eval.exception.ArgumentTypeException;
+import org.matheclipse.core.expression.F;
+import org.matheclipse.core.expression.S;
+import org.matheclipse.core.interfaces.IAST;
 import org.matheclipse.core.interfaces.IExpr;
+import org.matheclipse.core.interfaces.ISymbol;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import ua.nulp.elHelper.exception.SolverTimeoutException;
+import ua.nulp.elHelper.service.solver.EvaluatorPool;
+import ua.nulp.elHelper.service.solver.SolveResult;
+import ua.nulp.elHelper.service.solver.SolverMetrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
+@Slf4j
 @Service
+@RequiredArgsConstructor
 public class SymbolicSolverService {
 
-    private final ExprEvaluator evaluator = new ExprEvaluator();
+    private static final double COMPLEX_EPSILON = 1e-12;
+
+    private final EvaluatorPool evaluatorPool;
+    private final SolverMetrics solverMetrics;
+
+    @Value("${solver.deadline.solve-ms:2000}")
+    private long solveTimeoutMs;
 
-    public Double solve(String equation, Map<String, Double> inputs, String targetVar) {
+    // Ізоляція виконується один раз на скрипт, тож їй дозволено більше часу
+    @Value("${solver.deadline.isolate-ms:5000}")
+    private long isolateTimeoutMs;
+
+    /**
+     * Числовий Solve для рівняння з підставленими входами.
+     * Числа підставляються в розібране дерево, а корені читаються прямо з правил результату,
+     * без перетворення відповіді Symja на рядок.
+     *
+     * @param formulaId id формули для метрик (null для ще не збереженої)
+     */
+    public SolveResult solve(Long formulaId, String equation, Map<String, Double> inputs, String targetVar) {
+        long start = System.nanoTime();
+        String outcome = "error";
         try {
-            // 1. Підготовка рівняння
-            // Замінюємо "=" на "==", бо Symja розуміє тільки подвійне дорівнює
-            String commandEq = equation.replace("=", "==");
+            SolveResult result = evaluatorPool.execute(evaluator -> {
+                evaluator.eval("Clear(" + targetVar + ")"); // Забуваємо старі значення
 
-            for (Map.Entry<String, Double> entry : inputs.entrySet()) {
-                String varName = entry.getKey();
-                String val = String.valueOf(entry.getValue())
-                        .replace("E", "*^");
+                // Замінюємо "=" на "==", бо Symja розуміє тільки подвійне дорівнює
+                IExpr parsed = evaluator.parse(equation.replace("=", "=="));
+                IExpr target = evaluator.parse(targetVar);
 
-                commandEq = commandEq.replaceAll("\\b" + varName + "\\b", val);
-            }
+                IExpr solved = evaluator.eval(F.N(F.Solve(F.Rationalize(substitute(parsed, inputs)), target), F.ZZ(50)));
+                return extractRoots(solved);
+            }, solveTimeoutMs);
+            outcome = outcome(result);
+            return result;
 
-            // 3. Формуємо команду
-            String command = "N(Solve(Rationalize(" + commandEq + "), " + targetVar + "), 50)";
+        } catch (SolverTimeoutException e) {
+            outcome = "timeout";
+            throw e;
+        } catch (Exception e) {
+            log.warn("Solve of {} for {} failed: {}", equation, targetVar, e.getMessage());
+            log.debug("Solve failure details", e);
+            return SolveResult.EMPTY;
+        } finally {
+            solverMetrics.recordSymbolic("solve", formulaId, outcome, System.nanoTime() - start, equation);
+        }
+    }
 
-            // LOG для відладки (буде в консолі Render)
-            System.out.println("Symja Command: " + command);
+    /**
+     * Числовий Solve для системи зв'язаних рівнянь — один виклик над списком рівнянь і списком невідомих.
+     *
+     * @return дійсні розв'язки; кожен — значення targets у тому ж порядку
+     */
+    public List<double[]> solveSystem(Long formulaId, List<String> equations, Map<String, Double> inputs, List<String> targets) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            List<double[]> solutions = evaluatorPool.execute(evaluator -> {
+                targets.forEach(t -> evaluator.eval("Clear(" + t + ")"));
 
-            // 4. Виконання
-            IExpr result;
-            synchronized (evaluator) {
-                evaluator.eval("Clear(" + targetVar + ")"); // Забуваємо старі значення
-                result = evaluator.eval(command);
-            }
+                IExpr[] parsed = new IExpr[equations.size()];
+                for (int i = 0; i < parsed.length; i++) {
+                    parsed[i] = substitute(evaluator.parse(equations.get(i).replace("=", "==")), inputs);
+                }
+                IExpr[] variables = targets.stream().map(evaluator::parse).toArray(IExpr[]::new);
+
+                IExpr solved = evaluator.eval(F.N(F.Solve(F.Rationalize(F.List(parsed)), F.List(variables)), F.ZZ(50)));
+                return extractSystemRoots(solved, targets);
+            }, solveTimeoutMs);
+            outcome = solutions.isEmpty() ? "no_real_root" : "solved";
+            return solutions;
 
-            System.out.println("Symja Result: " + result.toString());
+        } catch (SolverTimeoutException e) {
+            outcome = "timeout";
+            throw e;
+        } catch (Exception e) {
+            log.warn("Solve of system {} for {} failed: {}", equations, targets, e.getMessage());
+            log.debug("System solve failure details", e);
+            return List.of();
+        } finally {
+            solverMetrics.recordSymbolic("solve_system", formulaId, outcome, System.nanoTime() - start,
+                    String.join("; ", equations));
+        }
+    }
 
-            return extractPositiveRoot(result.toString());
+    /**
+     * Символьно ізолює цільову змінну без підстановки чисел.
+     * Повертає праві частини розв'язків (vR -> vU/vI) або порожній список,
+     * якщо Symja не змогла виразити змінну в замкненій формі.
+     */
+    public List<IExpr> isolate(Long formulaId, String equation, String targetVar) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        List<IExpr> roots = new ArrayList<>();
+        try {
+            String command = "Solve(Rationalize(" + equation.replace("=", "==") + "), " + targetVar + ")";
 
+            evaluatorPool.execute(evaluator -> {
+                evaluator.eval("Clear(" + targetVar + ")");
+                IExpr result = evaluator.eval(command);
+                if (!result.isList()) return roots;
+
+                for (IExpr solution : (IAST) result) {
+                    if (!solution.isList() || ((IAST) solution).argSize() != 1) continue;
+                    IExpr rule = ((IAST) solution).arg1();
+                    if (!rule.isRuleAST()) continue;
+
+                    IExpr root = rule.second();
+                    // Періодичні розв'язки (Log, Exp): беремо головну гілку C(1) = 0
+                    if (root.isAST(S.ConditionalExpression, 3)) {
+                        root = root.first();
+                    }
+                    IExpr principal = root.replaceAll(x -> x.isAST(S.C, 2) ? F.C0 : F.NIL).orElse(root);
+                    roots.add(evaluator.eval(principal));
+                }
+                return roots;
+            }, isolateTimeoutMs);
+            outcome = roots.isEmpty() ? "not_isolated" : "isolated";
+        } catch (SolverTimeoutException e) {
+            // Не встигли ізолювати — рівняння розв'язуватиметься числово
+            log.info("Isolation of {} for {} timed out", equation, targetVar);
+            outcome = "timeout";
+            roots.clear();
         } catch (Exception e) {
-            System.err.println("Solver Error: " + e.getMessage());
-            e.printStackTrace();
-            return null;
+            log.warn("Isolation of {} for {} failed: {}", equation, targetVar, e.getMessage());
+            roots.clear();
+        } finally {
+            solverMetrics.recordSymbolic("isolate", formulaId, outcome, System.nanoTime() - start, equation);
+        }
+        return roots;
+    }
+
+    /**
+     * Обчислює вже ізольовані корені для конкретних входів.
+     * Вибір кореня — за політикою формули, див. SolveResult.select.
+     */
+    public SolveResult evaluate(Long formulaId, List<IExpr> roots, Map<String, Double> inputs) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            SolveResult result = evaluatorPool.execute(evaluator -> {
+                List<IExpr> values = new ArrayList<>(roots.size());
+                for (IExpr root : roots) {
+                    try {
+                        values.add(evaluator.eval(F.N(substitute(root, inputs))));
+                    } catch (Exception e) {
+                        // Корінь, що не обчислюється для цих входів, просто пропускаємо
+                    }
+                }
+                return toResult(values);
+            }, solveTimeoutMs);
+            outcome = outcome(result);
+            return result;
+        } catch (SolverTimeoutException e) {
+            outcome = "timeout";
+            throw e;
+        } finally {
+            solverMetrics.recordSymbolic("evaluate", formulaId, outcome, System.nanoTime() - start, null);
+        }
+    }
+
+    private static String outcome(SolveResult result) {
+        return result.real().length > 0 ? "solved" : "no_real_root";
+    }
+
+    /**
+     * Підставляє числа замість символів. Symja зберігає імена символів у нижньому регістрі.
+     */
+    private IExpr substitute(IExpr expr, Map<String, Double> inputs) {
+        Map<String, IExpr> values = new HashMap<>();
+        inputs.forEach((name, value) -> values.put(name.toLowerCase(Locale.ROOT), F.num(value)));
+
+        return expr.replaceAll(x -> x.isSymbol()
+                ? values.getOrDefault(((ISymbol) x).getSymbolName().toLowerCase(Locale.ROOT), F.NIL)
+                : F.NIL).orElse(expr);
+    }
+
+    /**
+     * Результат Solve — список розв'язків, кожен зі списком правил {v0 -> 1.5}.
+     */
+    private SolveResult extractRoots(IExpr result) {
+        if (!result.isList()) return SolveResult.EMPTY;
+
+        List<IExpr> values = new ArrayList<>();
+        for (IExpr solution : (IAST) result) {
+            if (!solution.isList()) continue;
+            for (IExpr rule : (IAST) solution) {
+                if (rule.isRuleAST()) values.add(rule.second());
+            }
         }
+        return toResult(values);
     }
 
-    private Double extractPositiveRoot(String symjaResponse) {
-        if (symjaResponse == null || symjaResponse.equals("{}") || symjaResponse.equals("List()")) return null;
+    /**
+     * Розв'язки системи: {{v0 -> 1, v1 -> 2}, ...}. Розв'язок з комплексною або невизначеною
+     * складовою пропускається цілком.
+     */
+    private List<double[]> extractSystemRoots(IExpr result, List<String> targets) {
+        if (!result.isList()) return List.of();
 
-        String cleanResponse = symjaResponse.replace("*^", "E");
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < targets.size(); i++) {
+            positions.put(targets.get(i).toLowerCase(Locale.ROOT), i);
+        }
+
+        List<double[]> solutions = new ArrayList<>();
+        for (IExpr solution : (IAST) result) {
+            if (!solution.isList()) continue;
+
+            double[] values = new double[targets.size()];
+            Arrays.fill(values, Double.NaN);
+            for (IExpr rule : (IAST) solution) {
+                if (!rule.isRuleAST() || !rule.first().isSymbol()) continue;
+                Integer position = positions.get(((ISymbol) rule.first()).getSymbolName().toLowerCase(Locale.ROOT));
+                if (position == null) continue;
 
-        Pattern pattern = Pattern.compile("->\\s*(-?\\d+(\\.\\d*)?([eE][+-]?\\d+)?)");
-        Matcher matcher = pattern.matcher(cleanResponse);
+                SolveResult single = toResult(List.of(rule.second()));
+                if (single.real().length == 1) values[position] = single.real()[0];
+            }
+            if (Arrays.stream(values).allMatch(Double::isFinite)) solutions.add(values);
+        }
+        return solutions;
+    }
 
-        Double bestResult = null;
+    private SolveResult toResult(List<IExpr> values) {
+        double[] real = new double[values.size()];
+        int count = 0;
+        List<SolveResult.ComplexRoot> complex = new ArrayList<>();
 
-        while (matcher.find()) {
+        for (IExpr value : values) {
+            if (value.isReal()) {
+                real[count++] = value.evalDouble();
+                continue;
+            }
+
+            Complex c;
             try {
-                double val = Double.parseDouble(matcher.group(1));
-                if (val >= 0) return val; // Повертаємо перший додатний корінь
-                if (bestResult == null) bestResult = val;
-            } catch (Exception e) { /* ignore */ }
+                c = value.evalfc();
+            } catch (ArgumentTypeException e) {
+                // Не число (залишилися символи) — такий корінь не має значення
+                continue;
+            }
+
+            // Залишок уявної частини від N(..., 50) вважаємо нулем
+            if (Math.abs(c.getImaginary()) <= COMPLEX_EPSILON * Math.max(1.0, Math.abs(c.getReal()))) {
+                real[count++] = c.getReal();
+            } else {
+                complex.add(new SolveResult.ComplexRoot(c.getReal(), c.getImaginary()));
+            }
         }
-        return bestResult;
+        return new SolveResult(Arrays.copyOf(real, count), complex);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,310 @@
+package ua.nulp.elHelper.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import ua.nulp.elHelper.entity.calculation.Calculation;
+import ua.nulp.elHelper.entity.calculation.Formula;
+import ua.nulp.elHelper.repository.CalculationRepo;
+import ua.nulp.elHelper.service.dto.calculation.calculation.ToleranceRequest;
+import ua.nulp.elHelper.service.dto.calculation.calculation.ToleranceResponse;
+import ua.nulp.elHelper.service.solver.FormulaPreparer;
+import ua.nulp.elHelper.service.solver.PreparedFormula;
+import ua.nulp.elHelper.service.solver.SolvePlan;
+import ua.nulp.elHelper.service.solver.SolvePlanner;
+import ua.nulp.elHelper.service.solver.SolverBulkhead;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+/**
+ * Аналіз допусків збереженого розрахунку методом Монте-Карло.
+ * Кожна змінна з допуском випадково відхиляється від номіналу, формула обчислюється
+ * для кожної вибірки, а для кожного результату повертається його розподіл.
+ * Вибірки рахуються паралельно порціями на потоках солвера; кожна порція має власний SplittableRandom,
+ * відщеплений від кореневого, тож з однаковим seed результат не залежить від потоків.
+ * Symja під час вибірок не викликається — лише скомпільовані вирази та числовий пошук кореня.
+ */
+@Service
+@RequiredArgsConstructor
+public class ToleranceService {
+
+    private static final int CHUNK_SIZE = 4096;
+    private static final int[] PERCENTILES = {1, 5, 50, 95, 99};
+
+    private final CalculationRepo calculationRepository;
+    private final CalculatorService calculatorService;
+    private final FormulaPreparer formulaPreparer;
+    private final SolvePlanner solvePlanner;
+    private final SolverBulkhead solverBulkhead;
+
+    @Value("${solver.tolerance.default-samples:10000}")
+    private int defaultSamples;
+
+    @Value("${solver.tolerance.max-samples:1000000}")
+    private int maxSamples;
+
+    @Value("${solver.tolerance.default-bins:20}")
+    private int defaultBins;
+
+    /**
+     * Без транзакції: розрахунок читається власною короткою транзакцією репозиторію,
+     * і з'єднання з базою не тримається, поки йдуть вибірки.
+     */
+    public ToleranceResponse analyze(Long calculationId, ToleranceRequest request, String userEmail) {
+        Calculation calc = calculationRepository.findByIdAndProject_User_Email(calculationId, userEmail)
+                .orElseThrow(() -> new RuntimeException("Calculation not found"));
+
+        int samples = request.getSamples() != null ? request.getSamples() : defaultSamples;
+        if (samples < 1 || samples > maxSamples) {
+            throw new RuntimeException("Samples must be between 1 and " + maxSamples);
+        }
+        int bins = request.getBins() != null ? request.getBins() : defaultBins;
+        if (bins < 1 || bins > 1000) {
+            throw new RuntimeException("Bins must be between 1 and 1000");
+        }
+
+        Map<String, Double> tolerances = request.getTolerances() != null ? request.getTolerances() : Map.of();
+        if (tolerances.isEmpty()) {
+            throw new RuntimeException("At least one tolerance is required");
+        }
+        tolerances.forEach((variable, percent) -> {
+            if (percent == null || percent < 0 || percent >= 100) {
+                throw new RuntimeException("Tolerance of " + variable + " must be between 0 and 100 percent");
+            }
+        });
+
+        Formula formula = calc.getFormula();
+        Map<String, Double> nominal = nominalValues(calc, tolerances.keySet());
+        Set<String> known = releaseOverdetermined(calc, nominal.keySet(), tolerances.keySet(), request.getRecalculate());
+
+        PreparedFormula prepared = formulaPreparer.prepareNumeric(formula, known);
+        if (prepared.getPlan().isEmpty()) {
+            throw new RuntimeException("Formula computes nothing from the varied inputs");
+        }
+
+        double[] base = prepared.newValues();
+        known.forEach(name -> {
+            int slot = prepared.slotOf(name);
+            if (slot >= 0) base[slot] = nominal.get(name);
+        });
+
+        Varied[] varied = tolerances.entrySet().stream()
+                .map(e -> new Varied(prepared.slotOf(e.getKey()), nominal.get(e.getKey()), e.getValue() / 100.0))
+                .filter(v -> v.slot >= 0)
+                .toArray(Varied[]::new);
+
+        List<String> targets = prepared.getTargets();
+        double[][] columns = new double[targets.size()][samples];
+
+        SplittableRandom root = request.getSeed() != null ? new SplittableRandom(request.getSeed()) : new SplittableRandom();
+        int chunks = (samples + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        SplittableRandom[] random = new SplittableRandom[chunks];
+        for (int c = 0; c < chunks; c++) {
+            random[c] = root.split();
+        }
+
+        int[] failed = new int[chunks];
+        solverBulkhead.forEachParallel(chunks, c -> failed[c] = sampleChunk(
+                prepared, base, varied, request.getDistribution(), random[c],
+                c * CHUNK_SIZE, Math.min(samples, (c + 1) * CHUNK_SIZE), columns));
+
+        Map<String, ToleranceResponse.Stats> results = new TreeMap<>();
+        for (int k = 0; k < targets.size(); k++) {
+            ToleranceResponse.Stats stats = statistics(columns[k], bins);
+            if (stats != null) results.put(targets.get(k), stats);
+        }
+
+        Map<String, Double> variedNominal = new TreeMap<>();
+        tolerances.keySet().forEach(name -> variedNominal.put(name, nominal.get(name)));
+
+        return ToleranceResponse.builder()
+                .calculationId(calc.getId())
+                .samples(samples)
+                .failed(Arrays.stream(failed).sum())
+                .nominal(variedNominal)
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Номінали в базових одиницях: входи розрахунку, а для змінних з допуском, що є результатами, —
+     * стандартизоване значення (той компонент, який підібрав StandardizationService).
+     */
+    private Map<String, Double> nominalValues(Calculation calc, Set<String> varied) {
+        Formula formula = calc.getFormula();
+        Map<String, Double> nominal = new HashMap<>(
+                calculatorService.normalizeInputs(formula, calc.getInputs(), calc.getInputUnits()));
+
+        Map<String, Double> standardized = calc.getStandardizedResults() != null ? calc.getStandardizedResults() : Map.of();
+        Map<String, Double> results = calc.getResults() != null ? calc.getResults() : Map.of();
+
+        for (String name : varied) {
+            if (nominal.containsKey(name)) continue;
+
+            Double picked = standardized.getOrDefault(name, results.get(name));
+            if (picked == null) {
+                throw new RuntimeException("Variable " + name + " is not part of this calculation");
+            }
+            nominal.put(name, picked);
+        }
+        return nominal;
+    }
+
+    /**
+     * Якщо допуск задано на результат (R, підібраний з f і C), вхід, з якого його було отримано,
+     * знову стає невідомим — інакше рівняння лише перевіряло б задані значення.
+     * Звільняється лише вхід без допуску з перевизначеної частини формули. Коли таких кілька,
+     * вибір за користувачем (поле recalculate) — вгадування за алфавітом давало б довільний розподіл.
+     */
+    private Set<String> releaseOverdetermined(Calculation calc, Set<String> inputs, Set<String> varied,
+                                              Set<String> requested) {
+        Formula formula = calc.getFormula();
+        Set<String> storedInputs = calc.getInputs() != null ? calc.getInputs().keySet() : Set.of();
+        Set<String> storedResults = calc.getResults() != null ? calc.getResults().keySet() : Set.of();
+        Set<String> toRecalculate = requested != null ? requested : Set.of();
+
+        Set<String> known = new HashSet<>(inputs);
+        while (true) {
+            SolvePlan plan = solvePlanner.plan(formula, known);
+            if (plan.overdetermined().isEmpty()) return known;
+
+            // Допуски на результати збереженого розрахунку, що й зробили формулу перевизначеною
+            List<String> variedResults = plan.overdetermined().stream()
+                    .filter(v -> varied.contains(v) && storedResults.contains(v) && !storedInputs.contains(v))
+                    .sorted()
+                    .toList();
+            List<String> candidates = plan.overdetermined().stream()
+                    .filter(v -> known.contains(v) && !varied.contains(v))
+                    .sorted()
+                    .toList();
+            if (variedResults.isEmpty() || candidates.isEmpty()) {
+                throw new RuntimeException("Tolerances over-constrain " + plan.overdetermined());
+            }
+
+            String released = candidates.stream()
+                    .filter(toRecalculate::contains)
+                    .findFirst()
+                    .orElseGet(() -> {
+                        if (candidates.size() > 1) {
+                            throw new RuntimeException("Tolerance on " + String.join(", ", variedResults)
+                                    + " is ambiguous: list which of " + candidates + " to recalculate in 'recalculate'");
+                        }
+                        return candidates.get(0);
+                    });
+            known.remove(released);
+        }
+    }
+
+    private int sampleChunk(PreparedFormula prepared, double[] base, Varied[] varied,
+                            ToleranceRequest.Distribution distribution, SplittableRandom random,
+                            int from, int to, double[][] columns) {
+        int[] targetSlots = prepared.getTargetSlots();
+        double[] values = new double[base.length];
+        int failed = 0;
+
+        for (int i = from; i < to; i++) {
+            System.arraycopy(base, 0, values, 0, base.length);
+            for (Varied v : varied) {
+                values[v.slot] = v.sample(random, distribution);
+            }
+
+            boolean ok = prepared.evaluate(values);
+            if (!ok) failed++;
+            for (int k = 0; k < targetSlots.length; k++) {
+                columns[k][i] = ok ? values[targetSlots[k]] : Double.NaN;
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * null, якщо жодна вибірка не дала скінченного значення.
+     */
+    private ToleranceResponse.Stats statistics(double[] column, int bins) {
+        double[] sorted = Arrays.stream(column).filter(Double::isFinite).toArray();
+        int n = sorted.length;
+        if (n == 0) return null;
+        Arrays.parallelSort(sorted);
+
+        // Велфорд — стабільніше за суму квадратів на великих вибірках
+        double mean = 0;
+        double m2 = 0;
+        for (int i = 0; i < n; i++) {
+            double delta = sorted[i] - mean;
+            mean += delta / (i + 1);
+            m2 += delta * (sorted[i] - mean);
+        }
+        double stddev = n > 1 ? Math.sqrt(m2 / (n - 1)) : 0;
+
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (int p : PERCENTILES) {
+            percentiles.put("p" + p, percentile(sorted, p));
+        }
+
+        return ToleranceResponse.Stats.builder()
+                .mean(mean)
+                .stddev(stddev)
+                .min(sorted[0])
+                .max(sorted[n - 1])
+                .percentiles(percentiles)
+                .histogram(histogram(sorted, bins))
+                .build();
+    }
+
+    private double percentile(double[] sorted, int p) {
+        double position = p / 100.0 * (sorted.length - 1);
+        int lower = (int) Math.floor(position);
+        int upper = Math.min(lower + 1, sorted.length - 1);
+        return sorted[lower] + (sorted[upper] - sorted[lower]) * (position - lower);
+    }
+
+    private ToleranceResponse.Histogram histogram(double[] sorted, int bins) {
+        double min = sorted[0];
+        double max = sorted[sorted.length - 1];
+        if (max <= min) {
+            return ToleranceResponse.Histogram.builder()
+                    .edges(new double[]{min, max})
+                    .counts(new int[]{sorted.length})
+                    .build();
+        }
+
+        double width = (max - min) / bins;
+        double[] edges = new double[bins + 1];
+        for (int i = 0; i <= bins; i++) {
+            edges[i] = min + width * i;
+        }
+        edges[bins] = max;
+
+        int[] counts = new int[bins];
+        for (double value : sorted) {
+            counts[Math.min((int) ((value - min) / width), bins - 1)]++;
+        }
+
+        return ToleranceResponse.Histogram.builder()
+                .edges(edges)
+                .counts(counts)
+                .build();
+    }
+
+    /**
+     * Змінна з допуском, прив'язана до слота формули.
+     */
+    private record Varied(int slot, double nominal, double tolerance) {
+
+        double sample(SplittableRandom random, ToleranceRequest.Distribution distribution) {
+            double spread = Math.abs(nominal) * tolerance;
+            if (distribution == ToleranceRequest.Distribution.NORMAL) {
+                return nominal + random.nextGaussian() * spread / 3;
+            }
+            return nominal + (random.nextDouble() * 2 - 1) * spread;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ua.nulp.elHelper.service.dto.calculation.calculation;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class BatchCalculationRequest {
+    private Long formulaId;
+
+    private List<Item> items;
+
+    @Data
+    public static class Item {
+        private Map<String, Double> inputs;
+
+        private Map<String, String> inputUnits;
+    }
+}
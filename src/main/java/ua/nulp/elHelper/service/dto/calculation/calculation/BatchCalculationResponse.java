@@ -0,0 +1,28 @@
+package ua.nulp.elHelper.service.dto.calculation.calculation;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+public class BatchCalculationResponse {
+    private Long formulaId;
+
+    // У тому ж порядку, що й items запиту
+    private List<ItemResult> items;
+
+    @Data
+    @Builder
+    public static class ItemResult {
+        private int index;
+
+        private Map<String, Double> results;
+        private Map<String, Double> standardizedResults;
+
+        // Заповнене лише для елементів, які не вдалося розрахувати
+        private String error;
+    }
+}
@@ -0,0 +1,22 @@
+package ua.nulp.elHelper.service.dto.calculation.calculation;
+
+import lombok.Data;
+import ua.nulp.elHelper.entity.Enums.ESeries;
+
+@Data
+public class CombinationRequest {
+    // Потрібне значення в базових одиницях (Ом, Ф, Гн)
+    private Double value;
+
+    // Позначення компонента, напр. "R1" або "C3": перша літера визначає, що означає послідовне
+    // й паралельне з'єднання, а частини комбінації отримують позначення R1.1, R1.2, ...
+    private String designator = "R";
+
+    private ESeries series = ESeries.E24;
+
+    // Допустиме відхилення у відсотках
+    private Double maxError = 1.0;
+
+    // 2 або 3
+    private Integer maxParts = 3;
+}
@@ -0,0 +1,50 @@
+package ua.nulp.elHelper.service.dto.calculation.calculation;
+
+import lombok.Builder;
+import lombok.Data;
+import ua.nulp.elHelper.entity.Enums.ESeries;
+
+import java.util.List;
+
+@Data
+@Builder
+public class CombinationResponse {
+    private double target;
+
+    private ESeries series;
+
+    private String designator;
+
+    // Найближчий одиночний номінал — з ним порівнюються комбінації
+    private Combination nearest;
+
+    // Найкращі комбінації в межах maxError: спершу з двох частин, потім з трьох, у кожній групі — за відхиленням
+    private List<Combination> combinations;
+
+    @Data
+    @Builder
+    public static class Combination {
+        // SINGLE, SERIES, PARALLEL, SERIES_PARALLEL (перша частина послідовно з паралельною парою),
+        // PARALLEL_SERIES (перша частина паралельно з послідовною парою)
+        private String connection;
+
+        // Запис з'єднання: "+" — послідовно, "||" — паралельно, напр. "R1.1 + (R1.2 || R1.3)"
+        private String notation;
+
+        // Частини як окремі рядки BOM
+        private List<Part> parts;
+
+        // Значення всієї комбінації
+        private double value;
+
+        // Відносне відхилення від цілі
+        private double deviation;
+    }
+
+    @Data
+    @Builder
+    public static class Part {
+        private String designator;
+        private double value;
+    }
+}
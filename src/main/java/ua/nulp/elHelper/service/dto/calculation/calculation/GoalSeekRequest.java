@@ -0,0 +1,34 @@
+package ua.nulp.elHelper.service.dto.calculation.calculation;
+
+import lombok.Data;
+import ua.nulp.elHelper.entity.Enums.ESeries;
+
+import java.util.Map;
+
+@Data
+public class GoalSeekRequest {
+    private Long formulaId;
+
+    // Фіксовані входи (як у звичайному розрахунку)
+    private Map<String, Double> inputs;
+
+    private Map<String, String> inputUnits;
+
+    // Бажані значення результатів у базових одиницях, напр. {"f": 1000}
+    private Map<String, Double> goals;
+
+    // Входи, які підбираються, з межами в одиницях inputUnits
+    private Map<String, Range> variables;
+
+    // Після підбору замінити змінні на найближчі номінали цього ряду і показати, що з цього вийде (null — без заміни)
+    private ESeries snapTo;
+
+    @Data
+    public static class Range {
+        private Double min;
+        private Double max;
+
+        // Початкове наближення; без нього — середина діапазону (геометрична для додатних меж)
+        private Double initial;
+    }
+}
@@ -0,0 +1,36 @@
+package ua.nulp.elHelper.service.dto.calculation.calculation;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@Builder
+public class GoalSeekResponse {
+    private Long formulaId;
+
+    // Усі цілі досягнуто з відносною похибкою не гіршою за 1e-6
+    private boolean converged;
+
+    // Скільки разів обчислювалася формула
+    private int evaluations;
+
+    private Solution solution;
+
+    // Лише якщо просили snapTo
+    private Solution standardized;
+
+    @Data
+    @Builder
+    public static class Solution {
+        // Підібрані входи в базових одиницях
+        private Map<String, Double> variables;
+
+        // Усі змінні формули для цих входів
+        private Map<String, Double> results;
+
+        // Відхилення кожної цілі: відносне, а для нульової цілі — абсолютне
+        private Map<String, Double> deviations;
+    }
+}
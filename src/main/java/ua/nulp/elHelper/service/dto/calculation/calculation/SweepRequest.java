@@ -0,0 +1,37 @@
+package ua.nulp.elHelper.service.dto.calculation.calculation;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class SweepRequest {
+    private Long formulaId;
+
+    // Фіксовані входи (як у звичайному розрахунку)
+    private Map<String, Double> inputs;
+
+    private Map<String, String> inputUnits;
+
+    // Одна або дві змінні, що пробігають діапазон
+    private List<Axis> axes;
+
+    @Data
+    public static class Axis {
+        private String variable;
+
+        // Межі в одиницях inputUnits для цієї змінної
+        private Double from;
+        private Double to;
+
+        // Кількість точок, включно з обома межами
+        private Integer steps;
+
+        private Scale scale = Scale.LINEAR;
+    }
+
+    public enum Scale {
+        LINEAR, LOG
+    }
+}
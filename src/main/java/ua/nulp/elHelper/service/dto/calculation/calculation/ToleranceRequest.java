@@ -0,0 +1,35 @@
+package ua.nulp.elHelper.service.dto.calculation.calculation;
+
+import lombok.Data;
+
+import java.util.Map;
+import java.util.Set;
+
+@Data
+public class ToleranceRequest {
+    // Допуск у відсотках для змінної, напр. {"R": 5, "C": 10}.
+    // Змінна може бути входом розрахунку або його результатом — тоді номіналом
+    // стає стандартизоване значення (підібраний E24-компонент)
+    private Map<String, Double> tolerances;
+
+    // Які входи рахувати заново, коли допуск задано на результат і вхід, з якого його отримано,
+    // не визначається однозначно (напр. R = U / I з допуском на R — рахувати U чи I)
+    private Set<String> recalculate;
+
+    private Integer samples;
+
+    // Кількість стовпців гістограми
+    private Integer bins;
+
+    private Distribution distribution = Distribution.UNIFORM;
+
+    // Для відтворюваних результатів; без нього — випадкове зерно
+    private Long seed;
+
+    public enum Distribution {
+        // Рівномірно в межах номінал ± допуск
+        UNIFORM,
+        // Нормальний розподіл, допуск = 3 сигми
+        NORMAL
+    }
+}
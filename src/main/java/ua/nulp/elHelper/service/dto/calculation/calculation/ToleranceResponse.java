@@ -0,0 +1,45 @@
+package ua.nulp.elHelper.service.dto.calculation.calculation;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@Builder
+public class ToleranceResponse {
+    private Long calculationId;
+
+    private int samples;
+
+    // Вибірки, для яких формула не дала розв'язку
+    private int failed;
+
+    // Номінали змінних, що варіювалися (в базових одиницях)
+    private Map<String, Double> nominal;
+
+    // Розподіл кожної змінної, яку обчислює формула
+    private Map<String, Stats> results;
+
+    @Data
+    @Builder
+    public static class Stats {
+        private double mean;
+        private double stddev;
+        private double min;
+        private double max;
+
+        // "p1", "p5", "p50", "p95", "p99"
+        private Map<String, Double> percentiles;
+
+        private Histogram histogram;
+    }
+
+    @Data
+    @Builder
+    public static class Histogram {
+        // Межі стовпців: edges.length == counts.length + 1
+        private double[] edges;
+        private int[] counts;
+    }
+}
@@ -1,6 +1,7 @@
 package ua.nulp.elHelper.service.dto.calculation.formula;
 
 import lombok.Data;
+import ua.nulp.elHelper.entity.Enums.RootPolicy;
 import ua.nulp.elHelper.entity.calculation.Formula;
 
 import java.util.List;
@@ -14,4 +15,5 @@ public class CreateFormula {
     private List<Formula.FormulaParam> parameters;
     private Long categoryId;
     private String schemeUrl;
+    private RootPolicy rootPolicy;
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package ua.nulp.elHelper.service.dto.calculation.formula;
 
 import lombok.Builder;
 import lombok.Data;
+import ua.nulp.elHelper.entity.Enums.RootPolicy;
 import ua.nulp.elHelper.entity.calculation.Formula;
 
 import java.util.List;
@@ -20,4 +21,5 @@ public class FormulaResponse {
     private Long categoryId;
     private Map<String, String> categoryName;
     private String schemeUrl;
+    private RootPolicy rootPolicy;
 }
@@ -0,0 +1,26 @@
+package ua.nulp.elHelper.service.dto.calculation.formula;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+public class ReevaluationStatus {
+    private Long formulaId;
+
+    // RUNNING, COMPLETED, CANCELLED, FAILED
+    private String status;
+
+    // Розрахунки формули в активних проєктах на момент старту
+    private long total;
+    private long processed;
+    private long updated;
+
+    // Не вдалося розрахувати — збережені результати лишилися як були
+    private long failed;
+
+    private Instant startedAt;
+    private Instant finishedAt;
+}
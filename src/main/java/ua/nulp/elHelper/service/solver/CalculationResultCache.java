@@ -0,0 +1,121 @@
+package ua.nulp.elHelper.service.solver;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ua.nulp.elHelper.service.FormulaChangedEvent;
+import ua.nulp.elHelper.service.StandardizationService;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * LRU-кеш результатів розрахунків.
+ * Ключ — id формули, її ревізія (знімок скриптів і політики кореня), нормалізовані входи у канонічному порядку
+ * та ряди номіналів, за якими стандартизовано результати, тож типові розрахунки каталогу (резистор для LED, дільник на 5 В) не доходять до солвера.
+ */
+@Component
+public class CalculationResultCache {
+
+    private final LruCache<Key, Entry> cache;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public CalculationResultCache(MeterRegistry meterRegistry,
+                                  @Value("${solver.result-cache.max-entries:10000}") int maxEntries) {
+        this.cache = new LruCache<>(maxEntries);
+
+        this.hits = Counter.builder("calculation.result.cache")
+                .tag("result", "hit")
+                .description("Calculation results served from cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("calculation.result.cache")
+                .tag("result", "miss")
+                .description("Calculation results computed by the solver")
+                .register(meterRegistry);
+        Gauge.builder("calculation.result.cache.size", cache, LruCache::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param formula скомпільована формула, з якою рахуватиме calculation, — її ревізія входить у ключ
+     */
+    public Entry get(CompiledFormula formula, Map<String, Double> normalizedInputs,
+                     StandardizationService.Profile standardization, Supplier<Entry> calculation) {
+        if (formula.getFormulaId() == null) return calculation.get();
+
+        Key key = key(formula, normalizedInputs, standardization);
+        Entry cached = cache.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached.copy();
+        }
+
+        misses.increment();
+        Entry computed = calculation.get();
+        cache.put(key, computed.copy());
+        return computed;
+    }
+
+    /**
+     * Повний результат з кешу, якщо він є; сам нічого не кладе.
+     * Для розрахунків, що частково беруть значення зі збережених, — такі результати кешувати не можна.
+     */
+    public Entry find(CompiledFormula formula, Map<String, Double> normalizedInputs,
+                      StandardizationService.Profile standardization) {
+        if (formula.getFormulaId() == null) return null;
+
+        Entry cached = cache.get(key(formula, normalizedInputs, standardization));
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached.copy();
+    }
+
+    private static Key key(CompiledFormula formula, Map<String, Double> normalizedInputs,
+                           StandardizationService.Profile standardization) {
+        return new Key(formula.getFormulaId(), formula.getRevision(), canonical(normalizedInputs), standardization);
+    }
+
+    public void invalidate(Long formulaId) {
+        cache.removeIf(key -> Objects.equals(key.formulaId(), formulaId));
+    }
+
+    /**
+     * Записи старої ревізії вже недосяжні (ревізія входить у ключ), тож тут лише звільняємо місце.
+     * Після коміту — щоб конкурентний запит не заповнив кеш зі старого рядка, а відкат не скидав його даремно.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onFormulaChanged(FormulaChangedEvent event) {
+        invalidate(event.formulaId());
+    }
+
+    private static Map<String, Double> canonical(Map<String, Double> inputs) {
+        Map<String, Double> sorted = new TreeMap<>();
+        // -0.0 і 0.0 дають однаковий результат, але різні ключі
+        inputs.forEach((name, value) -> sorted.put(name, value == 0.0 ? 0.0 : value));
+        return sorted;
+    }
+
+    public record Entry(Map<String, Double> results, Map<String, Double> standardizedResults) {
+
+        // Мапи потрапляють у сутності та відповіді, тому кеш віддає та зберігає копії
+        Entry copy() {
+            return new Entry(new HashMap<>(results), new TreeMap<>(standardizedResults));
+        }
+    }
+
+    private record Key(Long formulaId, FormulaRevision revision, Map<String, Double> inputs,
+                       StandardizationService.Profile standardization) {
+    }
+}
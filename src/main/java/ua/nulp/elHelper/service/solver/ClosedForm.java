@@ -0,0 +1,43 @@
+package ua.nulp.elHelper.service.solver;
+
+import org.matheclipse.core.interfaces.IExpr;
+import ua.nulp.elHelper.entity.Enums.RootPolicy;
+
+import java.util.List;
+
+/**
+ * Розв'язок рівняння відносно однієї змінної, ізольований символьно.
+ * roots — праві частини від Symja; compiled — ті самі корені у байткоді
+ * (null, якщо хоча б один корінь не має дійсного числового аналога);
+ * residual — нев'язка рівняння для числового пошуку кореня (null, якщо не компілюється).
+ */
+public record ClosedForm(List<IExpr> roots, CompiledExpression[] compiled, CompiledExpression residual) {
+
+    public static ClosedForm implicit(CompiledExpression residual) {
+        return new ClosedForm(List.of(), null, residual);
+    }
+
+    public boolean isIsolated() {
+        return !roots.isEmpty();
+    }
+
+    public boolean isCompiled() {
+        return compiled != null;
+    }
+
+    public boolean hasResidual() {
+        return residual != null;
+    }
+
+    /**
+     * Обчислює всі скомпільовані корені й вибирає один за політикою формули.
+     * NaN — жоден корінь не дав дійсного значення.
+     */
+    public double evaluate(double[] values, RootPolicy policy, double previous) {
+        double[] candidates = new double[compiled.length];
+        for (int i = 0; i < compiled.length; i++) {
+            candidates[i] = compiled[i].evaluate(values);
+        }
+        return RootSelector.select(policy, candidates, candidates.length, previous);
+    }
+}
@@ -0,0 +1,214 @@
+package ua.nulp.elHelper.service.solver;
+
+import lombok.extern.slf4j.Slf4j;
+import org.matheclipse.core.interfaces.IExpr;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ua.nulp.elHelper.entity.Enums.RootPolicy;
+import ua.nulp.elHelper.service.SymbolicSolverService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Шар компіляції скриптів формул.
+ * Для кожної пари (скрипт, цільова змінна) Symja розв'язує рівняння символьно один раз,
+ * ізольований вираз компілюється в байткод, а наступні запити лише обчислюють його над double[].
+ * Якщо змінну не вдається ізолювати (діод, RC-час з кількома експонентами), корінь шукається
+ * числово по скомпільованій нев'язці рівняння.
+ * Зв'язані системи (див. SolvePlanner) розв'язуються Ньютоном по скомпільованих рівняннях,
+ * а якщо він не збігся з жодного наближення — одним Solve у Symja над усією системою.
+ * Результати живуть у CompiledScript і зникають разом з підготовленою формулою.
+ */
+@Slf4j
+@Component
+public class ClosedFormSolver {
+
+    // Початкові наближення для Ньютона, коли попередніх значень немає: від мкА/пФ до кОм
+    private static final double[] SYSTEM_STARTS = {1.0, 1e-3, 1e3, 1e-6, 1e6};
+
+    private final SymbolicSolverService symbolicSolver;
+    private final RootFinder.Limits limits;
+
+    public ClosedFormSolver(SymbolicSolverService symbolicSolver,
+                            @Value("${solver.numeric.max-iterations:100}") int maxIterations,
+                            @Value("${solver.numeric.tolerance:1e-12}") double tolerance) {
+        this.symbolicSolver = symbolicSolver;
+        this.limits = new RootFinder.Limits(maxIterations, tolerance);
+    }
+
+    public Double solve(CompiledFormula formula, CompiledScript script, String target, double[] values) {
+        return solve(formula, script, target, values, true);
+    }
+
+    /**
+     * @param symbolicFallback чи можна звертатися до Symja, якщо скомпільованого шляху немає або він не дав кореня.
+     *                         Масові обчислення (Monte Carlo) вимикають це й отримують null замість повільного Solve.
+     */
+    public Double solve(CompiledFormula formula, CompiledScript script, String target, double[] values, boolean symbolicFallback) {
+        ClosedForm form = closedForm(formula, script, target);
+        int slot = formula.slotOf(target);
+        // Значення, яке змінна мала до цього кроку (для NEAREST_TO_PREVIOUS), зазвичай NaN
+        double previous = values[slot];
+
+        if (form.isCompiled()) {
+            double result = form.evaluate(values, formula.getRootPolicy(), previous);
+            if (!Double.isNaN(result)) return result;
+        } else if (symbolicFallback && form.isIsolated()) {
+            Double result = symbolicSolver.evaluate(formula.getFormulaId(), form.roots(), safeInputs(formula, script, target, values))
+                    .select(formula.getRootPolicy(), previous);
+            if (result != null) return result;
+        }
+
+        if (form.hasResidual()) {
+            // Працюємо на копії, щоб не залишити пробні значення в контексті розрахунку
+            double root = RootFinder.solve(form.residual(), values.clone(), slot, limits,
+                    formula.getRootPolicy(), previous);
+            return Double.isNaN(root) ? null : root;
+        }
+
+        if (!symbolicFallback) return null;
+
+        // Рівняння не компілюється навіть як нев'язка — повний числовий Solve у Symja
+        return symbolicSolver.solve(formula.getFormulaId(), script.getSafeEquation(), safeInputs(formula, script, target, values),
+                formula.safeName(target)).select(formula.getRootPolicy(), previous);
+    }
+
+    /**
+     * Один крок плану. Перший крок зв'язаної системи розв'язує всю систему й записує всі її змінні у values;
+     * наступні кроки тієї ж системи лише читають свій слот.
+     */
+    public Double solve(CompiledFormula formula, SolvePlan.Step step, double[] values, boolean symbolicFallback) {
+        if (!step.isCoupled()) {
+            return solve(formula, step.script(), step.target(), values, symbolicFallback);
+        }
+
+        CoupledSystem system = step.system();
+        int slot = formula.slotOf(step.target());
+        if (!step.target().equals(system.getTargets().get(0))) {
+            return Double.isNaN(values[slot]) ? null : values[slot];
+        }
+
+        double[] solution = solveSystem(formula, system, values, symbolicFallback);
+        int[] slots = system.getSlots();
+        for (int j = 0; j < slots.length; j++) {
+            values[slots[j]] = solution != null ? solution[j] : Double.NaN;
+        }
+        return solution != null ? solution[0] : null;
+    }
+
+    /**
+     * Політика кореня для системи: NEAREST_TO_PREVIOUS — розв'язок, найближчий до попередніх значень
+     * (Ньютон стартує саме з них); решта політик — перший розв'язок з усіма невід'ємними змінними, інакше перший.
+     */
+    private double[] solveSystem(CompiledFormula formula, CoupledSystem system, double[] values, boolean symbolicFallback) {
+        int[] slots = system.getSlots();
+        double[] previous = new double[slots.length];
+        for (int j = 0; j < slots.length; j++) previous[j] = values[slots[j]];
+        boolean hasPrevious = Arrays.stream(previous).allMatch(Double::isFinite);
+        boolean nearest = hasPrevious && formula.getRootPolicy() == RootPolicy.NEAREST_TO_PREVIOUS;
+
+        List<double[]> starts = new ArrayList<>();
+        if (hasPrevious) starts.add(previous);
+        for (double start : SYSTEM_STARTS) {
+            double[] x = new double[slots.length];
+            Arrays.fill(x, start);
+            starts.add(x);
+        }
+
+        // Працюємо на копії, щоб не залишити пробні значення в контексті розрахунку
+        double[] work = values.clone();
+        double[] first = null;
+        for (double[] start : system.isNumeric() ? starts : List.<double[]>of()) {
+            double[] solution = NewtonSystem.solve(system, work, start, limits);
+            if (solution == null) continue;
+            if (nearest || isNonNegative(solution)) return solution;
+            if (first == null) first = solution;
+        }
+        if (first != null || !symbolicFallback) return first;
+
+        Map<String, Double> inputs = new HashMap<>();
+        for (CompiledScript script : system.getScripts()) {
+            for (String v : script.getVariables()) {
+                double value = values[formula.slotOf(v)];
+                if (!system.getTargets().contains(v) && !Double.isNaN(value)) inputs.put(formula.safeName(v), value);
+            }
+        }
+        List<double[]> roots = symbolicSolver.solveSystem(formula.getFormulaId(),
+                system.getScripts().stream().map(CompiledScript::getSafeEquation).toList(),
+                inputs,
+                system.getTargets().stream().map(formula::safeName).toList());
+        if (roots.isEmpty()) return null;
+
+        if (nearest) {
+            return roots.stream()
+                    .min((a, b) -> Double.compare(distance(a, previous), distance(b, previous)))
+                    .orElseThrow();
+        }
+        return roots.stream().filter(ClosedFormSolver::isNonNegative).findFirst().orElse(roots.get(0));
+    }
+
+    private static boolean isNonNegative(double[] solution) {
+        return Arrays.stream(solution).allMatch(v -> v >= 0);
+    }
+
+    // Відносна відстань — змінні системи можуть бути в різних масштабах (А і Ом)
+    private static double distance(double[] a, double[] b) {
+        double sum = 0;
+        for (int j = 0; j < a.length; j++) {
+            double d = (a[j] - b[j]) / Math.max(Math.abs(b[j]), Double.MIN_NORMAL);
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    /**
+     * Чи обчислюється крок без Symja: є скомпільовані корені або нев'язка для числового пошуку.
+     */
+    public boolean isNumeric(CompiledFormula formula, CompiledScript script, String target) {
+        ClosedForm form = closedForm(formula, script, target);
+        return form.isCompiled() || form.hasResidual();
+    }
+
+    private ClosedForm closedForm(CompiledFormula formula, CompiledScript script, String target) {
+        return script.getClosedForms().computeIfAbsent(target, t -> compile(formula, script, t));
+    }
+
+    private ClosedForm compile(CompiledFormula formula, CompiledScript script, String target) {
+        Map<String, ExprNode.Var> variables = new HashMap<>();
+        for (String v : script.getVariables()) {
+            int slot = formula.slotOf(v);
+            variables.put(CompiledFormula.safeName(slot), new ExprNode.Var(v, slot));
+        }
+
+        // Нев'язка будується з дерева скрипту, тож є для будь-якого розібраного рівняння
+        CompiledExpression residual = script.isParsed() ? ExpressionCompiler.compile(script.residual()) : null;
+
+        List<IExpr> roots = symbolicSolver.isolate(formula.getFormulaId(), script.getSafeEquation(), formula.safeName(target));
+        if (roots.isEmpty()) return ClosedForm.implicit(residual);
+
+        try {
+            CompiledExpression[] compiled = new CompiledExpression[roots.size()];
+            for (int i = 0; i < roots.size(); i++) {
+                compiled[i] = ExpressionCompiler.compile(SymjaConverter.toNode(roots.get(i), variables));
+            }
+            return new ClosedForm(roots, compiled, residual);
+        } catch (UnsupportedOperationException e) {
+            log.debug("Root of {} for {} stays symbolic: {}", script.getEquation(), target, e.getMessage());
+            return new ClosedForm(roots, null, residual);
+        }
+    }
+
+    private Map<String, Double> safeInputs(CompiledFormula formula, CompiledScript script, String target, double[] values) {
+        Map<String, Double> inputs = new HashMap<>();
+        for (String v : script.getVariables()) {
+            if (v.equals(target)) continue;
+            double value = values[formula.slotOf(v)];
+            if (!Double.isNaN(value)) inputs.put(formula.safeName(v), value);
+        }
+        return inputs;
+    }
+}
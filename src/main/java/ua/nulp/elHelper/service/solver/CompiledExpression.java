@@ -0,0 +1,11 @@
+package ua.nulp.elHelper.service.solver;
+
+/**
+ * Скомпільований числовий вираз. Значення змінних передаються масивом за слотами
+ * підготовленої формули; обчислення не виділяє пам'яті.
+ */
+@FunctionalInterface
+public interface CompiledExpression {
+
+    double evaluate(double[] values);
+}
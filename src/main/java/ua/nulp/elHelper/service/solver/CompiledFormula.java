@@ -0,0 +1,130 @@
+package ua.nulp.elHelper.service.solver;
+
+import lombok.Getter;
+import ua.nulp.elHelper.entity.Enums.RootPolicy;
+import ua.nulp.elHelper.entity.calculation.Formula;
+import ua.nulp.elHelper.exception.FormulaParseException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Підготовлена до обчислень формула: розібрані у дерева скрипти, слоти змінних і кеш планів розв'язання.
+ * Створюється під час збереження формули (помилки розбору — FormulaParseException) і живе в FormulaCompiler.
+ * Кожна змінна отримує індекс у масиві значень; у Symja вона фігурує як v{слот},
+ * тож імена на кшталт R та r не злипаються після приведення до нижнього регістру.
+ * Знімок скриптів зберігається, щоб помітити зміну формули без явної інвалідації.
+ * Збереження нової формули вимагає строгого розбору; формула, збережена раніше, розбирається м'яко:
+ * скрипт, якого парсер не розуміє, лишається текстовим рівнянням для Symja (див. CompiledScript.symbolic).
+ */
+@Getter
+public class CompiledFormula {
+
+    private final Long formulaId;
+    private final FormulaRevision revision;
+    private final List<CompiledScript> scripts;
+    private final Map<String, Integer> slots;
+    private final RootPolicy rootPolicy;
+    // Скрипти, що не пройшли строгий розбір і розв'язуються лише через Symja
+    private final List<Integer> symbolicScripts;
+
+    private static final Pattern VARIABLE = Pattern.compile("#([A-Za-z0-9_]+)");
+
+    private final LruCache<String, SolvePlan> plans = new LruCache<>(256);
+
+    public CompiledFormula(Formula formula) {
+        this(formula, true);
+    }
+
+    /**
+     * @param strict true — некоректний скрипт дає FormulaParseException (перевірка перед збереженням);
+     *               false — такий скрипт переходить на текстовий шлях через Symja (формули, вже збережені в базі)
+     */
+    public CompiledFormula(Formula formula, boolean strict) {
+        this.formulaId = formula.getId();
+        this.revision = FormulaRevision.of(formula);
+        this.rootPolicy = revision.rootPolicy();
+        List<FormulaRevision.Script> source = revision.scripts();
+
+        Map<String, Integer> slotMap = new LinkedHashMap<>();
+        List<CompiledScript> compiled = new ArrayList<>();
+        List<Integer> symbolic = new ArrayList<>();
+        for (int i = 0; i < source.size(); i++) {
+            var script = source.get(i);
+            String equation = script.expression() != null && script.expression().contains("=")
+                    ? script.expression()
+                    : "#" + String.valueOf(script.target()).replace("#", "").trim() + " = " + script.expression();
+            try {
+                // Розбір на копії слотів, щоб невдалий скрипт не залишив у формулі напіврозібраних змінних
+                Map<String, Integer> attempt = new LinkedHashMap<>(slotMap);
+                ParsedScript parsed = FormulaParser.parse(script.target(), script.expression(), attempt);
+                slotMap.putAll(attempt);
+                compiled.add(new CompiledScript(i, equation, parsed));
+            } catch (FormulaParseException e) {
+                if (strict) throw e;
+                compiled.add(symbolicScript(i, equation, slotMap));
+                symbolic.add(i);
+            }
+        }
+        this.slots = Map.copyOf(slotMap);
+        this.scripts = List.copyOf(compiled);
+        this.symbolicScripts = List.copyOf(symbolic);
+    }
+
+    /**
+     * Скрипт як текст: кожне #Name замінюється на безпечне ім'я слоту, решту тексту Symja читає сама.
+     */
+    private static CompiledScript symbolicScript(int index, String equation, Map<String, Integer> slotMap) {
+        List<String> variables = new ArrayList<>();
+        Matcher matcher = VARIABLE.matcher(equation);
+        String safeEquation = matcher.replaceAll(match -> {
+            String name = match.group(1);
+            Integer slot = slotMap.get(name);
+            if (slot == null) {
+                slot = slotMap.size();
+                slotMap.put(name, slot);
+            }
+            if (!variables.contains(name)) variables.add(name);
+            return safeName(slot);
+        });
+        return CompiledScript.symbolic(index, equation, variables, safeEquation);
+    }
+
+    public boolean hasSymbolicScripts() {
+        return !symbolicScripts.isEmpty();
+    }
+
+    public boolean matches(Formula formula) {
+        return revision.equals(FormulaRevision.of(formula));
+    }
+
+    public static String safeName(int slot) {
+        return "v" + slot;
+    }
+
+    public String safeName(String variable) {
+        return safeName(slots.get(variable));
+    }
+
+    public int slotOf(String variable) {
+        return slots.get(variable);
+    }
+
+    /**
+     * Масив значень за слотами; невідомі змінні — NaN.
+     */
+    public double[] newValues(Map<String, Double> known) {
+        double[] values = new double[slots.size()];
+        Arrays.fill(values, Double.NaN);
+        slots.forEach((name, slot) -> {
+            Double value = known.get(name);
+            if (value != null) values[slot] = value;
+        });
+        return values;
+    }
+}
@@ -0,0 +1,63 @@
+package ua.nulp.elHelper.service.solver;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Один скрипт формули, розібраний один раз: дерево рівняння, змінні та безпечне для Symja рівняння.
+ * Тут же зберігаються ізольовані й скомпільовані розв'язки для кожної цільової змінної.
+ * Скрипт збереженої раніше формули, що не проходить строгий розбір (функції поза граматикою, голі символи),
+ * не має дерева: змінні підставляються в текст, а розв'язує його лише Symja — як до появи парсера.
+ */
+@Getter
+public class CompiledScript {
+
+    private final int index;
+    private final String equation;         // "#U = #I * #R" — як написав автор, для повідомлень
+    private final List<String> variables;  // ["U", "I", "R"] без повторів
+    private final ExprNode left;
+    private final ExprNode right;
+    private final String safeEquation;     // "v0 = (v1*v2)" — згенеровано з дерева (або з тексту для скрипту без дерева)
+
+    private final Map<String, ClosedForm> closedForms = new ConcurrentHashMap<>();
+
+    CompiledScript(int index, String equation, ParsedScript parsed) {
+        this.index = index;
+        this.equation = equation;
+        this.variables = parsed.variables();
+        this.left = parsed.left();
+        this.right = parsed.right();
+        this.safeEquation = SymjaWriter.write(left) + " = " + SymjaWriter.write(right);
+    }
+
+    private CompiledScript(int index, String equation, List<String> variables, String safeEquation) {
+        this.index = index;
+        this.equation = equation;
+        this.variables = List.copyOf(variables);
+        this.left = null;
+        this.right = null;
+        this.safeEquation = safeEquation;
+    }
+
+    /**
+     * Скрипт без дерева — лише для Symja.
+     */
+    static CompiledScript symbolic(int index, String equation, List<String> variables, String safeEquation) {
+        return new CompiledScript(index, equation, variables, safeEquation);
+    }
+
+    public boolean isParsed() {
+        return left != null;
+    }
+
+    /**
+     * "ліва - права": нуль, коли рівняння виконується. null для скрипту без дерева.
+     */
+    public ExprNode residual() {
+        if (!isParsed()) return null;
+        return new ExprNode.Binary(ExprNode.BinaryOp.SUB, left, right);
+    }
+}
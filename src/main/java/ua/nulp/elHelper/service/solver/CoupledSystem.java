@@ -0,0 +1,53 @@
+package ua.nulp.elHelper.service.solver;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Група скриптів, які залежать одне від одного (сильно зв'язна компонента графа "рівняння — змінна"):
+ * k рівнянь з k спільними невідомими, жодне з яких не розв'язується окремо.
+ * Ліві й праві частини компілюються один раз разом із планом — для числового Ньютона
+ * і для перевірки, що знайдений розв'язок справді задовольняє рівняння.
+ * Якщо хоча б один скрипт не має дерева (див. CompiledScript.symbolic), частин немає і система йде лише в Symja.
+ */
+@Getter
+public class CoupledSystem {
+
+    private final List<CompiledScript> scripts;
+    private final List<String> targets;
+    private final int[] slots;
+
+    private final CompiledExpression[] left;
+    private final CompiledExpression[] right;
+
+    CoupledSystem(CompiledFormula formula, List<CompiledScript> scripts, List<String> targets) {
+        this.scripts = List.copyOf(scripts);
+        this.targets = List.copyOf(targets);
+        this.slots = targets.stream().mapToInt(formula::slotOf).toArray();
+
+        if (!scripts.stream().allMatch(CompiledScript::isParsed)) {
+            this.left = null;
+            this.right = null;
+            return;
+        }
+        this.left = new CompiledExpression[scripts.size()];
+        this.right = new CompiledExpression[scripts.size()];
+        for (int i = 0; i < scripts.size(); i++) {
+            left[i] = ExpressionCompiler.compile(scripts.get(i).getLeft());
+            right[i] = ExpressionCompiler.compile(scripts.get(i).getRight());
+        }
+    }
+
+    public boolean isNumeric() {
+        return left != null;
+    }
+
+    public int size() {
+        return scripts.size();
+    }
+
+    public List<Integer> scriptIndexes() {
+        return scripts.stream().map(CompiledScript::getIndex).toList();
+    }
+}
@@ -0,0 +1,238 @@
+package ua.nulp.elHelper.service.solver;
+
+import lombok.extern.slf4j.Slf4j;
+import org.matheclipse.core.eval.ExprEvaluator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ua.nulp.elHelper.exception.SolverTimeoutException;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Обмежений пул ізольованих ExprEvaluator.
+ * Кожен евалуатор має власний EvalEngine, тому запити різних користувачів
+ * виконуються паралельно, а не по черзі під одним глобальним локом.
+ * Місткість пулу — семафор: дозвіл тримає кожен евалуатор у роботі, включно з тим, що пережив таймаут
+ * і ще не зупинився, тож потоків Symja ніколи не більше за розмір пулу.
+ * Евалуатор перестворюється після заданої кількості обчислень або після того, як під час роботи
+ * з ним було виділено заданий обсяг пам'яті. Це міра виконаної роботи (виділення на потоці),
+ * а не утримувана пам'ять, — просто дешевий сигнал, що час почати з чистого EvalEngine,
+ * щоб визначення, які не прибирає Clear(target), не накопичувалися безкінечно.
+ * Обчислення з дедлайном виконуються на окремому потоці: після таймауту
+ * EvalEngine отримує запит на зупинку, а сам евалуатор у пул не повертається.
+ */
+@Slf4j
+@Component
+public class EvaluatorPool {
+
+    // Ті самі види команд, що й у SymbolicSolverService: ізоляція, числовий Solve, N
+    private static final List<String> WARM_UP_COMMANDS = List.of(
+            "Solve(Rationalize(y == x^2 - 3*x + 2), x)",
+            "Solve(Rationalize(y == 2*Exp(x/3) - 1), x)",
+            "N(Solve(Rationalize(2.5 == Sqrt(x)*Log(10)), x), 50)"
+    );
+
+    // Стан обчислення з дедлайном: хто першим змінить стан, той і вирішує долю евалуатора
+    private static final int PENDING = 0;
+    private static final int RUNNING = 1;
+    private static final int FINISHED = 2;
+    private static final int ABANDONED = 3;
+
+    private final int poolSize;
+    private final int maxEvaluations;
+    private final long recycleAllocatedBytes;
+
+    private final Semaphore capacity;
+    private final BlockingQueue<PooledEvaluator> idle;
+
+    // Задач з дедлайном одночасно не більше, ніж дозволів, тож фіксованого пулу потоків досить
+    private final ExecutorService deadlineExecutor;
+
+    public EvaluatorPool(@Value("${solver.pool.size:0}") int poolSize,
+                         @Value("${solver.pool.max-evaluations:5000}") int maxEvaluations,
+                         @Value("${solver.pool.recycle-after-allocated-mb:${solver.pool.max-allocated-mb:512}}") long recycleAllocatedMb) {
+        // 0 — за кількістю ядер
+        this.poolSize = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.maxEvaluations = maxEvaluations;
+        this.recycleAllocatedBytes = recycleAllocatedMb * 1024 * 1024;
+        this.capacity = new Semaphore(this.poolSize, true);
+        this.idle = new ArrayBlockingQueue<>(this.poolSize);
+        this.deadlineExecutor = Executors.newFixedThreadPool(this.poolSize, task -> {
+            Thread thread = new Thread(task, "solver-deadline");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Бере вільний евалуатор (або чекає на нього), виконує задачу і повертає його в пул.
+     */
+    public <T> T execute(Function<ExprEvaluator, T> task) {
+        PooledEvaluator pooled = acquire();
+        long allocatedBefore = allocatedBytes();
+        try {
+            return task.apply(pooled.evaluator);
+        } finally {
+            pooled.evaluations++;
+            pooled.allocatedBytes += allocatedBytes() - allocatedBefore;
+            release(pooled);
+        }
+    }
+
+    /**
+     * Те саме, що execute(task), але з дедлайном. Після таймауту обчислення зупиняється,
+     * евалуатор відкидається, а викликач отримує SolverTimeoutException.
+     * Дозвіл пулу звільняється лише тоді, коли потік Symja справді вийде із задачі.
+     */
+    public <T> T execute(Function<ExprEvaluator, T> task, long timeoutMs) {
+        PooledEvaluator pooled = acquire();
+        AtomicInteger state = new AtomicInteger(PENDING);
+        Future<T> future = deadlineExecutor.submit(() -> {
+            // Викликач уже пішов і сам повернув евалуатор
+            if (!state.compareAndSet(PENDING, RUNNING)) return null;
+            long allocatedBefore = allocatedBytes();
+            try {
+                return task.apply(pooled.evaluator);
+            } finally {
+                pooled.allocatedBytes += allocatedBytes() - allocatedBefore;
+                if (!state.compareAndSet(RUNNING, FINISHED)) {
+                    // Викликач пішов по таймауту — тільки тепер евалуатор справді вільний
+                    discard();
+                }
+            }
+        });
+
+        try {
+            T result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            pooled.evaluations++;
+            release(pooled);
+            return result;
+        } catch (TimeoutException e) {
+            abandon(pooled, state, future);
+            throw new SolverTimeoutException(timeoutMs);
+        } catch (ExecutionException e) {
+            pooled.evaluations++;
+            release(pooled);
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            abandon(pooled, state, future);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Solver interrupted");
+        }
+    }
+
+    /**
+     * Викликач більше не чекає на задачу. Якщо вона ще не почалась — евалуатор чистий і повертається в пул;
+     * якщо виконується — просимо Symja зупинитись, а дозвіл звільнить сама задача на виході.
+     */
+    private void abandon(PooledEvaluator pooled, AtomicInteger state, Future<?> future) {
+        if (state.compareAndSet(PENDING, ABANDONED)) {
+            future.cancel(false);
+            release(pooled);
+            return;
+        }
+        if (state.compareAndSet(RUNNING, ABANDONED)) {
+            pooled.evaluator.getEvalEngine().stopRequest();
+            future.cancel(true);
+            return;
+        }
+        // FINISHED: задача завершилась у ту ж мить, результат просто не потрібен
+        pooled.evaluations++;
+        release(pooled);
+    }
+
+    /**
+     * Створює всі евалуатори пулу наперед і проганяє на кожному типові команди солвера.
+     * Symja завантажує набори правил ліниво під час першого eval, тож без цього
+     * перші розрахунки після деплою платять за ініціалізацію.
+     *
+     * @return кількість прогрітих евалуаторів
+     */
+    public int warmUp() {
+        List<PooledEvaluator> warmed = new ArrayList<>();
+        try {
+            for (int i = 0; i < poolSize; i++) {
+                PooledEvaluator pooled = acquire();
+                warmed.add(pooled);
+                for (String command : WARM_UP_COMMANDS) {
+                    pooled.evaluator.eval(command);
+                }
+                pooled.evaluator.eval("Clear(x, y)");
+            }
+        } finally {
+            warmed.forEach(this::release);
+        }
+        return warmed.size();
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Чекає на дозвіл, далі бере вільний евалуатор або створює новий замість відкинутого.
+     */
+    private PooledEvaluator acquire() {
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Solver interrupted while waiting for an evaluator");
+        }
+
+        PooledEvaluator pooled = idle.poll();
+        if (pooled != null) return pooled;
+        try {
+            return new PooledEvaluator();
+        } catch (RuntimeException | Error e) {
+            capacity.release();
+            throw e;
+        }
+    }
+
+    private void release(PooledEvaluator pooled) {
+        if (pooled.evaluations >= maxEvaluations || pooled.allocatedBytes >= recycleAllocatedBytes) {
+            log.debug("Recycling evaluator after {} evaluations, {} bytes allocated",
+                    pooled.evaluations, pooled.allocatedBytes);
+            // Новий створиться ліниво при наступному acquire
+        } else {
+            idle.offer(pooled);
+        }
+        capacity.release();
+    }
+
+    /**
+     * Евалуатор після зупинки в невідомому стані — не повертаємо його, лише звільняємо місце.
+     */
+    private void discard() {
+        capacity.release();
+    }
+
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean) {
+            return bean.getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    private static class PooledEvaluator {
+        private final ExprEvaluator evaluator = new ExprEvaluator();
+        private int evaluations;
+        private long allocatedBytes;
+    }
+}
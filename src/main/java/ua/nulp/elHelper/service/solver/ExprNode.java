@@ -0,0 +1,104 @@
+package ua.nulp.elHelper.service.solver;
+
+/**
+ * Дерево числового виразу зі змінними, прив'язаними до слотів масиву значень.
+ * Вузли незмінні; evaluate() — простий інтерпретатор, що використовується,
+ * коли байткод для виразу згенерувати не вдалося.
+ */
+public sealed interface ExprNode {
+
+    double evaluate(double[] values);
+
+    record Num(double value) implements ExprNode {
+        @Override
+        public double evaluate(double[] values) {
+            return value;
+        }
+    }
+
+    /**
+     * Іменована константа (Pi, E, Degree): для обчислень — число, для Symja — символ.
+     */
+    record Const(String symbol, double value) implements ExprNode {
+        @Override
+        public double evaluate(double[] values) {
+            return value;
+        }
+    }
+
+    record Var(String name, int slot) implements ExprNode {
+        @Override
+        public double evaluate(double[] values) {
+            return values[slot];
+        }
+    }
+
+    record Unary(UnaryOp op, ExprNode arg) implements ExprNode {
+        @Override
+        public double evaluate(double[] values) {
+            return op.apply(arg.evaluate(values));
+        }
+    }
+
+    record Binary(BinaryOp op, ExprNode left, ExprNode right) implements ExprNode {
+        @Override
+        public double evaluate(double[] values) {
+            return op.apply(left.evaluate(values), right.evaluate(values));
+        }
+    }
+
+    enum UnaryOp {
+        NEG(null),
+        SQRT("sqrt"), EXP("exp"), LN("log"), LOG10("log10"),
+        SIN("sin"), COS("cos"), TAN("tan"),
+        ASIN("asin"), ACOS("acos"), ATAN("atan"),
+        SINH("sinh"), COSH("cosh"), TANH("tanh"),
+        ABS("abs");
+
+        // Ім'я відповідного статичного методу java.lang.Math
+        private final String mathMethod;
+
+        UnaryOp(String mathMethod) {
+            this.mathMethod = mathMethod;
+        }
+
+        public String mathMethod() {
+            return mathMethod;
+        }
+
+        public double apply(double x) {
+            return switch (this) {
+                case NEG -> -x;
+                case SQRT -> Math.sqrt(x);
+                case EXP -> Math.exp(x);
+                case LN -> Math.log(x);
+                case LOG10 -> Math.log10(x);
+                case SIN -> Math.sin(x);
+                case COS -> Math.cos(x);
+                case TAN -> Math.tan(x);
+                case ASIN -> Math.asin(x);
+                case ACOS -> Math.acos(x);
+                case ATAN -> Math.atan(x);
+                case SINH -> Math.sinh(x);
+                case COSH -> Math.cosh(x);
+                case TANH -> Math.tanh(x);
+                case ABS -> Math.abs(x);
+            };
+        }
+    }
+
+    enum BinaryOp {
+        ADD, SUB, MUL, DIV, POW, ATAN2;
+
+        public double apply(double a, double b) {
+            return switch (this) {
+                case ADD -> a + b;
+                case SUB -> a - b;
+                case MUL -> a * b;
+                case DIV -> a / b;
+                case POW -> Math.pow(a, b);
+                case ATAN2 -> Math.atan2(a, b);
+            };
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package ua.nulp.elHelper.service.solver;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Компілює ExprNode у прихований клас з методом evaluate(double[]).
+ * Згенерований код — пряма послідовність DALOAD/DADD/.../Math.*, тож JIT
+ * інлайнить його як звичайний Java-метод. Приховані класи вивантажуються
+ * разом з останнім посиланням на вираз.
+ */
+@Slf4j
+public final class ExpressionCompiler implements Opcodes {
+
+    private static final String CLASS_NAME = "ua/nulp/elHelper/service/solver/GeneratedExpression";
+    private static final String INTERFACE_NAME = "ua/nulp/elHelper/service/solver/CompiledExpression";
+
+    private ExpressionCompiler() {
+    }
+
+    public static CompiledExpression compile(ExprNode node) {
+        try {
+            byte[] bytecode = generate(node);
+            var lookup = MethodHandles.lookup().defineHiddenClass(bytecode, true);
+            return (CompiledExpression) lookup.lookupClass().getDeclaredConstructor().newInstance();
+        } catch (Exception | LinkageError e) {
+            // Напр. надто великий метод — лишаємося на інтерпретаторі дерева
+            log.warn("Bytecode compilation failed, falling back to interpreter: {}", e.getMessage());
+            return node::evaluate;
+        }
+    }
+
+    private static byte[] generate(ExprNode node) {
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(V17, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, CLASS_NAME, null, "java/lang/Object",
+                new String[]{INTERFACE_NAME});
+
+        MethodVisitor init = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(ALOAD, 0);
+        init.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        init.visitInsn(RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "evaluate", "([D)D", null, null);
+        mv.visitCode();
+        emit(mv, node);
+        mv.visitInsn(DRETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    private static void emit(MethodVisitor mv, ExprNode node) {
+        switch (node) {
+            case ExprNode.Num num -> emitConstant(mv, num.value());
+            case ExprNode.Const constant -> emitConstant(mv, constant.value());
+            case ExprNode.Var var -> {
+                mv.visitVarInsn(ALOAD, 1);
+                mv.visitLdcInsn(var.slot());
+                mv.visitInsn(DALOAD);
+            }
+            case ExprNode.Unary unary -> {
+                emit(mv, unary.arg());
+                if (unary.op() == ExprNode.UnaryOp.NEG) {
+                    mv.visitInsn(DNEG);
+                } else {
+                    mv.visitMethodInsn(INVOKESTATIC, "java/lang/Math", unary.op().mathMethod(), "(D)D", false);
+                }
+            }
+            case ExprNode.Binary binary -> emitBinary(mv, binary);
+        }
+    }
+
+    private static void emitBinary(MethodVisitor mv, ExprNode.Binary binary) {
+        // Квадрат і обернене значення — найчастіші степені у формулах, обходимося без Math.pow
+        if (binary.op() == ExprNode.BinaryOp.POW && binary.right() instanceof ExprNode.Num exponent) {
+            if (exponent.value() == 2.0) {
+                emit(mv, binary.left());
+                mv.visitInsn(DUP2);
+                mv.visitInsn(DMUL);
+                return;
+            }
+            if (exponent.value() == -1.0) {
+                mv.visitInsn(DCONST_1);
+                emit(mv, binary.left());
+                mv.visitInsn(DDIV);
+                return;
+            }
+            if (exponent.value() == 0.5) {
+                emit(mv, binary.left());
+                mv.visitMethodInsn(INVOKESTATIC, "java/lang/Math", "sqrt", "(D)D", false);
+                return;
+            }
+        }
+
+        emit(mv, binary.left());
+        emit(mv, binary.right());
+        switch (binary.op()) {
+            case ADD -> mv.visitInsn(DADD);
+            case SUB -> mv.visitInsn(DSUB);
+            case MUL -> mv.visitInsn(DMUL);
+            case DIV -> mv.visitInsn(DDIV);
+            case POW -> mv.visitMethodInsn(INVOKESTATIC, "java/lang/Math", "pow", "(DD)D", false);
+            case ATAN2 -> mv.visitMethodInsn(INVOKESTATIC, "java/lang/Math", "atan2", "(DD)D", false);
+        }
+    }
+
+    private static void emitConstant(MethodVisitor mv, double value) {
+        if (Double.doubleToRawLongBits(value) == 0L) {
+            mv.visitInsn(DCONST_0);
+        } else if (value == 1.0) {
+            mv.visitInsn(DCONST_1);
+        } else {
+            mv.visitLdcInsn(value);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ua.nulp.elHelper.service.solver;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ua.nulp.elHelper.exception.FormulaCircuitOpenException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Автоматичний вимикач на рівні формули.
+ * Після кількох таймаутів поспіль формула відхиляється на період охолодження,
+ * щоб не займати солвер. Після охолодження вимикач напіввідкритий: рівно один запит
+ * забирає право на пробу (CAS), решта отримують 503, поки проба не відзвітує —
+ * успіх закриває вимикач, новий таймаут знову відкриває. Проба, що так і не відзвітувала
+ * (впала з іншої причини), за період охолодження вважається втраченою, і право забирає наступний запит.
+ */
+@Component
+public class FormulaCircuitBreaker {
+
+    private final int failureThreshold;
+    private final long coolDownMs;
+
+    private final Map<Long, State> states = new ConcurrentHashMap<>();
+
+    public FormulaCircuitBreaker(@Value("${solver.breaker.failure-threshold:3}") int failureThreshold,
+                                 @Value("${solver.breaker.cool-down-seconds:60}") long coolDownSeconds) {
+        this.failureThreshold = failureThreshold;
+        this.coolDownMs = coolDownSeconds * 1000;
+    }
+
+    public void checkAllowed(Long formulaId) {
+        if (formulaId == null) return;
+        State state = states.get(formulaId);
+        if (state == null) return;
+
+        long now = System.currentTimeMillis();
+        long openUntil;
+        synchronized (state) {
+            if (state.consecutiveTimeouts < failureThreshold) return;
+            openUntil = state.openUntil;
+        }
+        if (openUntil > now) {
+            throw new FormulaCircuitOpenException(formulaId, Math.max(1, (openUntil - now + 999) / 1000));
+        }
+
+        // Напіввідкритий стан: пропускаємо лише того, хто забрав право на пробу
+        long probe = state.probeStartedAt.get();
+        boolean claimable = probe == 0 || now - probe >= coolDownMs;
+        if (!claimable || !state.probeStartedAt.compareAndSet(probe, now)) {
+            throw new FormulaCircuitOpenException(formulaId, 1);
+        }
+    }
+
+    public void recordSuccess(Long formulaId) {
+        if (formulaId != null) states.remove(formulaId);
+    }
+
+    public void recordTimeout(Long formulaId) {
+        if (formulaId == null) return;
+        State state = states.computeIfAbsent(formulaId, id -> new State());
+
+        synchronized (state) {
+            state.consecutiveTimeouts++;
+            // Напіввідкритий стан (охолодження минуло, але лічильник не скинуто) — відкриваємо одразу
+            if (state.consecutiveTimeouts >= failureThreshold) {
+                state.openUntil = System.currentTimeMillis() + coolDownMs;
+                state.probeStartedAt.set(0);
+            }
+        }
+    }
+
+    private static class State {
+        private int consecutiveTimeouts;
+        private long openUntil;
+        // Коли забрано право на пробу в напіввідкритому стані; 0 — проба не йде
+        private final AtomicLong probeStartedAt = new AtomicLong();
+    }
+}
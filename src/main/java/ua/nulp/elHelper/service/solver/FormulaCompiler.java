@@ -0,0 +1,62 @@
+package ua.nulp.elHelper.service.solver;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ua.nulp.elHelper.entity.calculation.Formula;
+import ua.nulp.elHelper.service.FormulaChangedEvent;
+
+/**
+ * Кеш підготовлених формул за id.
+ * Формула розбирається під час збереження (FormulaService), тож запити на розрахунок
+ * зазвичай знаходять її вже тут і не торкаються тексту скриптів.
+ * Для розрахунків формула розбирається м'яко: формули, збережені до появи строгої граматики,
+ * продовжують рахуватися через Symja замість 400 на кожен запит.
+ */
+@Slf4j
+@Component
+public class FormulaCompiler {
+
+    private final LruCache<Long, CompiledFormula> cache;
+
+    public FormulaCompiler(@Value("${solver.compiled-formulas.max-entries:1024}") int maxEntries) {
+        this.cache = new LruCache<>(maxEntries);
+    }
+
+    public CompiledFormula compile(Formula formula) {
+        if (formula.getId() == null) {
+            return new CompiledFormula(formula);
+        }
+
+        CompiledFormula compiled = cache.get(formula.getId());
+        if (compiled == null || !compiled.matches(formula)) {
+            compiled = new CompiledFormula(formula, false);
+            if (compiled.hasSymbolicScripts()) {
+                log.warn("Formula {}: scripts {} are outside the formula grammar and are solved by Symja only",
+                        formula.getId(), compiled.getSymbolicScripts());
+            }
+            cache.put(formula.getId(), compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Розбирає скрипти без кешування — перевірка перед збереженням.
+     *
+     * @throws ua.nulp.elHelper.exception.FormulaParseException якщо скрипт некоректний
+     */
+    public void validate(Formula formula) {
+        new CompiledFormula(formula);
+    }
+
+    public void invalidate(Long formulaId) {
+        cache.removeIf(id -> id.equals(formulaId));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onFormulaChanged(FormulaChangedEvent event) {
+        invalidate(event.formulaId());
+    }
+}
@@ -0,0 +1,310 @@
+package ua.nulp.elHelper.service.solver;
+
+import ua.nulp.elHelper.exception.FormulaParseException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Рекурсивний розбір скрипту формули у ExprNode.
+ * Синтаксис той самий, яким автори формул користувалися з Symja:
+ * змінні #Name, + - * / ^, неявне множення (2#R, 2 Pi #f), функції Sqrt, Exp, Log, Log10,
+ * Sin/Cos/Tan, ArcSin/ArcCos/ArcTan, Sinh/Cosh/Tanh, Abs (без урахування регістру),
+ * константи Pi, E, Degree та числа з експонентою (1e-12, 1.5E3, 2*^-6).
+ * Змінні одразу отримують слоти в спільній для формули мапі.
+ */
+public final class FormulaParser {
+
+    private static final Map<String, ExprNode.UnaryOp> FUNCTIONS = Map.ofEntries(
+            Map.entry("sqrt", ExprNode.UnaryOp.SQRT),
+            Map.entry("exp", ExprNode.UnaryOp.EXP),
+            Map.entry("ln", ExprNode.UnaryOp.LN),
+            Map.entry("log10", ExprNode.UnaryOp.LOG10),
+            Map.entry("sin", ExprNode.UnaryOp.SIN),
+            Map.entry("cos", ExprNode.UnaryOp.COS),
+            Map.entry("tan", ExprNode.UnaryOp.TAN),
+            Map.entry("arcsin", ExprNode.UnaryOp.ASIN),
+            Map.entry("arccos", ExprNode.UnaryOp.ACOS),
+            Map.entry("asin", ExprNode.UnaryOp.ASIN),
+            Map.entry("acos", ExprNode.UnaryOp.ACOS),
+            Map.entry("sinh", ExprNode.UnaryOp.SINH),
+            Map.entry("cosh", ExprNode.UnaryOp.COSH),
+            Map.entry("tanh", ExprNode.UnaryOp.TANH),
+            Map.entry("abs", ExprNode.UnaryOp.ABS)
+    );
+
+    private static final Map<String, ExprNode.Const> CONSTANTS = Map.of(
+            "pi", new ExprNode.Const("Pi", Math.PI),
+            "e", new ExprNode.Const("E", Math.E),
+            "degree", new ExprNode.Const("Degree", Math.PI / 180)
+    );
+
+    private final String text;
+    private final Map<String, Integer> slots;
+    private final Set<String> variables = new LinkedHashSet<>();
+    private int pos;
+
+    private FormulaParser(String text, Map<String, Integer> slots) {
+        this.text = text;
+        this.slots = slots;
+    }
+
+    /**
+     * Розбирає скрипт. Вираз без "=" означає "#target = вираз".
+     *
+     * @param slots слоти змінних формули; нові змінні додаються в кінець
+     * @throws FormulaParseException якщо скрипт не відповідає синтаксису
+     */
+    public static ParsedScript parse(String target, String expression, Map<String, Integer> slots) {
+        if (expression == null || expression.isBlank()) {
+            throw new FormulaParseException("Expression is empty", String.valueOf(expression), 0);
+        }
+
+        FormulaParser parser = new FormulaParser(expression, slots);
+        ExprNode left;
+        ExprNode right;
+
+        if (expression.contains("=")) {
+            left = parser.parseSum();
+            parser.expect('=');
+            if (parser.peek() == '=') parser.pos++;
+            right = parser.parseSum();
+        } else {
+            String name = target == null ? "" : target.replace("#", "").trim();
+            if (name.isEmpty()) {
+                throw new FormulaParseException("Script target is required", expression, 0);
+            }
+            // Ціль реєструємо першою — як у рівнянні "#target = вираз"
+            left = parser.variable(name);
+            right = parser.parseSum();
+        }
+
+        if (parser.peek() != 0) {
+            throw parser.error("Unexpected '" + parser.peek() + "'");
+        }
+        return new ParsedScript(left, right, List.copyOf(parser.variables));
+    }
+
+    private ExprNode parseSum() {
+        ExprNode left = parseProduct();
+        while (true) {
+            char c = peek();
+            if (c == '+') {
+                pos++;
+                left = new ExprNode.Binary(ExprNode.BinaryOp.ADD, left, parseProduct());
+            } else if (c == '-') {
+                pos++;
+                left = new ExprNode.Binary(ExprNode.BinaryOp.SUB, left, parseProduct());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private ExprNode parseProduct() {
+        ExprNode left = parseUnary();
+        while (true) {
+            char c = peek();
+            if (c == '*') {
+                pos++;
+                left = new ExprNode.Binary(ExprNode.BinaryOp.MUL, left, parseUnary());
+            } else if (c == '/') {
+                pos++;
+                left = new ExprNode.Binary(ExprNode.BinaryOp.DIV, left, parseUnary());
+            } else if (startsPrimary(c)) {
+                // Неявне множення: 2#R, 2 Pi #f, (#a)(#b)
+                left = new ExprNode.Binary(ExprNode.BinaryOp.MUL, left, parsePower());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private ExprNode parseUnary() {
+        char c = peek();
+        if (c == '-') {
+            pos++;
+            ExprNode arg = parseUnary();
+            // Від'ємні числа лишаються числами, щоб компілятор бачив, напр., степінь -1
+            if (arg instanceof ExprNode.Num num) return new ExprNode.Num(-num.value());
+            return new ExprNode.Unary(ExprNode.UnaryOp.NEG, arg);
+        }
+        if (c == '+') {
+            pos++;
+            return parseUnary();
+        }
+        return parsePower();
+    }
+
+    private ExprNode parsePower() {
+        ExprNode base = parsePrimary();
+        if (peek() == '^') {
+            pos++;
+            // Правоасоціативно й з унарним знаком: 2^-1, a^b^c = a^(b^c)
+            return new ExprNode.Binary(ExprNode.BinaryOp.POW, base, parseUnary());
+        }
+        return base;
+    }
+
+    private ExprNode parsePrimary() {
+        char c = peek();
+        if (Character.isDigit(c) || c == '.') {
+            return number();
+        }
+        if (c == '#') {
+            pos++;
+            int start = pos;
+            while (pos < text.length() && isNameChar(text.charAt(pos))) pos++;
+            if (pos == start) throw error("Variable name expected after '#'");
+            return variable(text.substring(start, pos));
+        }
+        if (c == '(') {
+            pos++;
+            ExprNode inner = parseSum();
+            expect(')');
+            return inner;
+        }
+        if (Character.isLetter(c)) {
+            int start = pos;
+            while (pos < text.length() && Character.isLetterOrDigit(text.charAt(pos))) pos++;
+            String name = text.substring(start, pos);
+
+            char next = peek();
+            if (next == '(' || next == '[') {
+                return function(name, start);
+            }
+
+            ExprNode.Const constant = CONSTANTS.get(name.toLowerCase(Locale.ROOT));
+            if (constant == null) {
+                pos = start;
+                throw error("Unknown symbol '" + name + "' (variables start with '#')");
+            }
+            return constant;
+        }
+        if (c == 0) throw error("Unexpected end of expression");
+        throw error("Unexpected '" + c + "'");
+    }
+
+    private ExprNode function(String name, int start) {
+        char open = text.charAt(pos++);
+        char close = open == '(' ? ')' : ']';
+
+        List<ExprNode> args = new ArrayList<>();
+        if (peek() != close) {
+            args.add(parseSum());
+            while (peek() == ',') {
+                pos++;
+                args.add(parseSum());
+            }
+        }
+        expect(close);
+
+        String key = name.toLowerCase(Locale.ROOT);
+        if (key.equals("log") && args.size() == 1) {
+            return new ExprNode.Unary(ExprNode.UnaryOp.LN, args.get(0));
+        }
+        if (key.equals("log") && args.size() == 2) {
+            // Log(b, x) = ln(x) / ln(b)
+            return new ExprNode.Binary(ExprNode.BinaryOp.DIV,
+                    new ExprNode.Unary(ExprNode.UnaryOp.LN, args.get(1)),
+                    new ExprNode.Unary(ExprNode.UnaryOp.LN, args.get(0)));
+        }
+        if ((key.equals("arctan") || key.equals("atan")) && args.size() == 1) {
+            return new ExprNode.Unary(ExprNode.UnaryOp.ATAN, args.get(0));
+        }
+        if (key.equals("arctan") && args.size() == 2) {
+            // ArcTan(x, y) = atan2(y, x)
+            return new ExprNode.Binary(ExprNode.BinaryOp.ATAN2, args.get(1), args.get(0));
+        }
+
+        ExprNode.UnaryOp op = FUNCTIONS.get(key);
+        if (op == null) {
+            pos = start;
+            throw error("Unknown function '" + name + "'");
+        }
+        if (args.size() != 1) {
+            pos = start;
+            throw error("Function '" + name + "' takes one argument");
+        }
+        return new ExprNode.Unary(op, args.get(0));
+    }
+
+    /**
+     * 12, 0.5, .5, 1e-12, 1.5E+3, а також запис Symja 2*^-6.
+     */
+    private ExprNode number() {
+        int start = pos;
+        while (pos < text.length() && Character.isDigit(text.charAt(pos))) pos++;
+        if (pos < text.length() && text.charAt(pos) == '.') {
+            pos++;
+            while (pos < text.length() && Character.isDigit(text.charAt(pos))) pos++;
+        }
+        if (pos - start == 1 && text.charAt(start) == '.') {
+            pos = start;
+            throw error("Number expected");
+        }
+        String mantissa = text.substring(start, pos);
+
+        // "2E" без цифр далі — це 2 * E, як і в Symja
+        String exponent = "";
+        int expStart = -1;
+        if (pos < text.length() && (text.charAt(pos) == 'e' || text.charAt(pos) == 'E')) {
+            expStart = pos + 1;
+        } else if (text.startsWith("*^", pos)) {
+            expStart = pos + 2;
+        }
+        if (expStart >= 0) {
+            int end = expStart;
+            if (end < text.length() && (text.charAt(end) == '+' || text.charAt(end) == '-')) end++;
+            int digits = end;
+            while (end < text.length() && Character.isDigit(text.charAt(end))) end++;
+            if (end > digits) {
+                exponent = "E" + text.substring(expStart, end);
+                pos = end;
+            }
+        }
+
+        return new ExprNode.Num(Double.parseDouble(mantissa + exponent));
+    }
+
+    private ExprNode.Var variable(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            slot = slots.size();
+            slots.put(name, slot);
+        }
+        variables.add(name);
+        return new ExprNode.Var(name, slot);
+    }
+
+    private static boolean isNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static boolean startsPrimary(char c) {
+        return Character.isLetterOrDigit(c) || c == '#' || c == '(' || c == '.';
+    }
+
+    /**
+     * Наступний значущий символ (пробіли пропускаються) або 0 у кінці рядка.
+     */
+    private char peek() {
+        while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+        return pos < text.length() ? text.charAt(pos) : 0;
+    }
+
+    private void expect(char c) {
+        if (peek() != c) {
+            throw error(peek() == 0 ? "Expected '" + c + "' before end of expression" : "Expected '" + c + "'");
+        }
+        pos++;
+    }
+
+    private FormulaParseException error(String message) {
+        return new FormulaParseException(message, text, pos);
+    }
+}
@@ -0,0 +1,43 @@
+package ua.nulp.elHelper.service.solver;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ua.nulp.elHelper.entity.calculation.Formula;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Створює PreparedFormula: компілює формулу й будує план для заданого набору відомих змінних.
+ */
+@Component
+@RequiredArgsConstructor
+public class FormulaPreparer {
+
+    private final FormulaCompiler formulaCompiler;
+    private final SolvePlanner solvePlanner;
+    private final ClosedFormSolver closedFormSolver;
+
+    public PreparedFormula prepare(Formula formula, Collection<String> known) {
+        CompiledFormula compiled = formulaCompiler.compile(formula);
+        SolvePlan plan = solvePlanner.plan(compiled, known, Set.of());
+        return new PreparedFormula(compiled, plan, closedFormSolver, true);
+    }
+
+    /**
+     * Як prepare, але кожен крок плану має обчислюватися без Symja (скомпільовані корені
+     * або числовий пошук по нев'язці; зв'язані системи — Ньютоном). Для сотень тисяч обчислень поспіль.
+     */
+    public PreparedFormula prepareNumeric(Formula formula, Collection<String> known) {
+        CompiledFormula compiled = formulaCompiler.compile(formula);
+        SolvePlan plan = solvePlanner.plan(compiled, known, Set.of());
+
+        for (SolvePlan.Step step : plan.steps()) {
+            if (!step.isCoupled() && !closedFormSolver.isNumeric(compiled, step.script(), step.target())) {
+                throw new RuntimeException("Variable " + step.target() + " of " + step.script().getEquation()
+                        + " can only be solved symbolically");
+            }
+        }
+        return new PreparedFormula(compiled, plan, closedFormSolver, false);
+    }
+}
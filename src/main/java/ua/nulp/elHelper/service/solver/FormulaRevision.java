@@ -0,0 +1,56 @@
+package ua.nulp.elHelper.service.solver;
+
+import ua.nulp.elHelper.entity.Enums.RootPolicy;
+import ua.nulp.elHelper.entity.calculation.Formula;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Незмінний знімок того, від чого залежать результати формули: тексти скриптів і політика кореня.
+ * Скрипти копіюються у записи, тож зміна сутності на місці не змінює вже збережених знімків
+ * (і ключів кешу, побудованих з них).
+ */
+public record FormulaRevision(List<Script> scripts, RootPolicy rootPolicy) {
+
+    public record Script(String target, String expression) {
+    }
+
+    public static FormulaRevision of(Formula formula) {
+        List<Script> scripts = formula.getScripts() == null ? List.of() : formula.getScripts().stream()
+                .map(s -> new Script(s.getTarget(), s.getExpression()))
+                .toList();
+        RootPolicy policy = formula.getRootPolicy() == null ? RootPolicy.FIRST_NON_NEGATIVE : formula.getRootPolicy();
+        return new FormulaRevision(scripts, policy);
+    }
+
+    /**
+     * Короткий стабільний відбиток ревізії (hex SHA-256) — зберігається разом з результатами розрахунку,
+     * щоб знати, якою версією формули їх пораховано. Довжина кожного тексту входить у відбиток,
+     * тож різні набори скриптів не склеюються в однаковий рядок.
+     */
+    public String fingerprint() {
+        StringBuilder text = new StringBuilder().append(rootPolicy);
+        for (Script script : scripts) {
+            append(text, script.target());
+            append(text, script.expression());
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static void append(StringBuilder text, String value) {
+        if (value == null) {
+            text.append("|-1:");
+        } else {
+            text.append('|').append(value.length()).append(':').append(value);
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package ua.nulp.elHelper.service.solver;
+
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Мінімізація цільової функції в одиничному кубі [0, 1]^n — числова частина goal seek.
+ * Межі змінних і логарифмічна шкала переводяться в куб викликачем, тож тут змінні безрозмірні.
+ * Одна змінна: рівномірна сітка по відрізку для пошуку найкращого інтервалу,
+ * далі мінімізація Брента (парабола + золотий переріз) всередині нього.
+ * Кілька змінних: стартові точки з послідовності Холтона, далі Нелдер — Мід з проєкцією на межі
+ * і перезапуском зі свіжого симплекса, поки перезапуск щось покращує.
+ * Точки, де формула не має розв'язку (NaN), вважаються нескінченно поганими.
+ */
+public final class GoalSeeker {
+
+    // Значення цілі, нижче якого шукати далі немає сенсу (відносна похибка ~1e-10)
+    private static final double GOOD_ENOUGH = 1e-20;
+    private static final double GOLDEN = 0.3819660112501051;
+    // Точність положення мінімуму квадратичної цілі обмежена sqrt(ε)
+    private static final double POSITION_TOLERANCE = 3e-8;
+
+    private static final int GRID_POINTS = 64;
+    private static final int MAX_SEEDS = 64;
+    private static final int MAX_RESTARTS = 5;
+    private static final int[] PRIMES = {2, 3, 5, 7, 11, 13, 17, 19, 23, 29, 31, 37};
+
+    /**
+     * @param point       найкраща знайдена точка в одиничному кубі
+     * @param value       значення цілі в ній
+     * @param evaluations скільки разів обчислювалася формула
+     */
+    public record Result(double[] point, double value, int evaluations) {
+    }
+
+    private GoalSeeker() {
+    }
+
+    /**
+     * @param start          початкова точка в кубі (проєктується на межі)
+     * @param maxEvaluations ліміт обчислень цілі
+     */
+    public static Result minimize(ToDoubleFunction<double[]> objective, double[] start, int maxEvaluations) {
+        if (start.length > PRIMES.length) {
+            throw new IllegalArgumentException("At most " + PRIMES.length + " variables are supported");
+        }
+        Objective f = new Objective(objective, maxEvaluations);
+        double[] x0 = clamp(start.clone());
+
+        Result result = start.length == 1 ? minimize1d(f, x0[0]) : nelderMead(f, x0);
+        return new Result(result.point(), result.value(), f.count);
+    }
+
+    private static Result minimize1d(Objective f, double start) {
+        double bestX = start;
+        double bestF = f.at(start);
+
+        double[] grid = new double[GRID_POINTS];
+        double[] values = new double[GRID_POINTS];
+        int best = -1;
+        for (int i = 0; i < GRID_POINTS; i++) {
+            grid[i] = i / (GRID_POINTS - 1.0);
+            values[i] = f.at(grid[i]);
+            if (best < 0 || values[i] < values[best]) best = i;
+        }
+        if (values[best] < bestF) {
+            bestX = grid[best];
+            bestF = values[best];
+        }
+        if (bestF <= GOOD_ENOUGH) return new Result(new double[]{bestX}, bestF, 0);
+
+        // Мінімум лежить між сусідами найкращої точки сітки
+        int center = values[best] <= bestF ? best : nearest(grid, start);
+        double a = grid[Math.max(center - 1, 0)];
+        double b = grid[Math.min(center + 1, GRID_POINTS - 1)];
+        double[] refined = brent(f, a, b);
+        if (refined[1] < bestF) {
+            bestX = refined[0];
+            bestF = refined[1];
+        }
+        return new Result(new double[]{bestX}, bestF, 0);
+    }
+
+    /**
+     * Мінімізація Брента на [a, b]. Повертає {x, f(x)}.
+     */
+    private static double[] brent(Objective f, double a, double b) {
+        double x = a + GOLDEN * (b - a);
+        double w = x, v = x;
+        double fx = f.at(x), fw = fx, fv = fx;
+        double d = 0, e = 0;
+
+        while (!f.exhausted() && fx > GOOD_ENOUGH) {
+            double m = 0.5 * (a + b);
+            double tol1 = POSITION_TOLERANCE * Math.abs(x) + 1e-12;
+            double tol2 = 2 * tol1;
+            if (Math.abs(x - m) <= tol2 - 0.5 * (b - a)) break;
+
+            boolean golden = true;
+            if (Math.abs(e) > tol1) {
+                // Парабола через x, w, v
+                double r = (x - w) * (fx - fv);
+                double q = (x - v) * (fx - fw);
+                double p = (x - v) * q - (x - w) * r;
+                q = 2 * (q - r);
+                if (q > 0) p = -p;
+                q = Math.abs(q);
+                double previous = e;
+                e = d;
+                if (Math.abs(p) < Math.abs(0.5 * q * previous) && p > q * (a - x) && p < q * (b - x)) {
+                    d = p / q;
+                    golden = false;
+                    double u = x + d;
+                    if (u - a < tol2 || b - u < tol2) d = x < m ? tol1 : -tol1;
+                }
+            }
+            if (golden) {
+                e = (x < m ? b : a) - x;
+                d = GOLDEN * e;
+            }
+
+            double u = Math.abs(d) >= tol1 ? x + d : x + (d > 0 ? tol1 : -tol1);
+            double fu = f.at(u);
+            if (fu <= fx) {
+                if (u < x) b = x;
+                else a = x;
+                v = w; fv = fw;
+                w = x; fw = fx;
+                x = u; fx = fu;
+            } else {
+                if (u < x) a = u;
+                else b = u;
+                if (fu <= fw || w == x) {
+                    v = w; fv = fw;
+                    w = u; fw = fu;
+                } else if (fu <= fv || v == x || v == w) {
+                    v = u; fv = fu;
+                }
+            }
+        }
+        return new double[]{x, fx};
+    }
+
+    private static Result nelderMead(Objective f, double[] start) {
+        int n = start.length;
+        double[] best = start;
+        double bestF = f.at(start);
+
+        // Кілька рівномірно розкиданих стартів, щоб не застрягти в найближчому локальному мінімумі
+        int seeds = Math.min(MAX_SEEDS, f.limit / 10);
+        for (int s = 1; s <= seeds && bestF > GOOD_ENOUGH; s++) {
+            double[] point = new double[n];
+            for (int j = 0; j < n; j++) point[j] = halton(s, PRIMES[j]);
+            double value = f.at(point);
+            if (value < bestF) {
+                best = point;
+                bestF = value;
+            }
+        }
+
+        double step = 0.1;
+        for (int restart = 0; restart <= MAX_RESTARTS && !f.exhausted() && bestF > GOOD_ENOUGH; restart++) {
+            double[][] simplex = new double[n + 1][];
+            double[] values = new double[n + 1];
+            simplex[0] = best;
+            values[0] = bestF;
+            for (int j = 0; j < n; j++) {
+                double[] vertex = best.clone();
+                vertex[j] += vertex[j] + step <= 1 ? step : -step;
+                simplex[j + 1] = vertex;
+                values[j + 1] = f.at(vertex);
+            }
+
+            descend(f, simplex, values);
+
+            int min = argMin(values);
+            if (!(values[min] < bestF)) break;
+            best = simplex[min];
+            bestF = values[min];
+            step /= 2;
+        }
+        return new Result(best, bestF, 0);
+    }
+
+    private static void descend(Objective f, double[][] simplex, double[] values) {
+        int n = simplex.length - 1;
+        Integer[] order = new Integer[n + 1];
+
+        while (!f.exhausted()) {
+            for (int i = 0; i <= n; i++) order[i] = i;
+            Arrays.sort(order, (i, j) -> Double.compare(values[i], values[j]));
+            int lo = order[0], hi = order[n], second = order[n - 1];
+
+            if (values[lo] <= GOOD_ENOUGH || collapsed(simplex, values, lo, hi)) return;
+
+            double[] centroid = new double[n];
+            for (int i = 0; i <= n; i++) {
+                if (i == hi) continue;
+                for (int j = 0; j < n; j++) centroid[j] += simplex[i][j] / n;
+            }
+
+            double[] reflected = along(centroid, simplex[hi], -1);
+            double fr = f.at(reflected);
+            if (fr < values[lo]) {
+                double[] expanded = along(centroid, simplex[hi], -2);
+                double fe = f.at(expanded);
+                if (fe < fr) replace(simplex, values, hi, expanded, fe);
+                else replace(simplex, values, hi, reflected, fr);
+            } else if (fr < values[second]) {
+                replace(simplex, values, hi, reflected, fr);
+            } else {
+                boolean outside = fr < values[hi];
+                double[] contracted = along(centroid, outside ? reflected : simplex[hi], 0.5);
+                double fc = f.at(contracted);
+                if (fc < Math.min(fr, values[hi])) {
+                    replace(simplex, values, hi, contracted, fc);
+                } else {
+                    // Стискаємо весь симплекс до найкращої вершини
+                    for (int i = 0; i <= n; i++) {
+                        if (i == lo) continue;
+                        simplex[i] = along(simplex[lo], simplex[i], 0.5);
+                        values[i] = f.at(simplex[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean collapsed(double[][] simplex, double[] values, int lo, int hi) {
+        double spread = 0;
+        for (double[] vertex : simplex) {
+            for (int j = 0; j < vertex.length; j++) {
+                spread = Math.max(spread, Math.abs(vertex[j] - simplex[lo][j]));
+            }
+        }
+        return spread <= POSITION_TOLERANCE
+                || (Double.isFinite(values[hi]) && values[hi] - values[lo] <= 1e-15 * values[lo]);
+    }
+
+    /**
+     * centroid + t * (point - centroid), спроєктоване на куб.
+     */
+    private static double[] along(double[] centroid, double[] point, double t) {
+        double[] result = new double[centroid.length];
+        for (int j = 0; j < result.length; j++) {
+            result[j] = centroid[j] + t * (point[j] - centroid[j]);
+        }
+        return clamp(result);
+    }
+
+    private static void replace(double[][] simplex, double[] values, int index, double[] point, double value) {
+        simplex[index] = point;
+        values[index] = value;
+    }
+
+    private static int argMin(double[] values) {
+        int min = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] < values[min]) min = i;
+        }
+        return min;
+    }
+
+    private static int nearest(double[] grid, double x) {
+        return (int) Math.round(x * (grid.length - 1));
+    }
+
+    private static double halton(int index, int base) {
+        double result = 0;
+        double fraction = 1.0 / base;
+        for (int i = index; i > 0; i /= base) {
+            result += fraction * (i % base);
+            fraction /= base;
+        }
+        return result;
+    }
+
+    private static double[] clamp(double[] point) {
+        for (int j = 0; j < point.length; j++) {
+            point[j] = Math.min(1, Math.max(0, point[j]));
+        }
+        return point;
+    }
+
+    /**
+     * Ціль з лічильником обчислень; NaN (немає розв'язку) перетворюється на +∞.
+     */
+    private static final class Objective {
+
+        private final ToDoubleFunction<double[]> function;
+        private final int limit;
+        private final double[] scalar = new double[1];
+        private int count;
+
+        Objective(ToDoubleFunction<double[]> function, int limit) {
+            this.function = function;
+            this.limit = limit;
+        }
+
+        double at(double x) {
+            scalar[0] = Math.min(1, Math.max(0, x));
+            return at(scalar);
+        }
+
+        double at(double[] point) {
+            count++;
+            double value = function.applyAsDouble(point);
+            return Double.isNaN(value) ? Double.POSITIVE_INFINITY : value;
+        }
+
+        boolean exhausted() {
+            return count >= limit;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package ua.nulp.elHelper.service.solver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Простий потокобезпечний LRU-кеш з обмеженням кількості записів.
+ * Найдавніше використаний запис витісняється, коли кеш переповнено.
+ */
+public class LruCache<K, V> {
+
+    private final Map<K, V> entries;
+
+    public LruCache(int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    public synchronized void removeIf(Predicate<K> keyFilter) {
+        entries.keySet().removeIf(keyFilter);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+}
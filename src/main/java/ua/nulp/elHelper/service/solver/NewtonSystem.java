@@ -0,0 +1,150 @@
+package ua.nulp.elHelper.service.solver;
+
+/**
+ * Числовий розв'язок системи зв'язаних рівнянь методом Ньютона.
+ * Якобіан рахується скінченними різницями по скомпільованих нев'язках, крок — з демпфуванням
+ * (половинимо, доки норма нев'язки не зменшиться), лінійна система — Гаусом з вибором головного елемента.
+ * Розв'язок приймається, лише коли кожне рівняння виконується з відносною точністю
+ * до масштабу своїх частин, тож рівняння в пФ і в МОм перевіряються однаково.
+ */
+public final class NewtonSystem {
+
+    private static final double RESIDUAL_TOLERANCE = 1e-9;
+    private static final int MAX_DAMPING_STEPS = 30;
+
+    private NewtonSystem() {
+    }
+
+    /**
+     * @param values значення формули; відомі змінні заповнені, слоти системи будуть перезаписані
+     * @param start  початкове наближення для слотів системи
+     * @return розв'язок у порядку system.getTargets() або null, якщо метод не збігся
+     */
+    public static double[] solve(CoupledSystem system, double[] values, double[] start, RootFinder.Limits limits) {
+        int n = system.size();
+        int[] slots = system.getSlots();
+
+        double[] x = start.clone();
+        place(values, slots, x);
+        double[] f = residuals(system, values);
+        if (f == null) return null;
+        double norm = norm(f);
+
+        double[][] jacobian = new double[n][n];
+        for (int iteration = 0; iteration < limits.maxIterations(); iteration++) {
+            for (int j = 0; j < n; j++) {
+                double h = 1e-7 * Math.max(Math.abs(x[j]), 1e-12);
+                values[slots[j]] = x[j] + h;
+                double[] shifted = residuals(system, values);
+                values[slots[j]] = x[j];
+                if (shifted == null) return null;
+
+                for (int i = 0; i < n; i++) {
+                    jacobian[i][j] = (shifted[i] - f[i]) / h;
+                }
+            }
+
+            double[] step = gauss(jacobian, f);
+            if (step == null) return accept(system, values, slots, x);
+
+            // Демпфований крок: повний ньютонівський, а якщо він погіршує нев'язку — половинимо
+            double t = 1.0;
+            double[] next = new double[n];
+            double[] nextF = null;
+            for (int k = 0; k < MAX_DAMPING_STEPS; k++, t /= 2) {
+                for (int j = 0; j < n; j++) next[j] = x[j] - t * step[j];
+                place(values, slots, next);
+                nextF = residuals(system, values);
+                if (nextF != null && norm(nextF) < norm) break;
+                nextF = null;
+            }
+            // Далі нев'язка не зменшується — або ми вже в корені з точністю double, або застрягли
+            if (nextF == null) return accept(system, values, slots, x);
+
+            double change = 0;
+            for (int j = 0; j < n; j++) {
+                change = Math.max(change, Math.abs(next[j] - x[j]) / Math.max(Math.abs(next[j]), Double.MIN_NORMAL));
+            }
+
+            System.arraycopy(next, 0, x, 0, n);
+            f = nextF;
+            norm = norm(f);
+            if (change <= limits.tolerance()) {
+                return accept(system, values, slots, x);
+            }
+        }
+        return accept(system, values, slots, x);
+    }
+
+    private static double[] accept(CoupledSystem system, double[] values, int[] slots, double[] x) {
+        place(values, slots, x);
+        return converged(system, values) ? x : null;
+    }
+
+    /**
+     * Кожне рівняння виконується відносно масштабу своїх частин: |l - r| <= eps * (|l| + |r|).
+     */
+    static boolean converged(CoupledSystem system, double[] values) {
+        for (int i = 0; i < system.size(); i++) {
+            double l = system.getLeft()[i].evaluate(values);
+            double r = system.getRight()[i].evaluate(values);
+            if (!Double.isFinite(l) || !Double.isFinite(r)) return false;
+            if (Math.abs(l - r) > RESIDUAL_TOLERANCE * (Math.abs(l) + Math.abs(r))) return false;
+        }
+        return true;
+    }
+
+    private static double[] residuals(CoupledSystem system, double[] values) {
+        double[] f = new double[system.size()];
+        for (int i = 0; i < f.length; i++) {
+            f[i] = system.getLeft()[i].evaluate(values) - system.getRight()[i].evaluate(values);
+            if (!Double.isFinite(f[i])) return null;
+        }
+        return f;
+    }
+
+    private static void place(double[] values, int[] slots, double[] x) {
+        for (int j = 0; j < slots.length; j++) {
+            values[slots[j]] = x[j];
+        }
+    }
+
+    private static double norm(double[] f) {
+        double sum = 0;
+        for (double v : f) sum += v * v;
+        return sum;
+    }
+
+    /**
+     * Розв'язує a * x = b. Матриця a псується. null для виродженої системи.
+     */
+    private static double[] gauss(double[][] a, double[] b) {
+        int n = b.length;
+        double[] rhs = b.clone();
+
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int row = col + 1; row < n; row++) {
+                if (Math.abs(a[row][col]) > Math.abs(a[pivot][col])) pivot = row;
+            }
+            if (a[pivot][col] == 0.0 || !Double.isFinite(a[pivot][col])) return null;
+
+            double[] swap = a[col]; a[col] = a[pivot]; a[pivot] = swap;
+            double t = rhs[col]; rhs[col] = rhs[pivot]; rhs[pivot] = t;
+
+            for (int row = col + 1; row < n; row++) {
+                double factor = a[row][col] / a[col][col];
+                for (int k = col; k < n; k++) a[row][k] -= factor * a[col][k];
+                rhs[row] -= factor * rhs[col];
+            }
+        }
+
+        double[] x = new double[n];
+        for (int row = n - 1; row >= 0; row--) {
+            double sum = rhs[row];
+            for (int k = row + 1; k < n; k++) sum -= a[row][k] * x[k];
+            x[row] = sum / a[row][row];
+        }
+        return x;
+    }
+}
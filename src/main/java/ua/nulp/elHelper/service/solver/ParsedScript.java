@@ -0,0 +1,11 @@
+package ua.nulp.elHelper.service.solver;
+
+import java.util.List;
+
+/**
+ * Скрипт формули, розібраний у рівняння "left = right".
+ *
+ * @param variables змінні скрипту без "#" у порядку першої появи
+ */
+public record ParsedScript(ExprNode left, ExprNode right, List<String> variables) {
+}
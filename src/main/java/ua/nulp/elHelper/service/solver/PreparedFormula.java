@@ -0,0 +1,103 @@
+package ua.nulp.elHelper.service.solver;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Формула з фіксованим планом для незмінного набору відомих змінних.
+ * Призначена для масових обчислень (sweep, Monte Carlo, goal seek): значення лежать
+ * у double[] за слотами, а кожен крок плану — це виклик скомпільованого виразу
+ * або числовий пошук кореня. Перепланування при збої кроку немає: результат просто NaN.
+ */
+public class PreparedFormula {
+
+    private final CompiledFormula formula;
+    private final SolvePlan plan;
+    private final ClosedFormSolver solver;
+    private final int[] targetSlots;
+    private final boolean symbolicFallback;
+
+    PreparedFormula(CompiledFormula formula, SolvePlan plan, ClosedFormSolver solver, boolean symbolicFallback) {
+        this.formula = formula;
+        this.plan = plan;
+        this.solver = solver;
+        this.symbolicFallback = symbolicFallback;
+        this.targetSlots = plan.steps().stream()
+                .mapToInt(step -> formula.slotOf(step.target()))
+                .toArray();
+    }
+
+    public SolvePlan getPlan() {
+        return plan;
+    }
+
+    public CompiledFormula getFormula() {
+        return formula;
+    }
+
+    public double[] newValues() {
+        double[] values = new double[formula.getSlots().size()];
+        Arrays.fill(values, Double.NaN);
+        return values;
+    }
+
+    /**
+     * Слот змінної або -1, якщо формула її не використовує.
+     */
+    public int slotOf(String variable) {
+        return formula.getSlots().getOrDefault(variable, -1);
+    }
+
+    /**
+     * Виконує план над values. Відомі змінні мають бути заповнені заздалегідь.
+     *
+     * @return true, якщо всі кроки дали результат
+     */
+    public boolean evaluate(double[] values) {
+        var steps = plan.steps();
+        for (int i = 0; i < steps.size(); i++) {
+            var step = steps.get(i);
+            Double result = solver.solve(formula, step, values, symbolicFallback);
+            if (result == null) {
+                // Решта кроків не виконується — їхні слоти не мають тримати старих значень
+                for (int j = i; j < targetSlots.length; j++) {
+                    values[targetSlots[j]] = Double.NaN;
+                }
+                return false;
+            }
+            values[targetSlots[i]] = result;
+        }
+        return true;
+    }
+
+    /**
+     * Змінні, які обчислює план, у порядку кроків.
+     */
+    public List<String> getTargets() {
+        return plan.steps().stream().map(SolvePlan.Step::target).toList();
+    }
+
+    public int[] getTargetSlots() {
+        return targetSlots.clone();
+    }
+
+    /**
+     * Переносить обчислені змінні попередньої точки в нову. Кроки їх перезапишуть,
+     * а до того вони служать "попереднім значенням" для політики NEAREST_TO_PREVIOUS.
+     */
+    public void carryOver(double[] from, double[] to) {
+        for (int slot : targetSlots) {
+            to[slot] = from[slot];
+        }
+    }
+
+    public Map<String, Double> toMap(double[] values) {
+        Map<String, Double> result = new HashMap<>();
+        formula.getSlots().forEach((name, slot) -> {
+            if (!Double.isNaN(values[slot])) result.put(name, values[slot]);
+        });
+        return result;
+    }
+}
@@ -0,0 +1,180 @@
+package ua.nulp.elHelper.service.solver;
+
+import ua.nulp.elHelper.entity.Enums.RootPolicy;
+
+/**
+ * Числовий пошук кореня неявного рівняння f(x) = 0, де f — скомпільована нев'язка
+ * "ліва частина мінус права", а x — один слот масиву значень.
+ * Шукаємо всі зміни знака на логарифмічній сітці обох півосей, кожну уточнюємо методом Брента,
+ * а з отриманих коренів вибираємо один за RootPolicy формули (як і для скомпільованих коренів).
+ * Для політики за замовчуванням (FIRST_NON_NEGATIVE) пошук зупиняється на першому невід'ємному корені.
+ * Якщо зміни знака немає (напр. кратний корінь) — пробуємо Ньютона з чисельною похідною.
+ */
+public final class RootFinder {
+
+    // Сітка 1e-15 .. 1e15 з кроком пів декади — покриває значення від пФ до ТОм
+    private static final double[] GRID = new double[61];
+    // Більше коренів на сітці практично не буває; решта відкидається
+    private static final int MAX_ROOTS = 16;
+
+    static {
+        for (int i = 0; i < GRID.length; i++) {
+            GRID[i] = Math.pow(10, -15 + i * 0.5);
+        }
+    }
+
+    /**
+     * @param maxIterations ліміт ітерацій Брента/Ньютона на один виклик
+     * @param tolerance     відносна точність кореня
+     */
+    public record Limits(int maxIterations, double tolerance) {
+    }
+
+    private RootFinder() {
+    }
+
+    /**
+     * @param policy   як вибирати з кількох знайдених коренів (null — FIRST_NON_NEGATIVE)
+     * @param previous попереднє значення змінної (NaN, якщо його немає) — для NEAREST_TO_PREVIOUS
+     *                 і як старт Ньютона
+     * @return корінь або NaN, якщо його не знайдено в межах лімітів.
+     * Після виклику слот values[slot] містить знайдений корінь (або NaN).
+     */
+    public static double solve(CompiledExpression residual, double[] values, int slot, Limits limits,
+                               RootPolicy policy, double previous) {
+        boolean firstNonNegative = policy == null || policy == RootPolicy.FIRST_NON_NEGATIVE;
+        double[] roots = new double[MAX_ROOTS];
+
+        int count = bracketAll(residual, values, slot, 1.0, limits, roots, 0, firstNonNegative);
+        if (count == 0 || !firstNonNegative) {
+            count = bracketAll(residual, values, slot, -1.0, limits, roots, count, false);
+        }
+
+        double root = count > 0
+                ? RootSelector.select(policy, roots, count, previous)
+                : newton(residual, values, slot, Double.isFinite(previous) ? previous : 1.0, limits);
+        values[slot] = root;
+        return root;
+    }
+
+    /**
+     * Дописує в roots корені з півосі sign, від нуля назовні.
+     *
+     * @param stopAtFirst повернутися після першого знайденого кореня
+     * @return нова кількість коренів у roots
+     */
+    private static int bracketAll(CompiledExpression f, double[] values, int slot, double sign, Limits limits,
+                                  double[] roots, int count, boolean stopAtFirst) {
+        double prevX = 0.0;
+        double prevF = eval(f, values, slot, prevX);
+        // Нуль належить невід'ємній півосі, щоб не рахувати його двічі
+        if (prevF == 0.0 && sign > 0) {
+            roots[count++] = 0.0;
+            if (stopAtFirst) return count;
+        }
+
+        for (double magnitude : GRID) {
+            if (count == roots.length) break;
+            double x = sign * magnitude;
+            double fx = eval(f, values, slot, x);
+
+            if (fx == 0.0) {
+                roots[count++] = x;
+                if (stopAtFirst) return count;
+            } else if (Double.isFinite(prevF) && prevF != 0.0 && Double.isFinite(fx) && (prevF < 0) != (fx < 0)) {
+                double root = brent(f, values, slot, prevX, x, prevF, fx, limits);
+                if (!Double.isNaN(root)) {
+                    roots[count++] = root;
+                    if (stopAtFirst) return count;
+                }
+            }
+            // NaN (поза областю визначення) не рве пошук — просто переходимо далі
+            if (Double.isFinite(fx)) {
+                prevX = x;
+                prevF = fx;
+            }
+        }
+        return count;
+    }
+
+    private static double brent(CompiledExpression f, double[] values, int slot,
+                                double a, double b, double fa, double fb, Limits limits) {
+        if (Math.abs(fa) < Math.abs(fb)) {
+            double t = a; a = b; b = t;
+            t = fa; fa = fb; fb = t;
+        }
+        double c = a, fc = fa, d = b - a;
+        boolean bisected = true;
+
+        for (int i = 0; i < limits.maxIterations(); i++) {
+            double tol = limits.tolerance() * Math.max(Math.abs(b), Double.MIN_NORMAL);
+            if (fb == 0.0 || Math.abs(b - a) <= tol) return b;
+
+            double s;
+            if (fa != fc && fb != fc) {
+                // Обернена квадратична інтерполяція
+                s = a * fb * fc / ((fa - fb) * (fa - fc))
+                        + b * fa * fc / ((fb - fa) * (fb - fc))
+                        + c * fa * fb / ((fc - fa) * (fc - fb));
+            } else {
+                // Метод січних
+                s = b - fb * (b - a) / (fb - fa);
+            }
+
+            double mid = (3 * a + b) / 4;
+            boolean outside = (s < Math.min(mid, b) || s > Math.max(mid, b));
+            if (outside
+                    || (bisected && Math.abs(s - b) >= Math.abs(b - c) / 2)
+                    || (!bisected && Math.abs(s - b) >= Math.abs(c - d) / 2)
+                    || (bisected && Math.abs(b - c) < tol)
+                    || (!bisected && Math.abs(c - d) < tol)) {
+                s = (a + b) / 2;
+                bisected = true;
+            } else {
+                bisected = false;
+            }
+
+            double fs = eval(f, values, slot, s);
+            if (!Double.isFinite(fs)) return Double.NaN;
+
+            d = c;
+            c = b;
+            fc = fb;
+            if ((fa < 0) != (fs < 0)) {
+                b = s;
+                fb = fs;
+            } else {
+                a = s;
+                fa = fs;
+            }
+            if (Math.abs(fa) < Math.abs(fb)) {
+                double t = a; a = b; b = t;
+                t = fa; fa = fb; fb = t;
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static double newton(CompiledExpression f, double[] values, int slot, double x, Limits limits) {
+        for (int i = 0; i < limits.maxIterations(); i++) {
+            double fx = eval(f, values, slot, x);
+            if (!Double.isFinite(fx)) return Double.NaN;
+
+            double h = 1e-7 * Math.max(Math.abs(x), 1e-12);
+            double derivative = (eval(f, values, slot, x + h) - fx) / h;
+            if (derivative == 0.0 || !Double.isFinite(derivative)) return Double.NaN;
+
+            double next = x - fx / derivative;
+            if (Math.abs(next - x) <= limits.tolerance() * Math.max(Math.abs(next), Double.MIN_NORMAL)) {
+                return next;
+            }
+            x = next;
+        }
+        return Double.NaN;
+    }
+
+    private static double eval(CompiledExpression f, double[] values, int slot, double x) {
+        values[slot] = x;
+        return f.evaluate(values);
+    }
+}
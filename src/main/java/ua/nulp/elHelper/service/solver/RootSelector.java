@@ -0,0 +1,53 @@
+package ua.nulp.elHelper.service.solver;
+
+import ua.nulp.elHelper.entity.Enums.RootPolicy;
+
+/**
+ * Вибір одного дійсного кореня з кількох за політикою формули.
+ * Працює над примітивним масивом, бо викликається на кожному обчисленні скомпільованих коренів.
+ */
+public final class RootSelector {
+
+    private RootSelector() {
+    }
+
+    /**
+     * @param roots    кандидати; нескінченні та NaN пропускаються
+     * @param count    скільки перших елементів roots розглядати
+     * @param previous попереднє значення змінної (NaN, якщо його немає) — для NEAREST_TO_PREVIOUS
+     * @return вибраний корінь або NaN, якщо дійсних коренів немає
+     */
+    public static double select(RootPolicy policy, double[] roots, int count, double previous) {
+        if (policy == null) policy = RootPolicy.FIRST_NON_NEGATIVE;
+        if (policy == RootPolicy.NEAREST_TO_PREVIOUS && !Double.isFinite(previous)) {
+            policy = RootPolicy.FIRST_NON_NEGATIVE;
+        }
+
+        double best = Double.NaN;
+        for (int i = 0; i < count; i++) {
+            double val = roots[i];
+            if (!Double.isFinite(val)) continue;
+
+            switch (policy) {
+                case FIRST_NON_NEGATIVE -> {
+                    if (val >= 0) return val;
+                    if (Double.isNaN(best)) best = val;
+                }
+                case SMALLEST_POSITIVE -> {
+                    if (Double.isNaN(best)
+                            || (val > 0 && (best <= 0 || val < best))
+                            || (val <= 0 && best <= 0 && val > best)) {
+                        best = val;
+                    }
+                }
+                case LARGEST -> {
+                    if (Double.isNaN(best) || val > best) best = val;
+                }
+                case NEAREST_TO_PREVIOUS -> {
+                    if (Double.isNaN(best) || Math.abs(val - previous) < Math.abs(best - previous)) best = val;
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,33 @@
+package ua.nulp.elHelper.service.solver;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Впорядкований план розв'язання формули для конкретного набору відомих входів.
+ *
+ * @param steps          кроки у порядку виконання: скрипт і змінна, яку він обчислює.
+ *                       Зв'язана система дає по кроку на кожну свою змінну, підряд; перший з них розв'язує всю систему
+ * @param unresolved     змінні, які неможливо отримати з наданих входів
+ * @param overdetermined змінні скриптів, повністю заданих входами (рівняння лише перевіряє входи)
+ */
+public record SolvePlan(List<Step> steps, Set<String> unresolved, Set<String> overdetermined) {
+
+    /**
+     * @param system зв'язана система, до якої належить крок, або null для звичайного кроку
+     */
+    public record Step(CompiledScript script, String target, CoupledSystem system) {
+
+        public Step(CompiledScript script, String target) {
+            this(script, target, null);
+        }
+
+        public boolean isCoupled() {
+            return system != null;
+        }
+    }
+
+    public boolean isEmpty() {
+        return steps.isEmpty();
+    }
+}
@@ -0,0 +1,245 @@
+package ua.nulp.elHelper.service.solver;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ua.nulp.elHelper.entity.calculation.Formula;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Будує план розв'язання за двочастковим графом "змінна — рівняння".
+ * Рівняння стає готовим, коли в ньому лишається рівно одна невідома;
+ * розв'язок цієї невідомої зменшує лічильники всіх рівнянь, де вона зустрічається.
+ * Якщо готових рівнянь не лишилося, а невідомі є, шукаються зв'язані групи:
+ * максимальне паросполучення "рівняння — невідома", а на ньому — сильно зв'язні компоненти (Тарʼян).
+ * Компонента з k рівнянь і k невідомих стає одним кроком-системою, після чого прямий прохід продовжується.
+ * Плани кешуються у підготовленій формулі за сигнатурою відомих входів.
+ */
+@Component
+@RequiredArgsConstructor
+public class SolvePlanner {
+
+    private final FormulaCompiler formulaCompiler;
+
+    public SolvePlan plan(Formula formula, Collection<String> known) {
+        return plan(formulaCompiler.compile(formula), known, Set.of());
+    }
+
+    /**
+     * @param excluded індекси скриптів, які не можна використовувати (напр. солвер на них уже впав)
+     */
+    public SolvePlan plan(CompiledFormula formula, Collection<String> known, Set<Integer> excluded) {
+        String signature = new TreeSet<>(known) + "|" + new TreeSet<>(excluded);
+
+        SolvePlan plan = formula.getPlans().get(signature);
+        if (plan == null) {
+            plan = build(formula, known, excluded);
+            formula.getPlans().put(signature, plan);
+        }
+        return plan;
+    }
+
+    private SolvePlan build(CompiledFormula formula, Collection<String> knownInputs, Set<Integer> excluded) {
+        List<CompiledScript> scripts = formula.getScripts();
+        Set<String> known = new HashSet<>(knownInputs);
+        Map<String, List<CompiledScript>> usages = new HashMap<>();
+        int[] unknownCount = new int[scripts.size()];
+
+        // Скрипти з меншим індексом мають пріоритет, як і в послідовних проходах
+        PriorityQueue<CompiledScript> ready = new PriorityQueue<>((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+
+        for (CompiledScript script : scripts) {
+            if (excluded.contains(script.getIndex())) continue;
+            for (String v : script.getVariables()) {
+                usages.computeIfAbsent(v, k -> new ArrayList<>()).add(script);
+                if (!known.contains(v)) unknownCount[script.getIndex()]++;
+            }
+            if (unknownCount[script.getIndex()] == 1) ready.add(script);
+        }
+
+        List<SolvePlan.Step> steps = new ArrayList<>();
+        Set<Integer> used = new HashSet<>();
+
+        while (true) {
+            while (!ready.isEmpty()) {
+                CompiledScript script = ready.poll();
+                if (unknownCount[script.getIndex()] != 1) continue;
+
+                String target = script.getVariables().stream()
+                        .filter(v -> !known.contains(v))
+                        .findFirst()
+                        .orElseThrow();
+
+                steps.add(new SolvePlan.Step(script, target));
+                used.add(script.getIndex());
+                markKnown(target, known, usages, unknownCount, ready);
+            }
+
+            List<CompiledScript> remaining = scripts.stream()
+                    .filter(s -> !excluded.contains(s.getIndex()) && !used.contains(s.getIndex()))
+                    .filter(s -> unknownCount[s.getIndex()] > 0)
+                    .toList();
+            Map<CompiledScript, String> group = coupledGroup(remaining, known);
+            if (group == null) break;
+
+            CoupledSystem system = new CoupledSystem(formula, List.copyOf(group.keySet()), List.copyOf(group.values()));
+            group.forEach((script, target) -> {
+                steps.add(new SolvePlan.Step(script, target, system));
+                used.add(script.getIndex());
+            });
+            group.values().forEach(target -> markKnown(target, known, usages, unknownCount, ready));
+        }
+
+        Set<String> unresolved = new TreeSet<>();
+        Set<String> overdetermined = new LinkedHashSet<>();
+        for (CompiledScript script : scripts) {
+            if (excluded.contains(script.getIndex())) continue;
+            if (unknownCount[script.getIndex()] > 0) {
+                script.getVariables().stream().filter(v -> !known.contains(v)).forEach(unresolved::add);
+            } else if (!used.contains(script.getIndex()) && knownInputs.containsAll(script.getVariables())) {
+                // Усі змінні рівняння задані користувачем — входи можуть суперечити одне одному
+                overdetermined.addAll(script.getVariables());
+            }
+        }
+
+        return new SolvePlan(List.copyOf(steps), unresolved, overdetermined);
+    }
+
+    private static void markKnown(String variable, Set<String> known, Map<String, List<CompiledScript>> usages,
+                                  int[] unknownCount, PriorityQueue<CompiledScript> ready) {
+        known.add(variable);
+        for (CompiledScript dependent : usages.getOrDefault(variable, List.of())) {
+            if (--unknownCount[dependent.getIndex()] == 1) {
+                ready.add(dependent);
+            }
+        }
+    }
+
+    /**
+     * Перша (у порядку залежностей) зв'язана група рівнянь, яку можна розв'язати як систему:
+     * усі її невідомі визначаються рівняннями самої групи. null, якщо такої немає.
+     *
+     * @return скрипт -> невідома, яку він визначає за паросполученням, у порядку індексів скриптів
+     */
+    private Map<CompiledScript, String> coupledGroup(List<CompiledScript> remaining, Set<String> known) {
+        if (remaining.size() < 2) return null;
+
+        // Максимальне паросполучення рівняння -> невідома (шляхи Куна; скриптів у формулі одиниці-десятки)
+        Map<String, CompiledScript> matchedBy = new HashMap<>();
+        for (CompiledScript script : remaining) {
+            augment(script, known, matchedBy, new HashSet<>());
+        }
+        Map<CompiledScript, String> matchOf = new HashMap<>();
+        matchedBy.forEach((variable, script) -> matchOf.put(script, variable));
+
+        // Ребро s -> t: рівнянню s потрібна невідома, яку визначає t
+        List<CompiledScript> nodes = remaining.stream().filter(matchOf::containsKey).toList();
+        Map<CompiledScript, List<CompiledScript>> edges = new HashMap<>();
+        for (CompiledScript script : nodes) {
+            List<CompiledScript> targets = new ArrayList<>();
+            for (String v : script.getVariables()) {
+                CompiledScript owner = matchedBy.get(v);
+                if (!known.contains(v) && owner != null && owner != script) targets.add(owner);
+            }
+            edges.put(script, targets);
+        }
+
+        // Тарʼян віддає компоненти так, що залежності йдуть раніше за залежні від них
+        for (List<CompiledScript> component : new Tarjan(nodes, edges).components()) {
+            if (component.size() < 2) continue;
+
+            Set<String> determined = new HashSet<>();
+            component.forEach(script -> determined.add(matchOf.get(script)));
+            boolean closed = component.stream()
+                    .flatMap(script -> script.getVariables().stream())
+                    .allMatch(v -> known.contains(v) || determined.contains(v));
+            if (!closed) continue;
+
+            Map<CompiledScript, String> group = new LinkedHashMap<>();
+            component.stream()
+                    .sorted((a, b) -> Integer.compare(a.getIndex(), b.getIndex()))
+                    .forEach(script -> group.put(script, matchOf.get(script)));
+            return group;
+        }
+        return null;
+    }
+
+    private boolean augment(CompiledScript script, Set<String> known,
+                            Map<String, CompiledScript> matchedBy, Set<String> visited) {
+        for (String v : script.getVariables()) {
+            if (known.contains(v) || !visited.add(v)) continue;
+
+            CompiledScript owner = matchedBy.get(v);
+            if (owner == null || augment(owner, known, matchedBy, visited)) {
+                matchedBy.put(v, script);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Сильно зв'язні компоненти орієнтованого графа скриптів.
+     */
+    private static final class Tarjan {
+
+        private final Map<CompiledScript, List<CompiledScript>> edges;
+        private final Map<CompiledScript, Integer> index = new HashMap<>();
+        private final Map<CompiledScript, Integer> lowLink = new HashMap<>();
+        private final Deque<CompiledScript> stack = new ArrayDeque<>();
+        private final Set<CompiledScript> onStack = new HashSet<>();
+        private final List<List<CompiledScript>> components = new ArrayList<>();
+        private int counter;
+
+        Tarjan(List<CompiledScript> nodes, Map<CompiledScript, List<CompiledScript>> edges) {
+            this.edges = edges;
+            for (CompiledScript node : nodes) {
+                if (!index.containsKey(node)) connect(node);
+            }
+        }
+
+        List<List<CompiledScript>> components() {
+            return components;
+        }
+
+        private void connect(CompiledScript node) {
+            index.put(node, counter);
+            lowLink.put(node, counter);
+            counter++;
+            stack.push(node);
+            onStack.add(node);
+
+            for (CompiledScript next : edges.getOrDefault(node, List.of())) {
+                if (!index.containsKey(next)) {
+                    connect(next);
+                    lowLink.put(node, Math.min(lowLink.get(node), lowLink.get(next)));
+                } else if (onStack.contains(next)) {
+                    lowLink.put(node, Math.min(lowLink.get(node), index.get(next)));
+                }
+            }
+
+            if (lowLink.get(node).equals(index.get(node))) {
+                List<CompiledScript> component = new ArrayList<>();
+                CompiledScript member;
+                do {
+                    member = stack.pop();
+                    onStack.remove(member);
+                    component.add(member);
+                } while (member != node);
+                components.add(component);
+            }
+        }
+    }
+}
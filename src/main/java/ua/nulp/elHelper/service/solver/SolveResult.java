@@ -0,0 +1,31 @@
+package ua.nulp.elHelper.service.solver;
+
+import ua.nulp.elHelper.entity.Enums.RootPolicy;
+
+import java.util.List;
+
+/**
+ * Усі корені, які повернула Symja для однієї змінної.
+ *
+ * @param real    дійсні корені в порядку Symja
+ * @param complex корені з ненульовою уявною частиною (для діагностики; у розрахунок не потрапляють)
+ */
+public record SolveResult(double[] real, List<ComplexRoot> complex) {
+
+    public static final SolveResult EMPTY = new SolveResult(new double[0], List.of());
+
+    public record ComplexRoot(double re, double im) {
+    }
+
+    public boolean isEmpty() {
+        return real.length == 0 && complex.isEmpty();
+    }
+
+    /**
+     * @return вибраний дійсний корінь або null, якщо дійсних коренів немає
+     */
+    public Double select(RootPolicy policy, double previous) {
+        double root = RootSelector.select(policy, real, real.length, previous);
+        return Double.isNaN(root) ? null : root;
+    }
+}
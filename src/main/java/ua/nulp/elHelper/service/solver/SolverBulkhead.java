@@ -0,0 +1,173 @@
+package ua.nulp.elHelper.service.solver;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ua.nulp.elHelper.exception.SolverOverloadedException;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Окремий обмежений пул потоків для роботи солвера (bulkhead).
+ * Розрахунки не займають потоки Tomcat, тож сплеск важких запитів не блокує
+ * дешеві ендпоінти (пошук теорії, логін). Коли черга заповнена, запит відхиляється
+ * одразу з SolverOverloadedException (429 + Retry-After), а не накопичується.
+ * Фонова робота (перерахунок після зміни формули) має власний невеликий пул з низьким пріоритетом
+ * і не займає ні потоків, ні місць у черзі інтерактивних запитів.
+ */
+@Component
+public class SolverBulkhead {
+
+    private final ThreadPoolExecutor executor;
+    private final int threads;
+    private final ThreadPoolExecutor backgroundExecutor;
+    private final int backgroundThreads;
+    private final long retryAfterSeconds;
+
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public SolverBulkhead(MeterRegistry meterRegistry,
+                          @Value("${solver.bulkhead.threads:0}") int threads,
+                          @Value("${solver.bulkhead.queue-capacity:64}") int queueCapacity,
+                          @Value("${solver.bulkhead.retry-after-seconds:5}") long retryAfterSeconds,
+                          @Value("${solver.bulkhead.background-threads:0}") int backgroundThreads) {
+        // 0 — за кількістю ядер
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+            Thread thread = new Thread(task, "solver-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+        // 0 — чверть основного пулу, але хоча б один потік
+        this.backgroundThreads = backgroundThreads > 0 ? backgroundThreads : Math.max(1, this.threads / 4);
+        AtomicInteger backgroundCounter = new AtomicInteger();
+        this.backgroundExecutor = new ThreadPoolExecutor(this.backgroundThreads, this.backgroundThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.backgroundThreads), task -> {
+            Thread thread = new Thread(task, "solver-background-" + backgroundCounter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.waitTimer = Timer.builder("solver.bulkhead.wait")
+                .description("Time solver tasks spend in the queue")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejected = Counter.builder("solver.bulkhead.rejected")
+                .description("Solver tasks rejected because the queue was full")
+                .register(meterRegistry);
+        Gauge.builder("solver.bulkhead.queue.depth", executor, e -> e.getQueue().size())
+                .description("Solver tasks waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("solver.bulkhead.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Solver threads currently busy")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ставить задачу в чергу солвера.
+     *
+     * @throws SolverOverloadedException якщо черга заповнена
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long enqueued = System.nanoTime();
+        try {
+            executor.execute(() -> {
+                waitTimer.record(System.nanoTime() - enqueued, TimeUnit.NANOSECONDS);
+                try {
+                    result.complete(task.get());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new SolverOverloadedException(retryAfterSeconds);
+        }
+        return result;
+    }
+
+    /**
+     * Виконує action для 0..count-1 на поточному потоці та на вільних потоках пулу.
+     * Помічники ставляться в чергу лише за наявності місця; викликач сам забирає індекси
+     * зі спільного лічильника і чекає тільки на ті, що вже взято в роботу,
+     * тож задача пулу, яка викликає цей метод, не заблокується на власній черзі.
+     * Збій одного індексу не зупиняє решту; після завершення всіх кидається перший збій,
+     * а збої інших індексів додаються до нього як suppressed.
+     */
+    public void forEachParallel(int count, IntConsumer action) {
+        forEachParallel(executor, threads, count, action);
+    }
+
+    /**
+     * Те саме для фонової роботи: помічники беруться лише з фонового пулу.
+     */
+    public void forEachParallelInBackground(int count, IntConsumer action) {
+        forEachParallel(backgroundExecutor, backgroundThreads, count, action);
+    }
+
+    private void forEachParallel(ThreadPoolExecutor pool, int poolThreads, int count, IntConsumer action) {
+        AtomicInteger next = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(count);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        Runnable worker = () -> {
+            int i;
+            while ((i = next.getAndIncrement()) < count) {
+                try {
+                    action.accept(i);
+                } catch (RuntimeException e) {
+                    if (!failure.compareAndSet(null, e) && failure.get() != e) failure.get().addSuppressed(e);
+                } finally {
+                    done.countDown();
+                }
+            }
+        };
+
+        int helpers = Math.min(count, poolThreads) - 1;
+        for (int h = 0; h < helpers; h++) {
+            try {
+                pool.execute(worker);
+            } catch (RejectedExecutionException e) {
+                // Черга зайнята іншими запитами — решту зробить викликач
+                break;
+            }
+        }
+
+        worker.run();
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for solver workers");
+        }
+
+        if (failure.get() != null) throw failure.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        backgroundExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,98 @@
+package ua.nulp.elHelper.service.solver;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики солвера й розрахунків: таймери з гістограмами за id формули та результатом,
+ * лічильники проходів runAutoSolver і кроків, що не дали результату.
+ * Окремі повільні виклики (довші за solver.metrics.slow-solve-ms) пишуться в лог,
+ * щоб у продакшні було видно, які саме формули дорогі.
+ * Тег formula має обмежену кардинальність — формул у каталозі десятки-сотні.
+ */
+@Slf4j
+@Component
+public class SolverMetrics {
+
+    private static final Duration MIN_EXPECTED = Duration.ofMillis(1);
+    private static final Duration MAX_EXPECTED = Duration.ofSeconds(30);
+
+    private final MeterRegistry meterRegistry;
+    private final long slowThresholdNanos;
+
+    public SolverMetrics(MeterRegistry meterRegistry,
+                         @Value("${solver.metrics.slow-solve-ms:500}") long slowSolveMs) {
+        this.meterRegistry = meterRegistry;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowSolveMs);
+    }
+
+    /**
+     * Виклик Symja: operation — solve / isolate / evaluate.
+     */
+    public void recordSymbolic(String operation, Long formulaId, String outcome, long nanos, String detail) {
+        timer("solver.symbolic", "Symja calls by formula and outcome", formulaId, outcome)
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        logIfSlow("Symja " + operation, formulaId, outcome, nanos, detail);
+    }
+
+    /**
+     * Повний розрахунок формули (runAutoSolver).
+     */
+    public void recordCalculation(Long formulaId, String outcome, long nanos) {
+        timer("calculation.solve", "Calculations by formula and outcome", formulaId, outcome)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        logIfSlow("Calculation", formulaId, outcome, nanos, null);
+    }
+
+    public void countPass(Long formulaId) {
+        counter("calculation.solver.passes", "Solve plan passes in runAutoSolver", formulaId).increment();
+    }
+
+    public void countReused(Long formulaId) {
+        counter("calculation.solver.reused", "Plan steps taken from stored results on update", formulaId).increment();
+    }
+
+    public void countStepFailure(Long formulaId) {
+        counter("calculation.solver.failures", "Plan steps the solver could not resolve", formulaId).increment();
+    }
+
+    private Timer.Builder timer(String name, String description, Long formulaId, String outcome) {
+        return Timer.builder(name)
+                .description(description)
+                .tag("formula", formulaTag(formulaId))
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MIN_EXPECTED)
+                .maximumExpectedValue(MAX_EXPECTED);
+    }
+
+    private Counter counter(String name, String description, Long formulaId) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("formula", formulaTag(formulaId))
+                .register(meterRegistry);
+    }
+
+    private void logIfSlow(String what, Long formulaId, String outcome, long nanos, String detail) {
+        if (nanos < slowThresholdNanos) return;
+        log.warn("{} for formula {} took {} ms ({}){}", what, formulaTag(formulaId),
+                TimeUnit.NANOSECONDS.toMillis(nanos), outcome, detail != null ? ": " + detail : "");
+    }
+
+    // Розрахунки /test для ще не збереженої формули не мають id
+    private static String formulaTag(Long formulaId) {
+        return formulaId != null ? formulaId.toString() : "none";
+    }
+}
@@ -0,0 +1,108 @@
+package ua.nulp.elHelper.service.solver;
+
+import org.matheclipse.core.expression.S;
+import org.matheclipse.core.interfaces.IAST;
+import org.matheclipse.core.interfaces.IExpr;
+import org.matheclipse.core.interfaces.ISymbol;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Переводить вираз Symja у ExprNode, обходячи дерево IExpr напряму.
+ * Змінні впізнаються за безпечними іменами підготовленої формули (v0, v1, ...).
+ * Для всього, що не має дійсного числового аналога (I, Root, InverseFunction...),
+ * кидає UnsupportedOperationException — тоді викликач лишається на Symja.
+ */
+public final class SymjaConverter {
+
+    private static final Map<ISymbol, ExprNode.UnaryOp> FUNCTIONS = Map.ofEntries(
+            Map.entry(S.Sqrt, ExprNode.UnaryOp.SQRT),
+            Map.entry(S.Exp, ExprNode.UnaryOp.EXP),
+            Map.entry(S.Log10, ExprNode.UnaryOp.LOG10),
+            Map.entry(S.Sin, ExprNode.UnaryOp.SIN),
+            Map.entry(S.Cos, ExprNode.UnaryOp.COS),
+            Map.entry(S.Tan, ExprNode.UnaryOp.TAN),
+            Map.entry(S.ArcSin, ExprNode.UnaryOp.ASIN),
+            Map.entry(S.ArcCos, ExprNode.UnaryOp.ACOS),
+            Map.entry(S.ArcTan, ExprNode.UnaryOp.ATAN),
+            Map.entry(S.Sinh, ExprNode.UnaryOp.SINH),
+            Map.entry(S.Cosh, ExprNode.UnaryOp.COSH),
+            Map.entry(S.Tanh, ExprNode.UnaryOp.TANH),
+            Map.entry(S.Abs, ExprNode.UnaryOp.ABS)
+    );
+
+    private SymjaConverter() {
+    }
+
+    /**
+     * @param variables безпечне ім'я в нижньому регістрі (як його зберігає Symja) -> змінна зі слотом
+     */
+    public static ExprNode toNode(IExpr expr, Map<String, ExprNode.Var> variables) {
+        if (expr.isReal()) {
+            return new ExprNode.Num(expr.evalDouble());
+        }
+        if (expr.isSymbol()) {
+            return symbol((ISymbol) expr, variables);
+        }
+        if (!expr.isAST()) {
+            throw new UnsupportedOperationException("Unsupported atom: " + expr);
+        }
+
+        IAST ast = (IAST) expr;
+        if (ast.isPlus()) {
+            return fold(ast, ExprNode.BinaryOp.ADD, variables);
+        }
+        if (ast.isTimes()) {
+            return fold(ast, ExprNode.BinaryOp.MUL, variables);
+        }
+        if (ast.isPower()) {
+            ExprNode exponent = toNode(ast.arg2(), variables);
+            if (ast.arg1() == S.E) {
+                return new ExprNode.Unary(ExprNode.UnaryOp.EXP, exponent);
+            }
+            return new ExprNode.Binary(ExprNode.BinaryOp.POW, toNode(ast.arg1(), variables), exponent);
+        }
+        if (ast.isAST(S.Log, 2)) {
+            return new ExprNode.Unary(ExprNode.UnaryOp.LN, toNode(ast.arg1(), variables));
+        }
+        if (ast.isAST(S.Log, 3)) {
+            // Log(b, x) = ln(x) / ln(b)
+            return new ExprNode.Binary(ExprNode.BinaryOp.DIV,
+                    new ExprNode.Unary(ExprNode.UnaryOp.LN, toNode(ast.arg2(), variables)),
+                    new ExprNode.Unary(ExprNode.UnaryOp.LN, toNode(ast.arg1(), variables)));
+        }
+        if (ast.isAST(S.ArcTan, 3)) {
+            // ArcTan(x, y) = atan2(y, x)
+            return new ExprNode.Binary(ExprNode.BinaryOp.ATAN2,
+                    toNode(ast.arg2(), variables), toNode(ast.arg1(), variables));
+        }
+        if (ast.argSize() == 1 && ast.head().isSymbol()) {
+            ExprNode.UnaryOp op = FUNCTIONS.get((ISymbol) ast.head());
+            if (op != null) {
+                return new ExprNode.Unary(op, toNode(ast.arg1(), variables));
+            }
+        }
+        throw new UnsupportedOperationException("Unsupported function: " + ast.head());
+    }
+
+    private static ExprNode symbol(ISymbol symbol, Map<String, ExprNode.Var> variables) {
+        if (symbol == S.Pi) return new ExprNode.Num(Math.PI);
+        if (symbol == S.E) return new ExprNode.Num(Math.E);
+        if (symbol == S.Degree) return new ExprNode.Num(Math.PI / 180);
+
+        ExprNode.Var var = variables.get(symbol.getSymbolName().toLowerCase(Locale.ROOT));
+        if (var == null) {
+            throw new UnsupportedOperationException("Unknown symbol: " + symbol);
+        }
+        return var;
+    }
+
+    private static ExprNode fold(IAST ast, ExprNode.BinaryOp op, Map<String, ExprNode.Var> variables) {
+        ExprNode result = toNode(ast.arg1(), variables);
+        for (int i = 2; i <= ast.argSize(); i++) {
+            result = new ExprNode.Binary(op, result, toNode(ast.get(i), variables));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,89 @@
+package ua.nulp.elHelper.service.solver;
+
+import java.math.BigDecimal;
+
+/**
+ * Друкує ExprNode як вираз Symja з безпечними іменами змінних (v0, v1, ...).
+ * Числа пишуться точним десятковим записом без експоненти, тож Rationalize
+ * отримує рівно те значення, яке ввів автор формули.
+ */
+public final class SymjaWriter {
+
+    private SymjaWriter() {
+    }
+
+    public static String write(ExprNode node) {
+        StringBuilder sb = new StringBuilder();
+        write(node, sb);
+        return sb.toString();
+    }
+
+    private static void write(ExprNode node, StringBuilder sb) {
+        switch (node) {
+            case ExprNode.Num num -> {
+                String value = BigDecimal.valueOf(num.value()).stripTrailingZeros().toPlainString();
+                if (num.value() < 0) {
+                    sb.append('(').append(value).append(')');
+                } else {
+                    sb.append(value);
+                }
+            }
+            case ExprNode.Const constant -> sb.append(constant.symbol());
+            case ExprNode.Var var -> sb.append(CompiledFormula.safeName(var.slot()));
+            case ExprNode.Unary unary -> {
+                if (unary.op() == ExprNode.UnaryOp.NEG) {
+                    sb.append("(-");
+                    write(unary.arg(), sb);
+                    sb.append(')');
+                } else {
+                    sb.append(function(unary.op())).append('(');
+                    write(unary.arg(), sb);
+                    sb.append(')');
+                }
+            }
+            case ExprNode.Binary binary -> {
+                if (binary.op() == ExprNode.BinaryOp.ATAN2) {
+                    // atan2(y, x) = ArcTan(x, y)
+                    sb.append("ArcTan(");
+                    write(binary.right(), sb);
+                    sb.append(", ");
+                    write(binary.left(), sb);
+                    sb.append(')');
+                    return;
+                }
+                sb.append('(');
+                write(binary.left(), sb);
+                sb.append(switch (binary.op()) {
+                    case ADD -> " + ";
+                    case SUB -> " - ";
+                    case MUL -> "*";
+                    case DIV -> "/";
+                    case POW -> "^";
+                    case ATAN2 -> throw new IllegalStateException();
+                });
+                write(binary.right(), sb);
+                sb.append(')');
+            }
+        }
+    }
+
+    private static String function(ExprNode.UnaryOp op) {
+        return switch (op) {
+            case SQRT -> "Sqrt";
+            case EXP -> "Exp";
+            case LN -> "Log";
+            case LOG10 -> "Log10";
+            case SIN -> "Sin";
+            case COS -> "Cos";
+            case TAN -> "Tan";
+            case ASIN -> "ArcSin";
+            case ACOS -> "ArcCos";
+            case ATAN -> "ArcTan";
+            case SINH -> "Sinh";
+            case COSH -> "Cosh";
+            case TANH -> "Tanh";
+            case ABS -> "Abs";
+            case NEG -> throw new IllegalStateException();
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package ua.nulp.elHelper.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ua.nulp.elHelper.service.BomService;
+import ua.nulp.elHelper.service.ProjectService;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProjectControllerTest {
+
+    private static final String EMAIL = "user@elhelper.local";
+    private static final String ETAG = "3f1c";
+
+    private final BomService bomService = mock(BomService.class);
+    private final ProjectController controller = new ProjectController(mock(ProjectService.class), bomService);
+    private final Authentication authentication = new TestingAuthenticationToken(EMAIL, null);
+    private final StreamingResponseBody body = out -> out.write("csv".getBytes());
+
+    ProjectControllerTest() {
+        ReflectionTestUtils.setField(controller, "archivedBomMaxAge", Duration.ofDays(30));
+    }
+
+    @Test
+    void unchangedArchivedBomIsNotModified() {
+        when(bomService.csvBom(1L, EMAIL, false)).thenReturn(new BomService.BomFile(body, ETAG));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/projects/1/bom");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + ETAG + "\"");
+
+        ResponseEntity<StreamingResponseBody> response = download(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getBody()).isNull();
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"" + ETAG + "\"");
+    }
+
+    @Test
+    void staleETagGetsTheFile() {
+        when(bomService.csvBom(1L, EMAIL, false)).thenReturn(new BomService.BomFile(body, ETAG));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/projects/1/bom");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"previous\"");
+
+        ResponseEntity<StreamingResponseBody> response = download(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isSameAs(body);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"" + ETAG + "\"");
+        assertThat(response.getHeaders().getCacheControl()).contains("private").contains("max-age=2592000");
+    }
+
+    @Test
+    void activeProjectBomIsNeitherTaggedNorCached() {
+        when(bomService.csvBom(1L, EMAIL, false)).thenReturn(new BomService.BomFile(body, null));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/projects/1/bom");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"" + ETAG + "\"");
+
+        ResponseEntity<StreamingResponseBody> response = download(request);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isNull();
+        assertThat(response.getHeaders().getCacheControl()).isNull();
+    }
+
+    private ResponseEntity<StreamingResponseBody> download(MockHttpServletRequest request) {
+        return controller.downloadBom(authentication, 1L, false,
+                new ServletWebRequest(request, new MockHttpServletResponse()));
+    }
+}
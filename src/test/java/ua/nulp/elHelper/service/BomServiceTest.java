@@ -0,0 +1,129 @@
+package ua.nulp.elHelper.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import ua.nulp.elHelper.entity.calculation.Calculation;
+import ua.nulp.elHelper.entity.calculation.Formula;
+import ua.nulp.elHelper.entity.calculation.Project;
+import ua.nulp.elHelper.repository.CalculationRepo;
+import ua.nulp.elHelper.repository.FormulaRepo;
+import ua.nulp.elHelper.repository.ProjectRepo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BomServiceTest {
+
+    private static final String EMAIL = "user@elhelper.local";
+
+    private final ProjectRepo projectRepository = mock(ProjectRepo.class);
+    private final CalculationRepo calculationRepository = mock(CalculationRepo.class);
+    private final FormulaRepo formulaRepository = mock(FormulaRepo.class);
+    private final BomArtifactCache artifactCache = new BomArtifactCache(new SimpleMeterRegistry(), 1 << 20);
+
+    private final BomService bomService = new BomService(projectRepository, calculationRepository, formulaRepository,
+            mock(PlatformTransactionManager.class), mock(EntityManager.class), artifactCache, new SimpleMeterRegistry());
+
+    private Formula formula;
+    private Project project;
+
+    @BeforeEach
+    void setUp() {
+        formula = Formula.builder()
+                .id(7L)
+                .scripts(List.of(new Formula.FormulaScript("R1", "#Vmax / 0.01")))
+                .parameters(List.of(
+                        new Formula.FormulaParam("R1", Map.of("en", "R1"), List.of(
+                                new Formula.UnitDefinition("Ohm", 1.0), new Formula.UnitDefinition("kOhm", 1000.0))),
+                        new Formula.FormulaParam("Vmax", Map.of("en", "Vmax"), List.of(
+                                new Formula.UnitDefinition("V", 1.0)))))
+                .build();
+        project = Project.builder().id(1L).name("Archived").active(false).versionNumber(2).build();
+
+        when(projectRepository.findByIdAndUserEmail(1L, EMAIL)).thenReturn(Optional.of(project));
+        when(formulaRepository.findUsedByProjectId(1L)).thenAnswer(invocation -> List.of(formula));
+        when(calculationRepository.streamByProjectId(1L)).thenAnswer(invocation -> List.of(Calculation.builder()
+                .id(1L)
+                .name("Stage 1")
+                .project(project)
+                .formula(formula)
+                .results(Map.of("R1", 4630.0, "Vmax", 46.3))
+                .standardizedResults(Map.of("R1", 4700.0))
+                .build()).stream());
+    }
+
+    @Test
+    void activeProjectHasNoETag() {
+        project.setActive(true);
+
+        BomService.BomFile bom = bomService.csvBom(1L, EMAIL, false);
+
+        assertThat(bom.eTag()).isNull();
+        assertThat(download(bom)).contains("R1;Stage 1;4630.0000;4700.0000;Ohm;4.7 kOhm");
+    }
+
+    @Test
+    void archivedProjectKeepsItsETag() {
+        String first = bomService.csvBom(1L, EMAIL, false).eTag();
+
+        assertThat(first).isNotNull().isEqualTo(bomService.csvBom(1L, EMAIL, false).eTag());
+        assertThat(bomService.csvBom(1L, EMAIL, true).eTag()).isNotEqualTo(first);
+    }
+
+    @Test
+    void eTagFollowsComponentUnitsOfUsedFormulas() {
+        String before = bomService.csvBom(1L, EMAIL, false).eTag();
+
+        formula.getParameters().get(0).setUnits(List.of(new Formula.UnitDefinition("Ω", 1.0)));
+
+        assertThat(bomService.csvBom(1L, EMAIL, false).eTag()).isNotEqualTo(before);
+    }
+
+    @Test
+    void eTagIgnoresFormulaChangesThatDoNotReachTheFile() {
+        String before = bomService.csvBom(1L, EMAIL, false).eTag();
+
+        // Скрипт, інший множник не базової одиниці, одиниці не-компонента — у CSV цього немає
+        formula.setScripts(List.of(new Formula.FormulaScript("R1", "#Vmax / 0.02")));
+        formula.getParameters().get(0).getUnits().get(1).setMult(1e3 + 1);
+        formula.getParameters().get(1).setUnits(List.of(new Formula.UnitDefinition("mV", 1e-3)));
+
+        assertThat(bomService.csvBom(1L, EMAIL, false).eTag()).isEqualTo(before);
+    }
+
+    @Test
+    void archivedFileIsGeneratedOnceUntilFormulaChanges() {
+        String first = download(bomService.csvBom(1L, EMAIL, false));
+        String second = download(bomService.csvBom(1L, EMAIL, false));
+
+        assertThat(second).isEqualTo(first);
+        verify(calculationRepository, times(1)).streamByProjectId(1L);
+
+        artifactCache.onFormulaChanged(new FormulaChangedEvent(7L));
+        assertThat(download(bomService.csvBom(1L, EMAIL, false))).isEqualTo(first);
+        verify(calculationRepository, times(2)).streamByProjectId(1L);
+    }
+
+    private static String download(BomService.BomFile bom) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            bom.body().writeTo(out);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,164 @@
+package ua.nulp.elHelper.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ua.nulp.elHelper.entity.Enums.ESeries;
+import ua.nulp.elHelper.entity.calculation.Calculation;
+import ua.nulp.elHelper.entity.calculation.Formula;
+import ua.nulp.elHelper.entity.calculation.Project;
+import ua.nulp.elHelper.entity.common.Category;
+import ua.nulp.elHelper.entity.user.User;
+import ua.nulp.elHelper.repository.CalculationRepo;
+import ua.nulp.elHelper.repository.FormulaRepo;
+import ua.nulp.elHelper.repository.ProjectRepo;
+import ua.nulp.elHelper.service.dto.calculation.calculation.CalculationRequest;
+import ua.nulp.elHelper.service.solver.CalculationResultCache;
+import ua.nulp.elHelper.service.solver.ClosedFormSolver;
+import ua.nulp.elHelper.service.solver.EvaluatorPool;
+import ua.nulp.elHelper.service.solver.FormulaCircuitBreaker;
+import ua.nulp.elHelper.service.solver.FormulaCompiler;
+import ua.nulp.elHelper.service.solver.FormulaRevision;
+import ua.nulp.elHelper.service.solver.SolvePlanner;
+import ua.nulp.elHelper.service.solver.SolverBulkhead;
+import ua.nulp.elHelper.service.solver.SolverMetrics;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Оновлення збереженого розрахунку: які кроки беруться зі збережених результатів і що потрапляє в кеш.
+ * Збережене значення B навмисно не дорівнює 3 * y — так видно, чи його взято як є, чи перераховано.
+ */
+class CalculatorServiceTest {
+
+    private static final String EMAIL = "user@elhelper.local";
+    private static final double STORED_B = 999.0;
+
+    private final FormulaRepo formulaRepository = mock(FormulaRepo.class);
+    private final CalculationRepo calculationRepository = mock(CalculationRepo.class);
+
+    private SolverBulkhead solverBulkhead;
+    private CalculatorService calculatorService;
+
+    private Formula formula;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SolverMetrics solverMetrics = new SolverMetrics(meterRegistry, 60_000);
+        SymbolicSolverService symbolicSolver = new SymbolicSolverService(new EvaluatorPool(1, 5000, 512), solverMetrics);
+        ReflectionTestUtils.setField(symbolicSolver, "solveTimeoutMs", 10_000L);
+        ReflectionTestUtils.setField(symbolicSolver, "isolateTimeoutMs", 10_000L);
+        FormulaCompiler formulaCompiler = new FormulaCompiler(16);
+        solverBulkhead = new SolverBulkhead(meterRegistry, 1, 1, 5, 1);
+
+        calculatorService = new CalculatorService(formulaRepository, mock(ProjectRepo.class), calculationRepository,
+                new StandardizationService(ESeries.E24, ESeries.E24, ESeries.E24),
+                new ClosedFormSolver(symbolicSolver, 100, 1e-12), formulaCompiler, new SolvePlanner(formulaCompiler),
+                new FormulaCircuitBreaker(3, 60), new CalculationResultCache(meterRegistry, 100),
+                solverBulkhead, solverMetrics);
+
+        // A залежить лише від x, B — лише від y
+        formula = Formula.builder()
+                .id(1L)
+                .names(Map.of("uk", "Test"))
+                .category(Category.builder().id(1L).names(Map.of("uk", "Test")).build())
+                .scripts(List.of(
+                        new Formula.FormulaScript("A", "#x * 2"),
+                        new Formula.FormulaScript("B", "#y * 3")))
+                .parameters(List.of())
+                .build();
+        when(formulaRepository.findById(1L)).thenReturn(Optional.of(formula));
+        when(calculationRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @AfterEach
+    void tearDown() {
+        solverBulkhead.shutdown();
+    }
+
+    @Test
+    void unaffectedStepsAreReusedForTheSameRevision() {
+        Calculation calc = stored(FormulaRevision.of(formula).fingerprint());
+
+        var response = calculatorService.updateCalculation(1L, request(5.0, 1.0), EMAIL);
+
+        assertThat(response.getResults()).containsEntry("A", 10.0).containsEntry("B", STORED_B);
+        assertThat(calc.getFormulaRevision()).isEqualTo(FormulaRevision.of(formula).fingerprint());
+    }
+
+    @Test
+    void resultsOfAnotherRevisionAreRecomputedInFull() {
+        Calculation calc = stored("revision-before-edit");
+
+        var response = calculatorService.updateCalculation(1L, request(5.0, 1.0), EMAIL);
+
+        assertThat(response.getResults()).containsEntry("A", 10.0).containsEntry("B", 3.0);
+        assertThat(calc.getFormulaRevision()).isEqualTo(FormulaRevision.of(formula).fingerprint());
+    }
+
+    @Test
+    void resultWithReusedStepsIsNotCached() {
+        stored(FormulaRevision.of(formula).fingerprint());
+        calculatorService.updateCalculation(1L, request(5.0, 1.0), EMAIL);
+
+        CalculationRequest test = new CalculationRequest();
+        test.setFormulaId(1L);
+        test.setInputs(Map.of("x", 5.0, "y", 1.0));
+        Map<String, Object> fresh = calculatorService.calculateTest(test);
+
+        assertThat(fresh.get("results")).isEqualTo(Map.of("x", 5.0, "y", 1.0, "A", 10.0, "B", 3.0));
+    }
+
+    @Test
+    void fullResultFromCacheIsUsedForAnUpdate() {
+        CalculationRequest test = new CalculationRequest();
+        test.setFormulaId(1L);
+        test.setInputs(Map.of("x", 5.0, "y", 1.0));
+        calculatorService.calculateTest(test);
+        stored(FormulaRevision.of(formula).fingerprint());
+
+        var response = calculatorService.updateCalculation(1L, request(5.0, 1.0), EMAIL);
+
+        assertThat(response.getResults()).containsEntry("B", 3.0);
+    }
+
+    /**
+     * Розрахунок, збережений для x = 1, y = 1 з ревізією revision.
+     */
+    private Calculation stored(String revision) {
+        User user = new User();
+        user.setEmail(EMAIL);
+        Project project = Project.builder().id(1L).user(user).build();
+
+        Map<String, Double> results = new HashMap<>(Map.of("x", 1.0, "y", 1.0, "A", 2.0, "B", STORED_B));
+        Calculation calc = Calculation.builder()
+                .id(1L)
+                .name("Stored")
+                .project(project)
+                .formula(formula)
+                .inputs(Map.of("x", 1.0, "y", 1.0))
+                .results(results)
+                .standardizedResults(Map.of())
+                .formulaRevision(revision)
+                .build();
+        when(calculationRepository.findByIdAndProject_User_Email(1L, EMAIL)).thenReturn(Optional.of(calc));
+        return calc;
+    }
+
+    private static CalculationRequest request(double x, double y) {
+        CalculationRequest request = new CalculationRequest();
+        request.setInputs(Map.of("x", x, "y", y));
+        return request;
+    }
+}
@@ -0,0 +1,114 @@
+package ua.nulp.elHelper.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ua.nulp.elHelper.entity.Enums.ESeries;
+import ua.nulp.elHelper.service.dto.calculation.calculation.CombinationRequest;
+import ua.nulp.elHelper.service.dto.calculation.calculation.CombinationResponse;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class CombinationServiceTest {
+
+    private final CombinationService service = new CombinationService(
+            new StandardizationService(ESeries.E24, ESeries.E24, ESeries.E24));
+
+    CombinationServiceTest() {
+        ReflectionTestUtils.setField(service, "maxResults", 10);
+    }
+
+    @Test
+    void everyCombinationIsListedOnce() {
+        for (double target : new double[]{1234, 4631, 0.47e-6, 86.6}) {
+            CombinationResponse response = service.find(request(target, ESeries.E12, "R1", 3, 2.0));
+
+            Set<String> seen = new HashSet<>();
+            for (CombinationResponse.Combination combination : response.getCombinations()) {
+                List<Double> parts = combination.getParts().stream().map(CombinationResponse.Part::getValue).toList();
+                assertThat(seen.add(shape(combination) + parts))
+                        .as("duplicate %s for %s", combination.getNotation(), target)
+                        .isTrue();
+            }
+        }
+    }
+
+    @Test
+    void resultsAreWithinToleranceAndSortedWithinEachGroup() {
+        CombinationResponse response = service.find(request(1234, ESeries.E6, "R1", 3, 1.0));
+
+        double previousTwo = 0;
+        double previousThree = 0;
+        for (CombinationResponse.Combination combination : response.getCombinations()) {
+            double deviation = Math.abs(combination.getDeviation());
+            assertThat(deviation).isLessThanOrEqualTo(0.01);
+            assertThat(combination.getValue() / 1234 - 1).isCloseTo(combination.getDeviation(), within(1e-12));
+            if (combination.getParts().size() == 2) {
+                assertThat(deviation).isGreaterThanOrEqualTo(previousTwo);
+                previousTwo = deviation;
+            } else {
+                assertThat(deviation).isGreaterThanOrEqualTo(previousThree);
+                previousThree = deviation;
+            }
+        }
+    }
+
+    @Test
+    void equallyAccurateCombinationsPreferCloserParts() {
+        CombinationResponse response = service.find(request(4630, ESeries.E96, "R1", 3, 1.0));
+
+        List<CombinationResponse.Combination> combinations = response.getCombinations();
+        assertThat(combinations.get(0).getDeviation()).isZero();
+        assertThat(combinations.get(0).getParts()).extracting(CombinationResponse.Part::getValue)
+                .containsExactly(2260.0, 2370.0);
+        // Точна пара вже є — трійки не показуються
+        assertThat(combinations).allMatch(c -> c.getParts().size() == 2);
+    }
+
+    @Test
+    void threePartResultsMustBeatTheBestPairWithoutNegligibleParts() {
+        for (double target : new double[]{9.99, 1234, 4631}) {
+            CombinationResponse response = service.find(request(target, ESeries.E6, "R1", 3, 1.0));
+
+            double bestTwo = response.getCombinations().stream()
+                    .filter(c -> c.getParts().size() == 2)
+                    .mapToDouble(c -> Math.abs(c.getDeviation()))
+                    .min().orElse(Double.POSITIVE_INFINITY);
+            response.getCombinations().stream()
+                    .filter(c -> c.getParts().size() == 3)
+                    .forEach(c -> {
+                        assertThat(Math.abs(c.getDeviation())).isLessThan(bestTwo);
+                        assertThat(c.getParts()).allMatch(p -> p.getValue() >= c.getValue() * 1e-3);
+                    });
+        }
+    }
+
+    @Test
+    void capacitorsSwapSeriesAndParallel() {
+        CombinationResponse response = service.find(request(3.2e-6, ESeries.E6, "C1", 2, 1.0));
+
+        CombinationResponse.Combination combination = response.getCombinations().get(0);
+        assertThat(combination.getConnection()).isEqualTo("PARALLEL");
+        assertThat(combination.getNotation()).isEqualTo("C1.1 || C1.2");
+        assertThat(combination.getValue()).isCloseTo(
+                combination.getParts().get(0).getValue() + combination.getParts().get(1).getValue(), within(1e-18));
+    }
+
+    private static String shape(CombinationResponse.Combination combination) {
+        return combination.getNotation().replaceAll("[A-Z0-9.]+", "x");
+    }
+
+    private static CombinationRequest request(double value, ESeries series, String designator, int maxParts, double maxError) {
+        CombinationRequest request = new CombinationRequest();
+        request.setValue(value);
+        request.setSeries(series);
+        request.setDesignator(designator);
+        request.setMaxParts(maxParts);
+        request.setMaxError(maxError);
+        return request;
+    }
+}
@@ -0,0 +1,232 @@
+package ua.nulp.elHelper.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+import ua.nulp.elHelper.entity.Enums.ESeries;
+import ua.nulp.elHelper.entity.calculation.Calculation;
+import ua.nulp.elHelper.entity.calculation.Formula;
+import ua.nulp.elHelper.entity.calculation.Project;
+import ua.nulp.elHelper.entity.user.User;
+import ua.nulp.elHelper.repository.CalculationRepo;
+import ua.nulp.elHelper.repository.FormulaRepo;
+import ua.nulp.elHelper.service.dto.calculation.formula.ReevaluationStatus;
+import ua.nulp.elHelper.service.solver.CalculationResultCache;
+import ua.nulp.elHelper.service.solver.FormulaRevision;
+import ua.nulp.elHelper.service.solver.SolverBulkhead;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Фоновий перерахунок без бази: JdbcTemplate замінено таблицею в пам'яті, яка виконує ту саму умову UPDATE
+ * (id і незмінні inputs / input_units), а репозиторій віддає сторінки за id так само, як keyset-запит.
+ */
+class ReevaluationServiceTest {
+
+    private static final String EMAIL = "author@elhelper.local";
+    private static final Long FORMULA_ID = 3L;
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final CalculationRepo calculationRepository = mock(CalculationRepo.class);
+    private final FormulaRepo formulaRepository = mock(FormulaRepo.class);
+    private final CalculatorService calculatorService = mock(CalculatorService.class);
+    private final SolverBulkhead solverBulkhead = new SolverBulkhead(new SimpleMeterRegistry(), 2, 4, 5, 2);
+    private final CalculationsTable table = new CalculationsTable();
+
+    private final ReevaluationService reevaluationService = new ReevaluationService(calculationRepository,
+            formulaRepository, calculatorService, new StandardizationService(ESeries.E24, ESeries.E24, ESeries.E24),
+            solverBulkhead, table, jsonMapper);
+
+    private final List<Long> pagesAfter = new ArrayList<>();
+    private Formula formula;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reevaluationService, "pageSize", 2);
+
+        User author = new User();
+        author.setEmail(EMAIL);
+        formula = Formula.builder()
+                .id(FORMULA_ID)
+                .author(author)
+                .scripts(List.of(new Formula.FormulaScript("U", "#I * #R * 2")))
+                .build();
+        when(formulaRepository.findById(FORMULA_ID)).thenReturn(Optional.of(formula));
+
+        // Нова версія формули подвоює U
+        when(calculatorService.recalculate(eq(formula), anyMap(), any(), any(), any())).thenAnswer(invocation -> {
+            Map<String, Double> inputs = invocation.getArgument(1);
+            double u = inputs.get("I") * inputs.get("R") * 2;
+            return new CalculationResultCache.Entry(Map.of("U", u), Map.of("U", u));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        solverBulkhead.shutdown();
+    }
+
+    @Test
+    void everyPageIsProcessedOnceInIdOrder() {
+        List<Calculation> calculations = List.of(stored(1L, 1.0), stored(2L, 2.0), stored(4L, 3.0),
+                stored(7L, 4.0), stored(9L, 5.0));
+        pages(calculations);
+
+        reevaluationService.onFormulaChanged(new FormulaChangedEvent(FORMULA_ID));
+
+        assertThat(pagesAfter).containsExactly(0L, 2L, 7L, 9L);
+        ReevaluationStatus status = reevaluationService.getStatus(FORMULA_ID, EMAIL);
+        assertThat(status.getStatus()).isEqualTo("COMPLETED");
+        assertThat(status.getProcessed()).isEqualTo(5);
+        assertThat(status.getUpdated()).isEqualTo(5);
+        assertThat(table.rows.get(9L).results).containsEntry("U", 100.0);
+        assertThat(table.rows.values()).allMatch(row ->
+                row.formulaRevision.equals(FormulaRevision.of(formula).fingerprint()));
+    }
+
+    @Test
+    void rowEditedDuringReevaluationIsNotOverwritten() {
+        List<Calculation> calculations = List.of(stored(1L, 1.0), stored(2L, 2.0));
+        pages(calculations);
+
+        // Користувач зберігає нові входи розрахунку 2, поки той перераховується зі старих
+        Map<String, Double> edited = Map.of("I", 0.5, "R", 20.0);
+        Map<String, Double> userResults = Map.of("U", 10.0);
+        when(calculatorService.recalculate(eq(formula), eq(calculations.get(1).getInputs()), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    Row row = table.rows.get(2L);
+                    row.inputs = edited;
+                    row.results = userResults;
+                    return new CalculationResultCache.Entry(Map.of("U", 20.0), Map.of("U", 20.0));
+                });
+
+        reevaluationService.onFormulaChanged(new FormulaChangedEvent(FORMULA_ID));
+
+        Row untouched = table.rows.get(2L);
+        assertThat(untouched.inputs).isEqualTo(edited);
+        assertThat(untouched.results).isEqualTo(userResults);
+        assertThat(untouched.formulaRevision).isEqualTo("old");
+        assertThat(table.rows.get(1L).results).containsEntry("U", 20.0);
+        assertThat(reevaluationService.getStatus(FORMULA_ID, EMAIL).getUpdated()).isEqualTo(1);
+    }
+
+    @Test
+    void failedRowKeepsItsResultsAndOthersAreStillWritten() {
+        List<Calculation> calculations = List.of(stored(1L, 1.0), stored(2L, 2.0), stored(3L, 3.0));
+        pages(calculations);
+        when(calculatorService.recalculate(eq(formula), eq(calculations.get(1).getInputs()), any(), any(), any()))
+                .thenThrow(new RuntimeException("No solution"));
+
+        reevaluationService.onFormulaChanged(new FormulaChangedEvent(FORMULA_ID));
+
+        ReevaluationStatus status = reevaluationService.getStatus(FORMULA_ID, EMAIL);
+        assertThat(status.getFailed()).isEqualTo(1);
+        assertThat(status.getUpdated()).isEqualTo(2);
+        assertThat(table.rows.get(2L).formulaRevision).isEqualTo("old");
+        assertThat(table.rows.get(3L).results).containsEntry("U", 60.0);
+    }
+
+    /**
+     * Розрахунок з I = current, R = 10, порахований старою версією формули (U = I * R).
+     */
+    private Calculation stored(Long id, double current) {
+        User owner = new User();
+        owner.setEmail("owner@elhelper.local");
+        Map<String, Double> inputs = Map.of("I", current, "R", 10.0);
+        Map<String, Double> results = Map.of("U", current * 10);
+        table.rows.put(id, new Row(inputs, Map.of(), results, "old"));
+        return Calculation.builder()
+                .id(id)
+                .project(Project.builder().id(1L).user(owner).build())
+                .formula(formula)
+                .inputs(inputs)
+                .inputUnits(Map.of())
+                .results(results)
+                .build();
+    }
+
+    private void pages(List<Calculation> calculations) {
+        when(calculationRepository.countByFormulaIdAndProjectActiveTrue(FORMULA_ID)).thenReturn((long) calculations.size());
+        when(calculationRepository.findActiveByFormulaAfter(eq(FORMULA_ID), anyLong(), any())).thenAnswer(invocation -> {
+            long afterId = invocation.getArgument(1);
+            Pageable page = invocation.getArgument(2);
+            pagesAfter.add(afterId);
+            return calculations.stream()
+                    .filter(c -> c.getId() > afterId)
+                    .limit(page.getPageSize())
+                    .toList();
+        });
+    }
+
+    private static final class Row {
+
+        volatile Map<String, Double> inputs;
+        final Map<String, String> inputUnits;
+        volatile Map<String, Double> results;
+        volatile String formulaRevision;
+
+        Row(Map<String, Double> inputs, Map<String, String> inputUnits, Map<String, Double> results, String formulaRevision) {
+            this.inputs = inputs;
+            this.inputUnits = inputUnits;
+            this.results = results;
+            this.formulaRevision = formulaRevision;
+        }
+    }
+
+    /**
+     * Таблиця calculations для пакетного UPDATE: рядок оновлюється, лише якщо його id, inputs і input_units
+     * збігаються з переданими (як IS NOT DISTINCT FROM для jsonb — порівняння значень, а не тексту).
+     */
+    private final class CalculationsTable extends JdbcTemplate {
+
+        final Map<Long, Row> rows = new ConcurrentHashMap<>();
+
+        @Override
+        public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+            assertThat(sql).contains("inputs IS NOT DISTINCT FROM").contains("input_units IS NOT DISTINCT FROM");
+            int[] counts = new int[batchArgs.size()];
+            for (int i = 0; i < batchArgs.size(); i++) {
+                Object[] args = batchArgs.get(i);
+                Row row = rows.get((Long) args[3]);
+                if (row == null
+                        || !Objects.equals(parse(args[4]), row.inputs)
+                        || !Objects.equals(parse(args[5]), row.inputUnits)) {
+                    continue;
+                }
+                row.results = parseDoubles(args[0]);
+                row.formulaRevision = (String) args[2];
+                counts[i] = 1;
+            }
+            return counts;
+        }
+
+        private Map<?, ?> parse(Object json) {
+            return json == null ? null : jsonMapper.readValue((String) json, Map.class);
+        }
+
+        private Map<String, Double> parseDoubles(Object json) {
+            Map<String, Double> values = new HashMap<>();
+            parse(json).forEach((name, value) -> values.put((String) name, ((Number) value).doubleValue()));
+            return values;
+        }
+    }
+}
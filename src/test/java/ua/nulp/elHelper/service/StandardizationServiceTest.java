@@ -0,0 +1,87 @@
+package ua.nulp.elHelper.service;
+
+import org.junit.jupiter.api.Test;
+import ua.nulp.elHelper.entity.Enums.ESeries;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StandardizationServiceTest {
+
+    private final StandardizationService service = new StandardizationService(ESeries.E24, ESeries.E12, ESeries.E6);
+
+    private static final double[] E48 = {
+            1.00, 1.05, 1.10, 1.15, 1.21, 1.27, 1.33, 1.40, 1.47, 1.54, 1.62, 1.69,
+            1.78, 1.87, 1.96, 2.05, 2.15, 2.26, 2.37, 2.49, 2.61, 2.74, 2.87, 3.01,
+            3.16, 3.32, 3.48, 3.65, 3.83, 4.02, 4.22, 4.42, 4.64, 4.87, 5.11, 5.36,
+            5.62, 5.90, 6.19, 6.49, 6.81, 7.15, 7.50, 7.87, 8.25, 8.66, 9.09, 9.53
+    };
+
+    private static final double[] E96 = {
+            1.00, 1.02, 1.05, 1.07, 1.10, 1.13, 1.15, 1.18, 1.21, 1.24, 1.27, 1.30,
+            1.33, 1.37, 1.40, 1.43, 1.47, 1.50, 1.54, 1.58, 1.62, 1.65, 1.69, 1.74,
+            1.78, 1.82, 1.87, 1.91, 1.96, 2.00, 2.05, 2.10, 2.15, 2.21, 2.26, 2.32,
+            2.37, 2.43, 2.49, 2.55, 2.61, 2.67, 2.74, 2.80, 2.87, 2.94, 3.01, 3.09,
+            3.16, 3.24, 3.32, 3.40, 3.48, 3.57, 3.65, 3.74, 3.83, 3.92, 4.02, 4.12,
+            4.22, 4.32, 4.42, 4.53, 4.64, 4.75, 4.87, 4.99, 5.11, 5.23, 5.36, 5.49,
+            5.62, 5.76, 5.90, 6.04, 6.19, 6.34, 6.49, 6.65, 6.81, 6.98, 7.15, 7.32,
+            7.50, 7.68, 7.87, 8.06, 8.25, 8.45, 8.66, 8.87, 9.09, 9.31, 9.53, 9.76
+    };
+
+    @Test
+    void e48AndE96MatchTheStandardTables() {
+        assertThat(service.values(ESeries.E48, 1, 9.99)).containsExactly(E48);
+        assertThat(service.values(ESeries.E96, 1, 9.99)).containsExactly(E96);
+    }
+
+    @Test
+    void e192ContainsE96AndTheHistoric920() {
+        double[] e192 = service.values(ESeries.E192, 1, 9.99);
+
+        assertThat(e192).hasSize(192);
+        for (int i = 0; i < E96.length; i++) {
+            assertThat(e192[2 * i]).isEqualTo(E96[i]);
+        }
+        // 10^(185/192) = 9.19..., але в стандарті 9.20
+        assertThat(e192).contains(9.20).doesNotContain(9.19);
+        assertThat(e192).contains(1.01, 4.59, 9.88);
+    }
+
+    @Test
+    void tablesRepeatInEveryDecade() {
+        assertThat(service.values(ESeries.E96, 1e-9, 9.99e-9))
+                .containsExactly(Arrays.stream(E96).map(v -> Double.parseDouble(Math.round(v * 100) + "e-11")).toArray());
+        assertThat(service.values(ESeries.E48, 1e5, 9.99e5)).contains(464_000.0, 953_000.0);
+    }
+
+    @Test
+    void nearestValuePicksTheCloserNeighbour() {
+        assertThat(service.toNearest(4630, ESeries.E24)).isEqualTo(4700.0);
+        assertThat(service.toNearest(4630, ESeries.E96)).isEqualTo(4640.0);
+        assertThat(service.toNearest(9.185, ESeries.E192)).isEqualTo(9.20);
+        assertThat(service.toNearest(2.3e-7, ESeries.E12)).isEqualTo(2.2e-7);
+        // Вже стандартне значення не змінюється, навіть записане через інший порядок
+        assertThat(service.toNearest(4.7e-6, ESeries.E6)).isEqualTo(4.7e-6);
+    }
+
+    @Test
+    void nonPositiveAndNonFiniteValuesAreReturnedAsIs() {
+        assertThat(service.toNearest(0, ESeries.E24)).isEqualTo(0.0);
+        assertThat(service.toNearest(-4630, ESeries.E24)).isEqualTo(-4630.0);
+        assertThat(service.toNearest(Double.NaN, ESeries.E24)).isNaN();
+    }
+
+    @Test
+    void resultsAreStandardizedByComponentType() {
+        Map<String, Double> standardized = service.standardizeResults(
+                Map.of("R1", 4630.0, "C1", 2.3e-7, "L1", 5.0e-3, "I", 0.0123));
+
+        assertThat(standardized)
+                .containsEntry("R1", 4700.0)
+                .containsEntry("C1", 2.2e-7)
+                .containsEntry("L1", 4.7e-3)
+                .containsEntry("I", 0.0123);
+    }
+}
@@ -0,0 +1,116 @@
+package ua.nulp.elHelper.service.solver;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ua.nulp.elHelper.entity.Enums.ESeries;
+import ua.nulp.elHelper.entity.Enums.RootPolicy;
+import ua.nulp.elHelper.entity.calculation.Formula;
+import ua.nulp.elHelper.service.FormulaChangedEvent;
+import ua.nulp.elHelper.service.StandardizationService;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CalculationResultCacheTest {
+
+    private static final StandardizationService.Profile E24 =
+            new StandardizationService.Profile(ESeries.E24, ESeries.E24, ESeries.E24);
+
+    private final CalculationResultCache cache = new CalculationResultCache(new SimpleMeterRegistry(), 100);
+    private final AtomicInteger solves = new AtomicInteger();
+
+    @Test
+    void sameInputsAndProfileAreServedFromCache() {
+        CompiledFormula formula = formula("#I * #R", RootPolicy.FIRST_NON_NEGATIVE);
+
+        CalculationResultCache.Entry first = cache.get(formula, Map.of("I", 0.5, "R", 20.0), E24, this::solve);
+        // Інший порядок входів — той самий ключ
+        Map<String, Double> reordered = new HashMap<>();
+        reordered.put("R", 20.0);
+        reordered.put("I", 0.5);
+        CalculationResultCache.Entry second = cache.get(formula, reordered, E24, this::solve);
+
+        assertThat(solves).hasValue(1);
+        assertThat(second).isEqualTo(first);
+        assertThat(cache.find(formula, Map.of("I", 0.5, "R", 20.0), E24)).isEqualTo(first);
+    }
+
+    @Test
+    void cachedEntryIsNotSharedWithCallers() {
+        CompiledFormula formula = formula("#I * #R", RootPolicy.FIRST_NON_NEGATIVE);
+
+        cache.get(formula, Map.of("I", 0.5), E24, this::solve).results().put("U", -1.0);
+
+        assertThat(cache.find(formula, Map.of("I", 0.5), E24).results()).containsEntry("U", 10.0);
+    }
+
+    @Test
+    void differentInputsOrProfileMiss() {
+        CompiledFormula formula = formula("#I * #R", RootPolicy.FIRST_NON_NEGATIVE);
+        cache.get(formula, Map.of("I", 0.5, "R", 20.0), E24, this::solve);
+
+        assertThat(cache.find(formula, Map.of("I", 0.5, "R", 22.0), E24)).isNull();
+        assertThat(cache.find(formula, Map.of("I", 0.5, "R", 20.0),
+                new StandardizationService.Profile(ESeries.E96, ESeries.E24, ESeries.E24))).isNull();
+    }
+
+    @Test
+    void changedScriptsOrRootPolicyMiss() {
+        cache.get(formula("#I * #R", RootPolicy.FIRST_NON_NEGATIVE), Map.of("I", 0.5, "R", 20.0), E24, this::solve);
+
+        assertThat(cache.find(formula("#I * #R * 2", RootPolicy.FIRST_NON_NEGATIVE),
+                Map.of("I", 0.5, "R", 20.0), E24)).isNull();
+        assertThat(cache.find(formula("#I * #R", RootPolicy.LARGEST),
+                Map.of("I", 0.5, "R", 20.0), E24)).isNull();
+    }
+
+    @Test
+    void formulaChangedEventDropsItsEntriesOnly() {
+        CompiledFormula changed = formula(1L, "#I * #R");
+        CompiledFormula other = formula(2L, "#I * #R");
+        cache.get(changed, Map.of("I", 0.5), E24, this::solve);
+        cache.get(other, Map.of("I", 0.5), E24, this::solve);
+
+        cache.onFormulaChanged(new FormulaChangedEvent(1L));
+
+        assertThat(cache.find(changed, Map.of("I", 0.5), E24)).isNull();
+        assertThat(cache.find(other, Map.of("I", 0.5), E24)).isNotNull();
+        cache.get(changed, Map.of("I", 0.5), E24, this::solve);
+        assertThat(solves).hasValue(3);
+    }
+
+    @Test
+    void unsavedFormulaIsNeverCached() {
+        CompiledFormula unsaved = formula(null, "#I * #R");
+
+        cache.get(unsaved, Map.of("I", 0.5), E24, this::solve);
+        cache.get(unsaved, Map.of("I", 0.5), E24, this::solve);
+
+        assertThat(solves).hasValue(2);
+        assertThat(cache.find(unsaved, Map.of("I", 0.5), E24)).isNull();
+    }
+
+    private CalculationResultCache.Entry solve() {
+        solves.incrementAndGet();
+        return new CalculationResultCache.Entry(new HashMap<>(Map.of("U", 10.0)), new HashMap<>());
+    }
+
+    private static CompiledFormula formula(String expression, RootPolicy rootPolicy) {
+        return new CompiledFormula(Formula.builder()
+                .id(1L)
+                .scripts(List.of(new Formula.FormulaScript("U", expression)))
+                .rootPolicy(rootPolicy)
+                .build());
+    }
+
+    private static CompiledFormula formula(Long id, String expression) {
+        return new CompiledFormula(Formula.builder()
+                .id(id)
+                .scripts(List.of(new Formula.FormulaScript("U", expression)))
+                .build());
+    }
+}
@@ -0,0 +1,105 @@
+package ua.nulp.elHelper.service.solver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ua.nulp.elHelper.exception.FormulaParseException;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class FormulaParserTest {
+
+    @Test
+    void expressionWithoutEqualsIsAssignedToTarget() {
+        Map<String, Integer> slots = new HashMap<>();
+
+        ParsedScript script = FormulaParser.parse("#R", "#U / #I", slots);
+
+        assertThat(script.variables()).containsExactly("R", "U", "I");
+        assertThat(slots).containsEntry("R", 0).containsEntry("U", 1).containsEntry("I", 2);
+        assertThat(script.left()).isEqualTo(new ExprNode.Var("R", 0));
+    }
+
+    @Test
+    void equationKeepsBothSides() {
+        Map<String, Integer> slots = new HashMap<>();
+
+        ParsedScript script = FormulaParser.parse("U", "#U == #I * #R", slots);
+
+        assertThat(evaluate(script.right(), slots, Map.of("I", 0.5, "R", 20.0))).isEqualTo(10.0);
+    }
+
+    @Test
+    void operatorsFollowMathematicalPrecedence() {
+        assertThat(value("2 + 3 * 4 ^ 2")).isEqualTo(50.0);
+        assertThat(value("-2 ^ 2")).isEqualTo(-4.0);
+        assertThat(value("2 ^ 3 ^ 2")).isEqualTo(512.0);
+        assertThat(value("2 ^ -1")).isEqualTo(0.5);
+        assertThat(value("(1 + 2) / (4 - 1)")).isEqualTo(1.0);
+    }
+
+    @Test
+    void implicitMultiplicationBindsLikeExplicit() {
+        Map<String, Integer> slots = new HashMap<>();
+        ParsedScript script = FormulaParser.parse("X", "1 / (2 Pi #f #C)", slots);
+
+        double expected = 1 / (2 * Math.PI * 50 * 1e-6);
+        assertThat(evaluate(script.right(), slots, Map.of("f", 50.0, "C", 1e-6))).isCloseTo(expected, within(1e-9));
+    }
+
+    @Test
+    void numbersAcceptExponentNotations() {
+        assertThat(value("1e-3")).isEqualTo(1e-3);
+        assertThat(value("1.5E+3")).isEqualTo(1500.0);
+        assertThat(value(".5")).isEqualTo(0.5);
+        assertThat(value("2*^-6")).isEqualTo(2e-6);
+    }
+
+    @Test
+    void functionsAndConstantsIgnoreCase() {
+        assertThat(value("Sqrt(16) + SQRT[9]")).isEqualTo(7.0);
+        assertThat(value("Log(E)")).isEqualTo(1.0);
+        assertThat(value("Log(10, 1000)")).isCloseTo(3.0, within(1e-12));
+        assertThat(value("Sin(90 Degree)")).isCloseTo(1.0, within(1e-12));
+        assertThat(value("Abs(-pi)")).isEqualTo(Math.PI);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Max(#a, #b)",        // функція поза граматикою
+            "#a * x",             // змінна без решітки
+            "Sqrt(#a, #b)",       // зайвий аргумент
+            "(#a + #b",           // незакрита дужка
+            "#a +",               // обірваний вираз
+            "#a $ #b",            // невідомий символ
+            "# + 1",              // решітка без імені
+            "   "                 // порожній скрипт
+    })
+    void rejectsScriptsOutsideTheGrammar(String expression) {
+        assertThatThrownBy(() -> FormulaParser.parse("Y", expression, new HashMap<>()))
+                .isInstanceOf(FormulaParseException.class);
+    }
+
+    @Test
+    void errorPointsAtTheOffendingSymbol() {
+        assertThatThrownBy(() -> FormulaParser.parse("Y", "#a * Foo", new HashMap<>()))
+                .hasMessageContaining("Unknown symbol 'Foo'")
+                .hasMessageContaining("position 6");
+    }
+
+    private static double value(String expression) {
+        Map<String, Integer> slots = new HashMap<>();
+        return evaluate(FormulaParser.parse("Y", expression, slots).right(), slots, Map.of());
+    }
+
+    private static double evaluate(ExprNode node, Map<String, Integer> slots, Map<String, Double> inputs) {
+        double[] values = new double[slots.size()];
+        inputs.forEach((name, value) -> values[slots.get(name)] = value);
+        return node.evaluate(values);
+    }
+}
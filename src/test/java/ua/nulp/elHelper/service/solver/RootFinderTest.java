@@ -0,0 +1,87 @@
+package ua.nulp.elHelper.service.solver;
+
+import org.junit.jupiter.api.Test;
+import ua.nulp.elHelper.entity.Enums.RootPolicy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RootFinderTest {
+
+    private static final RootFinder.Limits LIMITS = new RootFinder.Limits(100, 1e-12);
+
+    @Test
+    void brentConvergesOnBracketedRoot() {
+        double[] values = new double[1];
+
+        double root = RootFinder.solve(v -> v[0] * v[0] * v[0] - 2, values, 0, LIMITS, null, Double.NaN);
+
+        assertThat(root).isCloseTo(Math.cbrt(2), within(1e-12));
+        assertThat(values[0]).isEqualTo(root);
+    }
+
+    @Test
+    void findsRootsAcrossManyDecades() {
+        // Ємність з реактивного опору: 1 / (2 Pi f C) = Xc, f = 1 кГц, Xc = 159.15 Ом -> C ~ 1 мкФ
+        double xc = 1 / (2 * Math.PI * 1e3 * 1e-6);
+        double root = RootFinder.solve(v -> 1 / (2 * Math.PI * 1e3 * v[0]) - xc, new double[1], 0, LIMITS, null, Double.NaN);
+
+        assertThat(root).isCloseTo(1e-6, within(1e-16));
+    }
+
+    @Test
+    void newtonHandlesRootWithoutSignChange() {
+        // Кратний корінь: f >= 0 усюди, сітка не бачить зміни знака.
+        // Точність такого кореня — близько sqrt(ulp), тому допуск м'якший
+        double root = RootFinder.solve(v -> (v[0] - 3) * (v[0] - 3), new double[1], 0,
+                new RootFinder.Limits(100, 1e-9), null, Double.NaN);
+
+        assertThat(root).isCloseTo(3.0, within(1e-6));
+    }
+
+    @Test
+    void returnsNaNWhenThereIsNoRealRoot() {
+        double[] values = {42};
+
+        double root = RootFinder.solve(v -> v[0] * v[0] + 1, values, 0, LIMITS, null, Double.NaN);
+
+        assertThat(root).isNaN();
+        assertThat(values[0]).isNaN();
+    }
+
+    @Test
+    void givesUpWithinIterationLimit() {
+        double root = RootFinder.solve(v -> Math.exp(v[0]) - 5, new double[1], 0, new RootFinder.Limits(1, 1e-12),
+                null, Double.NaN);
+
+        assertThat(root).isNaN();
+    }
+
+    @Test
+    void skipsPointsOutsideTheDomain() {
+        // Log не визначений для x <= 0 — NaN на від'ємній півосі не заважає знайти корінь
+        double root = RootFinder.solve(v -> Math.log(v[0]) - 1, new double[1], 0, LIMITS, null, Double.NaN);
+
+        assertThat(root).isCloseTo(Math.E, within(1e-12));
+    }
+
+    @Test
+    void rootPolicyChoosesAmongAllBracketedRoots() {
+        CompiledExpression cubic = v -> (v[0] - 1.5) * (v[0] - 20) * (v[0] + 3);
+
+        assertThat(solve(cubic, RootPolicy.FIRST_NON_NEGATIVE, Double.NaN)).isCloseTo(1.5, within(1e-12));
+        assertThat(solve(cubic, RootPolicy.SMALLEST_POSITIVE, Double.NaN)).isCloseTo(1.5, within(1e-12));
+        assertThat(solve(cubic, RootPolicy.LARGEST, Double.NaN)).isCloseTo(20.0, within(1e-12));
+        assertThat(solve(cubic, RootPolicy.NEAREST_TO_PREVIOUS, 15)).isCloseTo(20.0, within(1e-12));
+        assertThat(solve(cubic, RootPolicy.NEAREST_TO_PREVIOUS, -2.5)).isCloseTo(-3.0, within(1e-12));
+    }
+
+    @Test
+    void negativeRootIsUsedWhenThereIsNoOther() {
+        assertThat(solve(v -> v[0] + 7, null, Double.NaN)).isCloseTo(-7.0, within(1e-12));
+    }
+
+    private static double solve(CompiledExpression f, RootPolicy policy, double previous) {
+        return RootFinder.solve(f, new double[1], 0, LIMITS, policy, previous);
+    }
+}
@@ -0,0 +1,93 @@
+package ua.nulp.elHelper.service.solver;
+
+import org.junit.jupiter.api.Test;
+import ua.nulp.elHelper.entity.calculation.Formula;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SolvePlannerTest {
+
+    // Компілятор потрібен лише для plan(Formula, ...), тут формули компілюються напряму
+    private final SolvePlanner planner = new SolvePlanner(null);
+
+    @Test
+    void chainOfEquationsIsSolvedInDependencyOrder() {
+        CompiledFormula formula = formula("P", "#U * #I", "U", "#I * #R");
+
+        SolvePlan plan = planner.plan(formula, Set.of("I", "R"), Set.of());
+
+        assertThat(plan.steps()).extracting(SolvePlan.Step::target).containsExactly("U", "P");
+        assertThat(plan.steps()).noneMatch(SolvePlan.Step::isCoupled);
+        assertThat(plan.unresolved()).isEmpty();
+        assertThat(plan.overdetermined()).isEmpty();
+    }
+
+    @Test
+    void coupledEquationsBecomeOneSystemStep() {
+        // Дільник напруги: і Ix, і R2 є в обох рівняннях
+        CompiledFormula formula = formula("Vx", "#Ix * (#R1 + #R2)", "V2", "#Ix * #R2", "P", "#Ix * #Vx");
+
+        SolvePlan plan = planner.plan(formula, Set.of("Vx", "V2", "R1"), Set.of());
+
+        assertThat(plan.steps()).extracting(SolvePlan.Step::target).containsExactlyInAnyOrder("Ix", "R2", "P");
+        List<SolvePlan.Step> coupled = plan.steps().stream().filter(SolvePlan.Step::isCoupled).toList();
+        assertThat(coupled).hasSize(2);
+        assertThat(coupled.get(0).system()).isSameAs(coupled.get(1).system());
+        assertThat(coupled.get(0).system().getTargets()).containsExactlyInAnyOrder("Ix", "R2");
+        // Залежний від системи крок іде після неї
+        assertThat(plan.steps().get(2).target()).isEqualTo("P");
+        assertThat(plan.steps().get(2).isCoupled()).isFalse();
+    }
+
+    @Test
+    void systemWithMoreUnknownsThanEquationsStaysUnresolved() {
+        CompiledFormula formula = formula("Vx", "#Ix * (#R1 + #R2)", "V2", "#Ix * #R2");
+
+        SolvePlan plan = planner.plan(formula, Set.of("Vx", "V2"), Set.of());
+
+        assertThat(plan.steps()).isEmpty();
+        assertThat(plan.unresolved()).containsExactly("Ix", "R1", "R2");
+    }
+
+    @Test
+    void equationWithAllVariablesGivenIsReportedAsOverdetermined() {
+        CompiledFormula formula = formula("U", "#I * #R", "P", "#U * #I");
+
+        SolvePlan plan = planner.plan(formula, Set.of("U", "I", "R"), Set.of());
+
+        assertThat(plan.steps()).extracting(SolvePlan.Step::target).containsExactly("P");
+        assertThat(plan.overdetermined()).containsExactlyInAnyOrder("U", "I", "R");
+    }
+
+    @Test
+    void excludedScriptIsReplacedByAnotherEquationForTheSameVariable() {
+        CompiledFormula formula = formula("R", "#U / #I", "R", "#P / #I ^ 2");
+
+        SolvePlan plan = planner.plan(formula, Set.of("U", "I", "P"), Set.of(0));
+
+        assertThat(plan.steps()).hasSize(1);
+        assertThat(plan.steps().get(0).script().getIndex()).isEqualTo(1);
+    }
+
+    @Test
+    void planIsCachedPerKnownInputs() {
+        CompiledFormula formula = formula("U", "#I * #R");
+
+        SolvePlan first = planner.plan(formula, List.of("R", "I"), Set.of());
+        SolvePlan second = planner.plan(formula, Set.of("I", "R"), Set.of());
+
+        assertThat(second).isSameAs(first);
+    }
+
+    private static CompiledFormula formula(String... targetsAndExpressions) {
+        List<Formula.FormulaScript> scripts = new ArrayList<>();
+        for (int i = 0; i < targetsAndExpressions.length; i += 2) {
+            scripts.add(new Formula.FormulaScript(targetsAndExpressions[i], targetsAndExpressions[i + 1]));
+        }
+        return new CompiledFormula(Formula.builder().id(1L).scripts(scripts).build());
+    }
+}
@@ -0,0 +1,162 @@
+package ua.nulp.elHelper.service.solver;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import ua.nulp.elHelper.exception.GlobalExceptionHandler;
+import ua.nulp.elHelper.exception.SolverOverloadedException;
+import ua.nulp.elHelper.service.dto.common.ErrorResponse;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowableOfType;
+
+class SolverBulkheadTest {
+
+    // Один потік солвера, одне місце в черзі
+    private final SolverBulkhead bulkhead = new SolverBulkhead(new SimpleMeterRegistry(), 1, 1, 7, 1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        bulkhead.shutdown();
+    }
+
+    @Test
+    void fullQueueRejectsImmediately() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<String> running = bulkhead.submit(() -> {
+            started.countDown();
+            await(release);
+            return "first";
+        });
+        started.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> queued = bulkhead.submit(() -> "second");
+
+        SolverOverloadedException rejected = catchThrowableOfType(SolverOverloadedException.class,
+                () -> bulkhead.submit(() -> "third"));
+
+        assertThat(rejected.getRetryAfterSeconds()).isEqualTo(7);
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("second");
+    }
+
+    @Test
+    void overloadIsAnsweredWith429AndRetryAfter() {
+        ResponseEntity<ErrorResponse> response = new GlobalExceptionHandler().handleSolverOverloaded(
+                new SolverOverloadedException(7), new MockHttpServletRequest("POST", "/api/calculations/batch"));
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("7");
+        assertThat(response.getBody().getPath()).isEqualTo("/api/calculations/batch");
+    }
+
+    @Test
+    void taskFailureCompletesItsFutureOnly() throws Exception {
+        CompletableFuture<Object> failed = bulkhead.submit(() -> {
+            throw new IllegalStateException("boom");
+        });
+        CompletableFuture<String> next = bulkhead.submit(() -> "ok");
+
+        assertThat(next.get(5, TimeUnit.SECONDS)).isEqualTo("ok");
+        assertThat(failed).isCompletedExceptionally();
+    }
+
+    @Test
+    void everyItemRunsAndEachFailureIsReported() {
+        AtomicIntegerArray runs = new AtomicIntegerArray(10);
+
+        Throwable failure = catchThrowableOfType(RuntimeException.class, () -> bulkhead.forEachParallel(10, i -> {
+            runs.incrementAndGet(i);
+            if (i % 3 == 0) throw new RuntimeException("item " + i);
+        }));
+
+        for (int i = 0; i < 10; i++) assertThat(runs.get(i)).as("item %d", i).isEqualTo(1);
+        String[] messages = new String[failure.getSuppressed().length + 1];
+        messages[0] = failure.getMessage();
+        for (int i = 0; i < failure.getSuppressed().length; i++) messages[i + 1] = failure.getSuppressed()[i].getMessage();
+        assertThat(Arrays.asList(messages)).containsExactlyInAnyOrder("item 0", "item 3", "item 6", "item 9");
+    }
+
+    @Test
+    void callerDoesTheWorkWhenThePoolIsBusy() throws Exception {
+        SolverBulkhead twoThreads = new SolverBulkhead(new SimpleMeterRegistry(), 2, 1, 7, 1);
+        try {
+            CountDownLatch started = new CountDownLatch(2);
+            for (int t = 0; t < 2; t++) {
+                twoThreads.submit(() -> {
+                    started.countDown();
+                    await(release);
+                    return null;
+                });
+            }
+            started.await(5, TimeUnit.SECONDS);
+            twoThreads.submit(() -> null);
+            Thread caller = Thread.currentThread();
+            AtomicIntegerArray onCaller = new AtomicIntegerArray(5);
+
+            // Помічника нікуди поставити — усі індекси виконує сам викликач, без 429
+            twoThreads.forEachParallel(5, i -> onCaller.set(i, Thread.currentThread() == caller ? 1 : 0));
+
+            for (int i = 0; i < 5; i++) assertThat(onCaller.get(i)).isEqualTo(1);
+        } finally {
+            release.countDown();
+            twoThreads.shutdown();
+        }
+    }
+
+    @Test
+    void backgroundHelpersRunOnTheBackgroundPool() throws Exception {
+        SolverBulkhead withBackground = new SolverBulkhead(new SimpleMeterRegistry(), 1, 1, 7, 2);
+        try {
+            CountDownLatch bothRunning = new CountDownLatch(2);
+            String[] threads = new String[2];
+            CompletableFuture<Void> background = CompletableFuture.runAsync(() ->
+                    withBackground.forEachParallelInBackground(2, i -> {
+                        threads[i] = Thread.currentThread().getName();
+                        bothRunning.countDown();
+                        await(release);
+                    }));
+            assertThat(bothRunning.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // Інтерактивний пул вільний, поки фонова робота триває
+            assertThat(withBackground.submit(() -> "interactive").get(5, TimeUnit.SECONDS)).isEqualTo("interactive");
+            release.countDown();
+            background.get(5, TimeUnit.SECONDS);
+            assertThat(threads).anyMatch(name -> name.startsWith("solver-background-"));
+            assertThat(threads).noneMatch(name -> name.matches("solver-\\d+"));
+        } finally {
+            release.countDown();
+            withBackground.shutdown();
+        }
+    }
+
+    @Test
+    void failureOfSingleItemIsRethrownAsIs() {
+        RuntimeException boom = new IllegalArgumentException("boom");
+
+        assertThatThrownBy(() -> bulkhead.forEachParallel(1, i -> {
+            throw boom;
+        })).isSameAs(boom);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}